@@ -0,0 +1,76 @@
+package com.shoppingcart.atelier.benchmarks;
+
+import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.utils.CartMapper;
+import com.shoppingcart.atelier.utils.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping cart totals current after one line changes.
+ * bigDecimalResum is the BigDecimal re-sum CartService.updateCartTotals used to do on every
+ * mutation; it is kept here as the baseline for the incremental cents path that replaced it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartTotalsBenchmarks {
+
+    @Param({"5", "50", "500"})
+    public int lines;
+
+    private Cart cart;
+    private CartState state;
+    private CartLine changed;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        cart = Fixtures.cart(Fixtures.products(lines), lines);
+        state = CartMapper.toState(cart);
+        changed = state.getLines().values().iterator().next().toBuilder().build();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalResum() {
+        CartItem item = cart.getItems().get(0);
+        int quantity = 1 + (tick++ & 3);
+        item.setQuantity(quantity);
+        item.setTotalPrice(item.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+
+        BigDecimal total = cart.getItems().stream()
+                .map(CartItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int count = cart.getItems().stream()
+                .mapToInt(CartItem::getQuantity)
+                .sum();
+        cart.setTotalPrice(total);
+        cart.setItemCount(count);
+        return total;
+    }
+
+    @Benchmark
+    public long incrementalCents() {
+        int quantity = 1 + (tick++ & 3);
+        CartLine line = changed.toBuilder()
+                .quantity(quantity)
+                .totalCents(Money.times(changed.getUnitPriceCents(), quantity))
+                .build();
+        state.putLine(line);
+        return state.getTotalCents();
+    }
+
+    @Benchmark
+    public long recomputeCents() {
+        state.recomputeTotals();
+        return state.getTotalCents();
+    }
+}
@@ -0,0 +1,125 @@
+package com.shoppingcart.atelier.benchmarks;
+
+import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.models.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entity graphs shaped like production data, built without a database
+ */
+final class Fixtures {
+
+    private static final String[] GENDERS = {"MEN", "WOMEN", "UNISEX"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL"};
+    private static final String[] COLORS = {"Black", "White", "Navy", "Olive", "Sand", "Burgundy"};
+
+    private Fixtures() {
+    }
+
+    static List<Product> products(int count) {
+        List<Category> categories = new ArrayList<>();
+        for (long c = 1; c <= 12; c++) {
+            categories.add(Category.builder().id(c).name("Category " + c).description("Category " + c).build());
+        }
+
+        List<Product> products = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= count; i++) {
+            products.add(Product.builder()
+                    .id((long) i)
+                    .category(categories.get(i % categories.size()))
+                    .name("Relaxed linen overshirt " + i)
+                    .description("Garment-dyed linen overshirt with corozo buttons, a boxy fit and two chest pockets. "
+                            + "Pre-washed for softness. Style " + i + ".")
+                    .sku("ATL-" + String.format("%06d", i))
+                    .price(BigDecimal.valueOf(1999 + (i * 37L) % 20000, 2))
+                    .costPrice(BigDecimal.valueOf(899 + (i * 13L) % 9000, 2))
+                    .stockQuantity(i % 50)
+                    .size(SIZES[i % SIZES.length])
+                    .color(COLORS[i % COLORS.length])
+                    .gender(GENDERS[i % GENDERS.length])
+                    .imageUrl("https://cdn.example.com/products/" + i + "/main.jpg")
+                    .isActive(true)
+                    .isFeatured(i % 10 == 0)
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now)
+                    .build());
+        }
+        return products;
+    }
+
+    static Order order(List<Product> products, int lines) {
+        Order order = Order.builder()
+                .id(1L)
+                .orderNumber("ORD-BENCH-1")
+                .customerId(42L)
+                .shippingAddress("12 Rue des Ateliers")
+                .shippingCity("Lyon")
+                .shippingPostalCode("69002")
+                .shippingCountry("France")
+                .paymentMethod("CARD")
+                .customerNotes("Leave with concierge")
+                .status("PENDING")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            Product product = products.get(i % products.size());
+            int quantity = 1 + i % 3;
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            order.getItems().add(OrderItem.builder()
+                    .id((long) i + 1)
+                    .order(order)
+                    .product(product)
+                    .quantity(quantity)
+                    .unitPrice(product.getPrice())
+                    .totalPrice(lineTotal)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+            subtotal = subtotal.add(lineTotal);
+        }
+        order.setSubtotal(subtotal);
+        order.setTotalPrice(subtotal);
+        return order;
+    }
+
+    static Cart cart(List<Product> products, int lines) {
+        Cart cart = Cart.builder()
+                .id(1L)
+                .sessionId("bench-session")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        int count = 0;
+        for (int i = 0; i < lines; i++) {
+            Product product = products.get(i % products.size());
+            int quantity = 1 + i % 3;
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            cart.getItems().add(CartItem.builder()
+                    .id((long) i + 1)
+                    .cart(cart)
+                    .product(product)
+                    .quantity(quantity)
+                    .unitPrice(product.getPrice())
+                    .totalPrice(lineTotal)
+                    .build());
+            total = total.add(lineTotal);
+            count += quantity;
+        }
+        cart.setTotalPrice(total);
+        cart.setItemCount(count);
+        return cart;
+    }
+}
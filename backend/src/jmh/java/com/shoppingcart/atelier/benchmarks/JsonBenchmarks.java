@@ -0,0 +1,51 @@
+package com.shoppingcart.atelier.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shoppingcart.atelier.dto.ProductDTO;
+import com.shoppingcart.atelier.utils.ProductMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of product listings as the controllers return them
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmarks {
+
+    @Param({"48", "1000"})
+    public int size;
+
+    private List<ProductDTO> products;
+    private ObjectMapper objectMapper;
+    private ObjectWriter listWriter;
+
+    @Setup
+    public void setUp() {
+        products = Fixtures.products(size).stream().map(ProductMapper::toDTO).toList();
+        // Same settings Spring Boot applies to its auto-configured mapper
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, ProductDTO.class));
+    }
+
+    @Benchmark
+    public byte[] productListToBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] productListTypedWriter() throws Exception {
+        return listWriter.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,74 @@
+package com.shoppingcart.atelier.benchmarks;
+
+import com.shoppingcart.atelier.dto.CartDTO;
+import com.shoppingcart.atelier.dto.OrderDTO;
+import com.shoppingcart.atelier.dto.ProductDTO;
+import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.utils.CartMapper;
+import com.shoppingcart.atelier.utils.OrderMapper;
+import com.shoppingcart.atelier.utils.ProductMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping on large graphs: a full catalog page, a many-line order and cart
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmarks {
+
+    @Param({"48", "1000"})
+    public int size;
+
+    private List<Product> products;
+    private Order order;
+    private Cart cart;
+    private CartState cartState;
+
+    @Setup
+    public void setUp() {
+        products = Fixtures.products(size);
+        order = Fixtures.order(products, size);
+        cart = Fixtures.cart(products, size);
+        cartState = CartMapper.toState(cart);
+    }
+
+    @Benchmark
+    public List<ProductDTO> productToDTO() {
+        List<ProductDTO> dtos = new ArrayList<>(products.size());
+        for (Product product : products) {
+            dtos.add(ProductMapper.toDTO(product));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return OrderMapper.toDTO(order);
+    }
+
+    @Benchmark
+    public CartDTO cartEntityToDTO() {
+        return CartMapper.toDTO(cart);
+    }
+
+    @Benchmark
+    public CartDTO cartStateToDTO() {
+        return CartMapper.toDTO(cartState);
+    }
+
+    @Benchmark
+    public CartState cartEntityToState() {
+        return CartMapper.toState(cart);
+    }
+}
@@ -0,0 +1,37 @@
+package com.shoppingcart.atelier.benchmarks;
+
+import com.shoppingcart.atelier.utils.PasswordUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt cost of a login attempt at the encoder's default strength
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordBenchmarks {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hash = PasswordUtil.hashPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyCorrectPassword() {
+        return PasswordUtil.verifyPassword(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean verifyWrongPassword() {
+        return PasswordUtil.verifyPassword("wrong password", hash);
+    }
+}
@@ -0,0 +1,95 @@
+package com.shoppingcart.atelier.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-endpoint latency samples, kept raw so percentiles are exact
+ */
+class LatencyRecorder {
+
+    private final Map<String, Samples> byEndpoint = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    void start() {
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    void record(String endpoint, long nanos, boolean ok) {
+        if (recording) {
+            byEndpoint.computeIfAbsent(endpoint, e -> new Samples()).add(nanos, ok);
+        }
+    }
+
+    /**
+     * @param seconds length of the measured window, for throughput
+     * @return one row per endpoint, sorted by name
+     */
+    Map<String, Map<String, Object>> summarize(double seconds) {
+        Map<String, Map<String, Object>> summary = new TreeMap<>();
+        byEndpoint.forEach((endpoint, samples) -> summary.put(endpoint, samples.summarize(seconds)));
+        return summary;
+    }
+
+    private static final class Samples {
+
+        // ReentrantLock rather than synchronized so recording virtual threads never pin their carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] nanos = new long[4096];
+        private int count;
+        private long errors;
+
+        void add(long value, boolean ok) {
+            lock.lock();
+            try {
+                if (count == nanos.length) {
+                    nanos = Arrays.copyOf(nanos, count * 2);
+                }
+                nanos[count++] = value;
+                if (!ok) {
+                    errors++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<String, Object> summarize(double seconds) {
+            long[] sorted;
+            long errorCount;
+            lock.lock();
+            try {
+                sorted = Arrays.copyOf(nanos, count);
+                errorCount = errors;
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(sorted);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", sorted.length);
+            row.put("errors", errorCount);
+            row.put("throughput", sorted.length / seconds);
+            row.put("p50Ms", percentileMillis(sorted, 50));
+            row.put("p99Ms", percentileMillis(sorted, 99));
+            row.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+            return row;
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.shoppingcart.atelier.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shoppingcart.atelier.AtelierApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts an embedded PostgreSQL, loads the real schema and seed data scaled up
+ * synthetically, boots the application against it on a random port and drives a closed-loop
+ * browse, add-to-cart and checkout mix over HTTP. Prints p50/p99 and throughput per endpoint
+ * and writes them to target/loadtest-result.json.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            long seedStart = System.nanoTime();
+            new SeedLoader(postgres.getPostgresDatabase(), settings).load();
+            System.out.printf("database ready in %.1fs%n", (System.nanoTime() - seedStart) / 1e9);
+
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            SpringApplication application = new SpringApplication(AtelierApplication.class);
+            application.addInitializers(context ->
+                    context.getBeanFactory().registerSingleton("loadTestExcludeFilter", new TestClassExcludeFilter()));
+
+            try (ConfigurableApplicationContext context = application.run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--server.port=0",
+                    "--spring.jpa.show-sql=false",
+                    "--app.cors.allowed-origins=http://localhost",
+                    "--logging.level.root=WARN")) {
+                int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+                Map<String, Map<String, Object>> endpoints = drive(settings, URI.create("http://localhost:" + port),
+                        catalog(context.getBean(JdbcTemplate.class)));
+                report(settings, endpoints);
+            }
+        }
+    }
+
+    private static Map<String, Map<String, Object>> drive(LoadTestSettings settings, URI baseUri,
+                                                          ShopperScenario.Catalog catalog) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong sessions = new AtomicLong();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        System.out.printf("driving %d shoppers: %ds warmup, %ds measured%n",
+                settings.concurrency(), settings.warmup().toSeconds(), settings.duration().toSeconds());
+        long measuredNanos;
+        try (ExecutorService shoppers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                shoppers.submit(new ShopperScenario(http, baseUri, settings, catalog, recorder, running, sessions));
+            }
+            Thread.sleep(settings.warmup());
+            recorder.start();
+            long start = System.nanoTime();
+            Thread.sleep(settings.duration());
+            recorder.stop();
+            measuredNanos = System.nanoTime() - start;
+            running.set(false);
+        }
+        return recorder.summarize(measuredNanos / 1e9);
+    }
+
+    private static ShopperScenario.Catalog catalog(JdbcTemplate jdbcTemplate) {
+        Map<String, Object> products = jdbcTemplate.queryForMap(
+                "SELECT min(p_id) AS first_id, max(p_id) AS last_id FROM products WHERE p_sku LIKE 'SYN-%'");
+        Map<String, Object> customers = jdbcTemplate.queryForMap(
+                "SELECT min(u_id) AS first_id, max(u_id) AS last_id FROM users WHERE u_username LIKE 'load%'");
+        List<Long> categories = jdbcTemplate.queryForList("SELECT c_id FROM categories ORDER BY c_id", Long.class);
+        return new ShopperScenario.Catalog(
+                ((Number) products.get("first_id")).longValue(), ((Number) products.get("last_id")).longValue(),
+                categories,
+                ((Number) customers.get("first_id")).longValue(), ((Number) customers.get("last_id")).longValue());
+    }
+
+    private static void report(LoadTestSettings settings, Map<String, Map<String, Object>> endpoints) throws Exception {
+        System.out.printf("%n%-34s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        endpoints.forEach((endpoint, row) -> System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                endpoint, row.get("requests"), row.get("errors"), row.get("throughput"),
+                row.get("p50Ms"), row.get("p99Ms"), row.get("maxMs")));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("settings", Map.of(
+                "products", settings.products(),
+                "customers", settings.customers(),
+                "orders", settings.orders(),
+                "carts", settings.carts(),
+                "concurrency", settings.concurrency(),
+                "durationSeconds", settings.duration().toSeconds()));
+        result.put("endpoints", endpoints);
+
+        settings.resultFile().toAbsolutePath().getParent().toFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.resultFile().toFile(), result);
+        System.out.println("\nresults written to " + settings.resultFile());
+    }
+
+    // Keeps @TestConfiguration classes from the unit tests, which share this classpath, out of component scanning
+    static class TestClassExcludeFilter extends TypeExcludeFilter {
+
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName())
+                    || metadataReader.getClassMetadata().getClassName().contains("Tests$");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.shoppingcart.atelier.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test knobs, read from -Dloadtest.* system properties
+ */
+record LoadTestSettings(long products,
+                        long customers,
+                        long orders,
+                        long carts,
+                        int concurrency,
+                        Duration warmup,
+                        Duration duration,
+                        double cartRate,
+                        double checkoutRate,
+                        Path databaseDir,
+                        Path resultFile) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Long.getLong("loadtest.products", 1_000_000),
+                Long.getLong("loadtest.customers", 100_000),
+                Long.getLong("loadtest.orders", 1_000_000),
+                Long.getLong("loadtest.carts", 1_000_000),
+                Integer.getInteger("loadtest.concurrency", 64),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 15)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Double.parseDouble(System.getProperty("loadtest.cart-rate", "0.4")),
+                Double.parseDouble(System.getProperty("loadtest.checkout-rate", "0.5")),
+                Path.of(System.getProperty("loadtest.database-dir", "../database")),
+                Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json")));
+    }
+}
@@ -0,0 +1,170 @@
+package com.shoppingcart.atelier.loadtest;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the load-test database: the real schema and seed scripts, then synthetic rows
+ * generated server-side with generate_series so millions of rows load in minutes.
+ */
+class SeedLoader {
+
+    // Password for every synthetic customer is "password123"
+    private static final String PASSWORD_HASH = "$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG13AHN/Y.pVz4d7qK";
+
+    private final DataSource dataSource;
+    private final LoadTestSettings settings;
+
+    SeedLoader(DataSource dataSource, LoadTestSettings settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+    }
+
+    void load() throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // Function bodies contain semicolons, so these go to the server as whole scripts
+            statement.execute(read("schema.sql"));
+            statement.execute(read("triggers.sql"));
+            seedStatements(connection);
+            synthesize(statement);
+        }
+    }
+
+    // seed.sql is run statement by statement so rows that no longer fit the schema are skipped, not fatal
+    private void seedStatements(Connection connection) throws IOException, SQLException {
+        List<String> statements = split(read("seed.sql"));
+        int failed = 0;
+        for (String sql : statements) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                failed++;
+                System.out.println("seed.sql: skipped statement: " + e.getMessage().lines().findFirst().orElse(""));
+            }
+        }
+        System.out.printf("seed.sql: %d statements, %d skipped%n", statements.size(), failed);
+    }
+
+    private void synthesize(Statement statement) throws SQLException {
+        step(statement, "customers", """
+                INSERT INTO users (u_type, u_email, u_username, u_password, u_fullName, u_city, u_country, u_is_active)
+                SELECT 'CUSTOMER', 'load' || g || '@example.com', 'load' || g, '%s', 'Load Customer ' || g,
+                       'Colombo', 'Sri Lanka', true
+                FROM generate_series(1, %d) g
+                """.formatted(PASSWORD_HASH, settings.customers()));
+
+        step(statement, "products", """
+                INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price, p_cost_price,
+                                      p_stock_quantity, p_size, p_color, p_gender, p_image_url, p_is_active, p_is_featured)
+                SELECT c.c_id,
+                       'Synthetic ' || (ARRAY['Tee','Shirt','Dress','Jacket','Jeans','Cap'])[1 + g %% 6] || ' ' || g,
+                       'Synthetic catalog item ' || g,
+                       'SYN-' || g,
+                       round((5 + (g * 7919 %% 19500) / 100.0)::numeric, 2),
+                       round((2 + (g * 7919 %% 9000) / 100.0)::numeric, 2),
+                       1000000,
+                       (ARRAY['XS','S','M','L','XL'])[1 + g %% 5],
+                       (ARRAY['Black','White','Navy','Olive','Sand','Red'])[1 + g %% 6],
+                       (ARRAY['MEN','WOMEN','UNISEX','KIDS'])[1 + g %% 4],
+                       'https://cdn.example.com/p/' || g || '.jpg',
+                       true,
+                       g %% 500 = 0
+                FROM generate_series(1, %d) g
+                JOIN (SELECT c_id, row_number() OVER (ORDER BY c_id) - 1 AS n FROM categories) c
+                  ON c.n = g %% (SELECT count(*) FROM categories)
+                """.formatted(settings.products()));
+
+        step(statement, "orders", """
+                INSERT INTO orders (o_order_number, o_customer_id, o_subtotal, o_total_amount, o_status,
+                                    o_shipping_address, o_shipping_city, o_shipping_postal_code, o_shipping_country,
+                                    o_payment_method, created_at)
+                SELECT 'SYN-' || g, u.first_id + g %% u.total, 0, 0,
+                       (ARRAY['PENDING','CONFIRMED','PROCESSING','SHIPPED','DELIVERED'])[1 + g %% 5],
+                       g || ' Load Street', 'Colombo', '00300', 'Sri Lanka',
+                       (ARRAY['ONLINE','CARD','CASH'])[1 + g %% 3],
+                       now() - (g %% 365) * interval '1 day'
+                FROM generate_series(1, %d) g,
+                     (SELECT min(u_id) AS first_id, count(*) AS total FROM users WHERE u_type = 'CUSTOMER') u
+                """.formatted(settings.orders()));
+
+        step(statement, "order items", """
+                INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal)
+                SELECT o.o_id, p.p_id, 1 + line % 2, p.p_price, p.p_price * (1 + line % 2)
+                FROM orders o
+                CROSS JOIN LATERAL generate_series(1, 1 + (o.o_id / 50) % 3) line
+                JOIN products p ON p.p_id = 1 + ((o.o_id / 50) * 31 + line * 7) % (SELECT max(p_id) FROM products)
+                WHERE o.o_order_number LIKE 'SYN-%'
+                """);
+        statement.execute("""
+                UPDATE orders o SET o_subtotal = s.total, o_total_amount = s.total
+                FROM (SELECT ot_order_id, sum(ot_subtotal) AS total FROM order_items GROUP BY ot_order_id) s
+                WHERE o.o_id = s.ot_order_id AND o.o_order_number LIKE 'SYN-%'
+                """);
+
+        step(statement, "carts", """
+                INSERT INTO carts (ct_session_id) SELECT 'syn-' || g FROM generate_series(1, %d) g
+                """.formatted(settings.carts()));
+        step(statement, "cart items", """
+                INSERT INTO cart_items (ci_cart_id, ci_product_id, ci_quantity, ci_unit_price, ci_total_price)
+                SELECT c.ct_id, p.p_id, 1, p.p_price, p.p_price
+                FROM carts c
+                CROSS JOIN LATERAL generate_series(1, 1 + c.ct_id % 3) line
+                JOIN products p ON p.p_id = 1 + (c.ct_id * 17 + line * 13) % (SELECT max(p_id) FROM products)
+                WHERE c.ct_session_id LIKE 'syn-%'
+                """);
+        statement.execute("""
+                UPDATE carts c SET ct_total_price = s.total, ct_item_count = s.items
+                FROM (SELECT ci_cart_id, sum(ci_total_price) AS total, sum(ci_quantity) AS items
+                      FROM cart_items GROUP BY ci_cart_id) s
+                WHERE c.ct_id = s.ci_cart_id
+                """);
+
+        statement.execute("ANALYZE");
+    }
+
+    private void step(Statement statement, String label, String sql) throws SQLException {
+        long start = System.nanoTime();
+        int inserted = statement.executeUpdate(sql);
+        System.out.printf("seeded %,d %s in %.1fs%n", inserted, label, (System.nanoTime() - start) / 1e9);
+    }
+
+    // Splits on semicolons outside string literals, dropping -- comments
+    private static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (!quoted && c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                while (i < script.length() && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+            } else if (!quoted && c == ';') {
+                if (!current.toString().isBlank()) {
+                    statements.add(current.toString().trim());
+                }
+                current.setLength(0);
+            } else {
+                if (c == '\'') {
+                    quoted = !quoted;
+                }
+                current.append(c);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private String read(String script) throws IOException {
+        return Files.readString(settings.databaseDir().resolve(script));
+    }
+}
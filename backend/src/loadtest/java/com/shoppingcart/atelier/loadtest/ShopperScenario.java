@@ -0,0 +1,165 @@
+package com.shoppingcart.atelier.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One virtual shopper looping through sessions: every session browses, some add to the cart,
+ * and some of those check out. Half the sessions browse like the storefront pages do, the rest
+ * page with explicit limits. Requests are labelled by route template, not by concrete URL.
+ */
+class ShopperScenario implements Runnable {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final List<String> GENDERS = List.of("MEN", "WOMEN", "KIDS");
+
+    private final HttpClient http;
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final Catalog catalog;
+    private final LatencyRecorder recorder;
+    private final AtomicBoolean running;
+    private final AtomicLong sessions;
+
+    ShopperScenario(HttpClient http, URI baseUri, LoadTestSettings settings, Catalog catalog,
+                    LatencyRecorder recorder, AtomicBoolean running, AtomicLong sessions) {
+        this.http = http;
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.catalog = catalog;
+        this.recorder = recorder;
+        this.running = running;
+        this.sessions = sessions;
+    }
+
+    @Override
+    public void run() {
+        while (running.get()) {
+            try {
+                session();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void session() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (random.nextBoolean()) {
+            browseStorefront(random);
+        } else {
+            browsePaged(random);
+        }
+
+        if (random.nextDouble() >= settings.cartRate()) {
+            return;
+        }
+        String sessionId = "load-" + sessions.incrementAndGet();
+        int lines = 1 + random.nextInt(3);
+        for (int i = 0; i < lines; i++) {
+            post("POST /api/cart/{sessionId}/add", "/api/cart/" + sessionId + "/add",
+                    "{\"productId\":" + catalog.randomProduct(random) + ",\"quantity\":" + (1 + random.nextInt(2)) + "}");
+        }
+        get("GET /api/cart/{sessionId}", "/api/cart/" + sessionId);
+
+        if (random.nextDouble() >= settings.checkoutRate()) {
+            return;
+        }
+        post("POST /api/orders", "/api/orders", """
+                {"customerId":%d,"sessionId":"%s","shippingAddress":"1 Load Street","shippingCity":"Colombo",\
+                "shippingPostalCode":"00300","shippingCountry":"Sri Lanka","paymentMethod":"CARD"}"""
+                .formatted(catalog.randomCustomer(random), sessionId));
+    }
+
+    // The requests the React pages send: no limit or cursor except Store's "Load More"
+    private void browseStorefront(ThreadLocalRandom random) throws InterruptedException {
+        get("GET /api/products/featured", "/api/products/featured");
+        get("GET /api/products/latest", "/api/products/latest");
+
+        HttpResponse<Void> firstPage = get("GET /api/products", "/api/products");
+        String cursor = nextCursor(firstPage);
+        if (cursor != null && random.nextInt(4) == 0) {
+            get("GET /api/products", "/api/products?cursor=" + cursor);
+        }
+        if (random.nextBoolean()) {
+            get("GET /api/products/gender/{gender}",
+                    "/api/products/gender/" + GENDERS.get(random.nextInt(GENDERS.size())));
+        }
+        // Every item page also loads the first product page to pick related items from
+        for (int i = 0; i < 2; i++) {
+            get("GET /api/products/{id}", "/api/products/" + catalog.randomProduct(random));
+            get("GET /api/products", "/api/products");
+        }
+    }
+
+    // An API client paging with explicit limits
+    private void browsePaged(ThreadLocalRandom random) throws InterruptedException {
+        HttpResponse<Void> firstPage = get("GET /api/products?limit", "/api/products?limit=24");
+        String cursor = nextCursor(firstPage);
+        if (cursor != null && random.nextBoolean()) {
+            get("GET /api/products?limit", "/api/products?limit=24&cursor=" + cursor);
+        }
+        if (random.nextInt(4) == 0) {
+            get("GET /api/products/featured?limit", "/api/products/featured?limit=24");
+        }
+        get("GET /api/products/category/{id}",
+                "/api/products/category/" + catalog.randomCategory(random) + "?limit=24");
+        for (int i = 0; i < 2; i++) {
+            get("GET /api/products/{id}", "/api/products/" + catalog.randomProduct(random));
+        }
+    }
+
+    private static String nextCursor(HttpResponse<Void> response) {
+        return response == null ? null : response.headers().firstValue("X-Next-Cursor").orElse(null);
+    }
+
+    private HttpResponse<Void> get(String endpoint, String path) throws InterruptedException {
+        return send(endpoint, HttpRequest.newBuilder(baseUri.resolve(path)).GET());
+    }
+
+    private HttpResponse<Void> post(String endpoint, String path, String json) throws InterruptedException {
+        return send(endpoint, HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpResponse<Void> send(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.discarding());
+            recorder.record(endpoint, System.nanoTime() - start, response.statusCode() < 400);
+            return response;
+        } catch (java.io.IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, false);
+            return null;
+        }
+    }
+
+    /**
+     * ID ranges of the synthetic rows the shoppers pick from
+     */
+    record Catalog(long firstProductId, long lastProductId, List<Long> categoryIds,
+                   long firstCustomerId, long lastCustomerId) {
+
+        long randomProduct(ThreadLocalRandom random) {
+            return random.nextLong(firstProductId, lastProductId + 1);
+        }
+
+        long randomCategory(ThreadLocalRandom random) {
+            return categoryIds.get(random.nextInt(categoryIds.size()));
+        }
+
+        long randomCustomer(ThreadLocalRandom random) {
+            return random.nextLong(firstCustomerId, lastCustomerId + 1);
+        }
+    }
+}
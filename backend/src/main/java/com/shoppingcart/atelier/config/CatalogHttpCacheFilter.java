@@ -0,0 +1,105 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.services.CatalogCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Conditional GETs for the catalog endpoints.
+ * The ETag is the CatalogCache version, which every product and category write and every committed
+ * stock change bumps, so product payloads and their stockQuantity never change under one tag and an
+ * If-None-Match hit is answered with 304 before the request reaches a controller or the database.
+ * The boot epoch is part of the tag because the version counter restarts at zero.
+ */
+public class CatalogHttpCacheFilter extends OncePerRequestFilter {
+
+    private static final List<String> CATALOG_PATHS = List.of("/api/products", "/api/categories");
+    // Full dumps for admins, which a shared cache must never hold, and faceted queries, whose
+    // inStock facet follows raw stock updates that do not bump the version
+    private static final List<String> EXCLUDED_PATHS = List.of("/api/products/export", "/api/products/query");
+    private static final Counter NOT_MODIFIED = Metrics.counter("atelier.catalog.not.modified");
+
+    private final CatalogCache catalogCache;
+    private final String cacheControl;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public CatalogHttpCacheFilter(CatalogCache catalogCache, String cacheControl) {
+        this.catalogCache = catalogCache;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * @return the strong ETag for the current catalog version
+     */
+    public String currentEtag() {
+        return "\"" + epoch + "-" + catalogCache.getVersion() + "\"";
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return EXCLUDED_PATHS.contains(path)
+                || CATALOG_PATHS.stream().noneMatch(prefix -> path.equals(prefix) || path.startsWith(prefix + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Read the version before the body is built so the tag is never newer than the payload
+        String etag = currentEtag();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            NOT_MODIFIED.increment();
+            return;
+        }
+        chain.doFilter(request, new UncacheableOnError(response));
+    }
+
+    // Errors must not be stored by a CDN under the catalog's Cache-Control
+    private static class UncacheableOnError extends HttpServletResponseWrapper {
+
+        UncacheableOnError(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            noStoreIfError(sc);
+            super.setStatus(sc);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            noStoreIfError(sc);
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            noStoreIfError(sc);
+            super.sendError(sc, msg);
+        }
+
+        private void noStoreIfError(int sc) {
+            if (sc >= 400) {
+                setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.shoppingcart.atelier.config;
 
+import com.shoppingcart.atelier.utils.KeysetPage;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -37,6 +40,9 @@ public class CorsConfig {
         // Allow common headers
         configuration.setAllowedHeaders(Arrays.asList("*"));
 
+        // Let browsers read the keyset pagination cursor
+        configuration.setExposedHeaders(Arrays.asList(KeysetPage.NEXT_CURSOR_HEADER));
+
         // Allow credentials (cookies, auth headers)
         configuration.setAllowCredentials(true);
 
@@ -48,8 +54,11 @@ public class CorsConfig {
         return source;
     }
 
+    // Run first so short-circuited responses (preflights, 304s) still get the CORS headers
     @Bean
-    public CorsFilter corsFilter() {
-        return new CorsFilter(corsConfigurationSource());
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(corsConfigurationSource()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
     }
 }
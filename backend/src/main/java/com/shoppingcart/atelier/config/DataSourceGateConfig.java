@@ -0,0 +1,44 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.utils.GatedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+// Puts a GatedDataSource in front of the Hikari pool, on by default in virtual-thread mode
+@Configuration
+@ConditionalOnProperty(name = "app.db-gate.enabled", havingValue = "true")
+public class DataSourceGateConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceGate(@Value("${app.db-gate.permits:0}") int permits,
+                                            @Value("${app.db-gate.max-waiting:1000}") int maxWaiting,
+                                            @Value("${app.db-gate.acquire-timeout:5s}") Duration acquireTimeout) {
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    // One permit per pooled connection unless configured otherwise
+                    int gatePermits = permits > 0 ? permits : hikari.getMaximumPoolSize();
+                    return new GatedDataSource(hikari, gatePermits, maxWaiting, acquireTimeout);
+                }
+                return bean;
+            }
+
+            // Runs before other DataSource wrappers so the gate sits directly on the pool
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        };
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+    }
+}
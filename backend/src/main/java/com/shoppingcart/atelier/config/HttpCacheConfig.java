@@ -0,0 +1,34 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.services.CatalogCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+// ETags and Cache-Control for catalog GETs; runs after CORS so 304s still carry the CORS headers
+@Configuration
+@ConditionalOnProperty(name = "app.http-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class HttpCacheConfig {
+
+    @Bean
+    FilterRegistrationBean<CatalogHttpCacheFilter> catalogHttpCacheFilter(
+            CatalogCache catalogCache,
+            @Value("${app.http-cache.max-age:60s}") Duration maxAge,
+            @Value("${app.http-cache.stale-while-revalidate:5m}") Duration staleWhileRevalidate) {
+        String cacheControl = CacheControl.maxAge(maxAge)
+                .cachePublic()
+                .staleWhileRevalidate(staleWhileRevalidate)
+                .getHeaderValue();
+
+        FilterRegistrationBean<CatalogHttpCacheFilter> registration =
+                new FilterRegistrationBean<>(new CatalogHttpCacheFilter(catalogCache, cacheControl));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
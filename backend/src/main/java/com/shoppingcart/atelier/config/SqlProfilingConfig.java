@@ -0,0 +1,51 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.utils.SqlProfiler;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Wraps the DataSource in a datasource-proxy that feeds SqlProfiler, outside the connection gate
+@Configuration
+@ConditionalOnProperty(name = "app.sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilingConfig {
+
+    @Bean
+    static SqlProfiler sqlProfiler(@Value("${app.sql-profiling.slow-query-threshold:100ms}") Duration slowQueryThreshold,
+                                   @Value("${app.sql-profiling.max-statements:25}") int maxStatements,
+                                   @Value("${app.sql-profiling.max-sql-time:500ms}") Duration maxSqlTime,
+                                   @Value("${app.sql-profiling.max-fingerprints:1000}") int maxFingerprints) {
+        return new SqlProfiler(slowQueryThreshold, maxStatements, maxSqlTime, maxFingerprints);
+    }
+
+    @Bean
+    static BeanPostProcessor sqlProfilingDataSource(SqlProfiler sqlProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(sqlProfiler)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<SqlProfilingFilter> sqlProfilingFilter(SqlProfiler sqlProfiler) {
+        FilterRegistrationBean<SqlProfilingFilter> registration = new FilterRegistrationBean<>(new SqlProfilingFilter(sqlProfiler));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.utils.SqlProfiler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Scopes SqlProfiler to each HTTP request and records statements per request
+ */
+public class SqlProfilingFilter extends OncePerRequestFilter {
+
+    private static final DistributionSummary STATEMENTS = Metrics.summary("atelier.sql.statements.per.request");
+    private static final Counter FLAGGED = Metrics.counter("atelier.sql.flagged.requests");
+
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilingFilter(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlProfiler.RequestProfile profile = sqlProfiler.begin(request.getMethod(), request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (sqlProfiler.end(profile)) {
+                FLAGGED.increment();
+            }
+            STATEMENTS.record(profile.getStatements());
+        }
+    }
+}
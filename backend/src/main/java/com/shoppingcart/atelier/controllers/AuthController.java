@@ -4,6 +4,7 @@ import com.shoppingcart.atelier.dto.LoginRequest;
 import com.shoppingcart.atelier.dto.LoginResponse;
 import com.shoppingcart.atelier.dto.RegisterRequest;
 import com.shoppingcart.atelier.services.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,8 +24,10 @@ public class AuthController {
      * @return LoginResponse with user details and message
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        LoginResponse response = authService.login(loginRequest);
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                               HttpServletRequest request) {
+        // With server.forward-headers-strategy=native this is the X-Forwarded-For client behind a trusted proxy
+        LoginResponse response = authService.login(loginRequest, request.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
@@ -2,7 +2,7 @@ package com.shoppingcart.atelier.controllers;
 
 import com.shoppingcart.atelier.dto.AddToCartRequest;
 import com.shoppingcart.atelier.dto.CartDTO;
-import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartState;
 import com.shoppingcart.atelier.services.CartService;
 import com.shoppingcart.atelier.utils.CartMapper;
 import lombok.RequiredArgsConstructor;
@@ -19,14 +19,14 @@ public class CartController {
 
     @GetMapping("/{sessionId}")
     public ResponseEntity<CartDTO> getCart(@PathVariable String sessionId) {
-        Cart cart = cartService.getCart(sessionId);
+        CartState cart = cartService.getCart(sessionId);
         return ResponseEntity.ok(CartMapper.toDTO(cart));
     }
 
     @PostMapping("/{sessionId}/add")
     public ResponseEntity<CartDTO> addToCart(@PathVariable String sessionId, @RequestBody AddToCartRequest request) {
         try {
-            Cart cart = cartService.addToCart(sessionId, request);
+            CartState cart = cartService.addToCart(sessionId, request);
             return ResponseEntity.ok(CartMapper.toDTO(cart));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -35,14 +35,14 @@ public class CartController {
 
     @DeleteMapping("/{sessionId}/remove/{productId}")
     public ResponseEntity<CartDTO> removeFromCart(@PathVariable String sessionId, @PathVariable Long productId) {
-        Cart cart = cartService.removeFromCart(sessionId, productId);
+        CartState cart = cartService.removeFromCart(sessionId, productId);
         return ResponseEntity.ok(CartMapper.toDTO(cart));
     }
 
     @PutMapping("/{sessionId}/update/{productId}")
     public ResponseEntity<CartDTO> updateCartItem(@PathVariable String sessionId, @PathVariable Long productId, @RequestParam Integer quantity) {
         try {
-            Cart cart = cartService.updateCartItem(sessionId, productId, quantity);
+            CartState cart = cartService.updateCartItem(sessionId, productId, quantity);
             return ResponseEntity.ok(CartMapper.toDTO(cart));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -1,14 +1,14 @@
 package com.shoppingcart.atelier.controllers;
 
 import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.services.CategoryRegistry;
 import com.shoppingcart.atelier.services.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
@@ -17,19 +17,29 @@ public class CategoryController {
 
     private final CategoryService categoryService;
 
+    // Served from the registry's pre-serialized list: id, name, description and productCount per category
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<byte[]> getAllCategories() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(categoryService.getAllCategoriesJson());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CategoryRegistry.Entry> getCategoryById(@PathVariable Long id) {
         return categoryService.getCategoryById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Endpoint: GET /api/categories/name/{name} - case-insensitive name to ID lookup
+    @GetMapping("/name/{name}")
+    public ResponseEntity<CategoryRegistry.Entry> getCategoryByName(@PathVariable String name) {
+        return categoryService.getCategoryByName(name)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
         Category createdCategory = categoryService.createCategory(category);
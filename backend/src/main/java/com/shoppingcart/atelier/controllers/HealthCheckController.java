@@ -1,12 +1,35 @@
 package com.shoppingcart.atelier.controllers;
 
+import com.shoppingcart.atelier.services.CartExpirySweeper;
+import com.shoppingcart.atelier.services.CartReconciler;
+import com.shoppingcart.atelier.services.CartWriteBehind;
+import com.shoppingcart.atelier.services.CatalogCache;
+import com.shoppingcart.atelier.services.CatalogResponseCache;
+import com.shoppingcart.atelier.services.CategoryRegistry;
+import com.shoppingcart.atelier.services.LastLoginWriteBehind;
+import com.shoppingcart.atelier.services.LoginRateLimiter;
+import com.shoppingcart.atelier.services.OrderEventWorker;
+import com.shoppingcart.atelier.services.PasswordVerifier;
+import com.shoppingcart.atelier.services.SalesColumnStore;
+import com.shoppingcart.atelier.services.StockReservationService;
+import com.shoppingcart.atelier.utils.GatedDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 // Health Check Controller
 @RestController
@@ -17,6 +40,45 @@ public class HealthCheckController {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
+    @Autowired
+    private CartWriteBehind cartWriteBehind;
+
+    @Autowired
+    private CartReconciler cartReconciler;
+
+    @Autowired
+    private CartExpirySweeper cartExpirySweeper;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private OrderEventWorker orderEventWorker;
+
+    @Autowired
+    private SalesColumnStore salesColumnStore;
+
+    @Autowired
+    private PasswordVerifier passwordVerifier;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private LastLoginWriteBehind lastLoginWriteBehind;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 // Endpoint: GET /api/health/backend
     @GetMapping("/backend")
     public ResponseEntity<Map<String, Object>> checkBackend() {
@@ -37,6 +99,10 @@ public class HealthCheckController {
             response.put("status", "UP");
             response.put("message", "DATABASE IS CONNECTED AND RESPONDING!");
             response.put("timestamp", System.currentTimeMillis());
+            GatedDataSource gate = gate();
+            if (gate != null) {
+                response.put("gate", gate.getStats());
+            }
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("status", "DOWN");
@@ -46,6 +112,54 @@ public class HealthCheckController {
         }
     }
 
+    // Endpoint: GET /api/health/cache
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> checkCache() {
+        Map<String, Object> response = new LinkedHashMap<>(catalogCache.getStats());
+        response.put("responses", catalogResponseCache.getStats());
+        response.put("categories", categoryRegistry.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    // Endpoint: GET /api/health/carts
+    @GetMapping("/carts")
+    public ResponseEntity<Map<String, Object>> checkCarts() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pendingFlush", cartWriteBehind.getPendingCount());
+        response.put("reconciliation", cartReconciler.getStats());
+        response.put("expiry", cartExpirySweeper.getStats());
+        response.put("storage", cartExpirySweeper.getStorage());
+        return ResponseEntity.ok(response);
+    }
+
+    // Endpoint: GET /api/health/stock
+    @GetMapping("/stock")
+    public ResponseEntity<Map<String, Object>> checkStock() {
+        return ResponseEntity.ok(stockReservationService.getStats());
+    }
+
+    // Endpoint: GET /api/health/order-events
+    @GetMapping("/order-events")
+    public ResponseEntity<Map<String, Object>> checkOrderEvents() {
+        return ResponseEntity.ok(orderEventWorker.getStats());
+    }
+
+    // Endpoint: GET /api/health/analytics
+    @GetMapping("/analytics")
+    public ResponseEntity<Map<String, Object>> checkAnalytics() {
+        return ResponseEntity.ok(salesColumnStore.getStats());
+    }
+
+    // Endpoint: GET /api/health/auth
+    @GetMapping("/auth")
+    public ResponseEntity<Map<String, Object>> checkAuth() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("bcrypt", passwordVerifier.getStats());
+        response.put("rateLimit", loginRateLimiter.getStats());
+        response.put("pendingLastLogin", lastLoginWriteBehind.getPendingCount());
+        return ResponseEntity.ok(response);
+    }
+
 // Endpoint: GET /api/health
     @GetMapping
     public ResponseEntity<Map<String, Object>> checkAll() {
@@ -65,10 +179,72 @@ public class HealthCheckController {
 
         response.put("status", components.containsValue("DOWN") ? "PARTIAL" : "UP");
         response.put("components", components);
+        response.put("pool", poolSummary());
+        response.put("latency", latencySummary());
         response.put("message", "HEALTH CHECK COMPLETE!");
         response.put("timestamp", System.currentTimeMillis());
 
         // Return 200 even if partial (for testing purposes)
         return ResponseEntity.ok(response);
     }
+
+    // The gate may sit under other DataSource proxies, so unwrap rather than instanceof
+    private GatedDataSource gate() {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try {
+            return dataSource != null && dataSource.isWrapperFor(GatedDataSource.class)
+                    ? dataSource.unwrap(GatedDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    // Hikari gauges, plus the connection gate when it is in front of the pool
+    private Map<String, Object> poolSummary() {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        for (String gauge : List.of("active", "idle", "pending", "max")) {
+            Gauge found = meterRegistry.find("hikaricp.connections." + gauge).gauge();
+            pool.put(gauge, found != null ? (long) found.value() : null);
+        }
+        GatedDataSource gate = gate();
+        if (gate != null) {
+            pool.put("gate", gate.getStats());
+        }
+        return pool;
+    }
+
+    // The busiest routes from http.server.requests, with every status folded together
+    private Map<String, Object> latencySummary() {
+        Map<String, long[]> counts = new HashMap<>();
+        Map<String, double[]> times = new HashMap<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String route = timer.getId().getTag("method") + " " + timer.getId().getTag("uri");
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            counts.computeIfAbsent(route, r -> new long[1])[0] += snapshot.count();
+            double[] routeTimes = times.computeIfAbsent(route, r -> new double[3]);
+            routeTimes[0] += snapshot.total(TimeUnit.MILLISECONDS);
+            routeTimes[1] = Math.max(routeTimes[1], snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                if (percentile.percentile() == 0.99) {
+                    routeTimes[2] = Math.max(routeTimes[2], percentile.value(TimeUnit.MILLISECONDS));
+                }
+            }
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(10)
+                .forEach(entry -> {
+                    long count = entry.getValue()[0];
+                    double[] routeTimes = times.get(entry.getKey());
+                    Map<String, Object> route = new LinkedHashMap<>();
+                    route.put("count", count);
+                    route.put("meanMs", count == 0 ? 0.0 : routeTimes[0] / count);
+                    route.put("maxMs", routeTimes[1]);
+                    route.put("p99Ms", routeTimes[2]);
+                    latency.put(entry.getKey(), route);
+                });
+        return latency;
+    }
 }
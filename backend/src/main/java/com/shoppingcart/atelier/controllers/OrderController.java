@@ -3,13 +3,18 @@ package com.shoppingcart.atelier.controllers;
 import com.shoppingcart.atelier.dto.CreateOrderRequest;
 import com.shoppingcart.atelier.dto.OrderDTO;
 import com.shoppingcart.atelier.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shoppingcart.atelier.services.OrderService;
+import com.shoppingcart.atelier.utils.KeysetPage;
+import com.shoppingcart.atelier.utils.NdjsonWriter;
 import com.shoppingcart.atelier.utils.OrderMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +26,7 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<?> createOrder(@RequestBody CreateOrderRequest request) {
@@ -55,30 +61,47 @@ public class OrderController {
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByCustomer(@PathVariable Long customerId) {
-        List<Order> orders = orderService.getOrdersByCustomerId(customerId);
+    public ResponseEntity<List<OrderDTO>> getOrdersByCustomer(@PathVariable Long customerId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<Order> orders = orderService.getOrdersByCustomerId(customerId, KeysetPage.decodeCursor(cursor), pageSize);
         List<OrderDTO> dtos = orders.stream()
                 .map(OrderMapper::toDTO)
                 .toList();
-        return ResponseEntity.ok(dtos);
+        return KeysetPage.respond(dtos, OrderDTO::getId, pageSize);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable String status) {
-        List<Order> orders = orderService.getOrdersByStatus(status);
+    public ResponseEntity<List<OrderDTO>> getOrdersByStatus(@PathVariable String status,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<Order> orders = orderService.getOrdersByStatus(status, KeysetPage.decodeCursor(cursor), pageSize);
         List<OrderDTO> dtos = orders.stream()
                 .map(OrderMapper::toDTO)
                 .toList();
-        return ResponseEntity.ok(dtos);
+        return KeysetPage.respond(dtos, OrderDTO::getId, pageSize);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
+    public ResponseEntity<List<OrderDTO>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<Order> orders = orderService.getAllOrders(KeysetPage.decodeCursor(cursor), pageSize);
         List<OrderDTO> dtos = orders.stream()
                 .map(OrderMapper::toDTO)
                 .toList();
-        return ResponseEntity.ok(dtos);
+        return KeysetPage.respond(dtos, OrderDTO::getId, pageSize);
+    }
+
+    // Endpoint: GET /api/orders/stream - every order as NDJSON, newest first
+    @GetMapping(value = "/stream", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        orderService.streamAllOrders(order -> writer.write(OrderMapper.toDTO(order)));
+        writer.flush();
     }
 
     @PutMapping("/{id}/status")
@@ -1,16 +1,39 @@
 package com.shoppingcart.atelier.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shoppingcart.atelier.dto.CreateProductRequest;
 import com.shoppingcart.atelier.dto.ProductDTO;
+import com.shoppingcart.atelier.dto.ProductImportEvent;
+import com.shoppingcart.atelier.dto.ProductQueryRequest;
+import com.shoppingcart.atelier.dto.ProductQueryResponse;
 import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.services.CatalogResponseCache;
+import com.shoppingcart.atelier.services.CategoryService;
+import com.shoppingcart.atelier.services.ProductBulkService;
+import com.shoppingcart.atelier.services.ProductFacetIndex;
 import com.shoppingcart.atelier.services.ProductService;
+import com.shoppingcart.atelier.utils.CsvWriter;
+import com.shoppingcart.atelier.utils.KeysetPage;
+import com.shoppingcart.atelier.utils.NdjsonWriter;
 import com.shoppingcart.atelier.utils.ProductMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
@@ -19,14 +42,76 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final CatalogResponseCache responseCache;
+    private final ProductBulkService productBulkService;
+    private final CategoryService categoryService;
 
+    // Always one keyset page; without a limit the first DEFAULT_LIMIT products are returned.
+    // Follow X-Next-Cursor for the rest, or use /stream for the whole catalog
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        List<Product> products = productService.getAllActiveProducts();
-        List<ProductDTO> dtos = products.stream()
-                .map(ProductMapper::toDTO)
-                .toList();
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ProductDTO>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit) {
+        return page(cursor, limit, productService::getAllActiveProducts);
+    }
+
+    // Endpoint: GET /api/products/stream - every active product as NDJSON
+    @GetMapping(value = "/stream", produces = NdjsonWriter.MEDIA_TYPE)
+    public void streamAllProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        productService.streamActiveProducts(product -> writer.write(ProductMapper.toDTO(product)));
+        writer.flush();
+    }
+
+    // Endpoint: GET /api/products/export?format=csv|ndjson - every product, in the import column layout
+    @GetMapping("/export")
+    public void exportProducts(@RequestParam(defaultValue = "csv") String format,
+                               HttpServletResponse response) throws IOException {
+        ProductBulkService.Format exportFormat = parseFormat(format);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + exportFormat.name().toLowerCase() + "\"");
+
+        if (exportFormat == ProductBulkService.Format.CSV) {
+            response.setContentType(CsvWriter.MEDIA_TYPE + ";charset=UTF-8");
+            CsvWriter writer = new CsvWriter(response.getOutputStream());
+            writer.write(ProductBulkService.COLUMNS.toArray());
+            productBulkService.exportProducts(writer::write);
+            writer.flush();
+        } else {
+            response.setContentType(NdjsonWriter.MEDIA_TYPE);
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+            productBulkService.exportProducts(values -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < values.length; i++) {
+                    row.put(ProductBulkService.COLUMNS.get(i), values[i]);
+                }
+                writer.write(row);
+            });
+            writer.flush();
+        }
+    }
+
+    // Endpoint: POST /api/products/import - CSV or NDJSON body upserted by SKU; progress streams back as NDJSON
+    @PostMapping(value = "/import", consumes = {CsvWriter.MEDIA_TYPE, NdjsonWriter.MEDIA_TYPE},
+            produces = NdjsonWriter.MEDIA_TYPE)
+    public void importProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ProductBulkService.Format format = parseFormat(contentType.getType() + "/" + contentType.getSubtype());
+
+        response.setContentType(NdjsonWriter.MEDIA_TYPE);
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream());
+        productBulkService.importProducts(request.getInputStream(), format, event -> {
+            writer.write(event);
+            if (!ProductImportEvent.ERROR.equals(event.getType())) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
     }
 
     @GetMapping("/{id}")
@@ -37,16 +122,22 @@ public class ProductController {
     }
 
     @GetMapping("/featured")
-    public ResponseEntity<List<ProductDTO>> getFeaturedProducts() {
-        List<Product> products = productService.getFeaturedProducts();
-        List<ProductDTO> dtos = products.stream()
-                .map(ProductMapper::toDTO)
-                .toList();
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ProductDTO>> getFeaturedProducts(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                HttpServletRequest request,
+                                                                HttpServletResponse response) throws IOException {
+        if (cursor == null && limit == null && writeCached(responseCache.featured(), request, response)) {
+            return null;
+        }
+        return listOrPage(cursor, limit, productService::getFeaturedProducts, productService::getFeaturedProducts);
     }
 
     @GetMapping("/latest")
-    public ResponseEntity<List<ProductDTO>> getLatestProducts() {
+    public ResponseEntity<List<ProductDTO>> getLatestProducts(HttpServletRequest request,
+                                                              HttpServletResponse response) throws IOException {
+        if (writeCached(responseCache.latest(), request, response)) {
+            return null;
+        }
         List<Product> products = productService.getLatestProducts();
         List<ProductDTO> dtos = products.stream()
                 .map(ProductMapper::toDTO)
@@ -55,21 +146,36 @@ public class ProductController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId) {
-        List<Product> products = productService.getProductsByCategory(categoryId);
-        List<ProductDTO> dtos = products.stream()
-                .map(ProductMapper::toDTO)
-                .toList();
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit) {
+        return listOrPage(cursor, limit,
+                () -> productService.getProductsByCategory(categoryId),
+                (afterId, pageSize) -> productService.getProductsByCategory(categoryId, afterId, pageSize));
+    }
+
+    // Same as /category/{categoryId}, resolving the name through the category registry
+    @GetMapping("/category/name/{name}")
+    public ResponseEntity<List<ProductDTO>> getProductsByCategoryName(@PathVariable String name,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limit) {
+        return categoryService.getCategoryByName(name)
+                .map(category -> getProductsByCategory(category.id(), cursor, limit))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/gender/{gender}")
-    public ResponseEntity<List<ProductDTO>> getProductsByGender(@PathVariable String gender) {
-        List<Product> products = productService.getProductsByGender(gender);
-        List<ProductDTO> dtos = products.stream()
-                .map(ProductMapper::toDTO)
-                .toList();
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ProductDTO>> getProductsByGender(@PathVariable String gender,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                HttpServletRequest request,
+                                                                HttpServletResponse response) throws IOException {
+        if (cursor == null && limit == null && writeCached(responseCache.byGender(gender), request, response)) {
+            return null;
+        }
+        return listOrPage(cursor, limit,
+                () -> productService.getProductsByGender(gender),
+                (afterId, pageSize) -> productService.getProductsByGender(gender, afterId, pageSize));
     }
 
     @GetMapping("/search")
@@ -81,6 +187,21 @@ public class ProductController {
         return ResponseEntity.ok(dtos);
     }
 
+    @GetMapping("/query")
+    public ResponseEntity<ProductQueryResponse> queryProducts(@ModelAttribute ProductQueryRequest request) {
+        ProductFacetIndex.Result result = productService.queryProducts(request);
+        ProductQueryResponse response = ProductQueryResponse.builder()
+                .items(result.products().stream()
+                        .map(ProductMapper::toDTO)
+                        .toList())
+                .total(result.total())
+                .offset(result.offset())
+                .limit(result.limit())
+                .facets(result.facets())
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping
     public ResponseEntity<ProductDTO> createProduct(@RequestBody CreateProductRequest request) {
         try {
@@ -106,4 +227,46 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ProductBulkService.Format parseFormat(String format) {
+        try {
+            return ProductBulkService.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // The full list, or one keyset page when the request carries a cursor or limit
+    private static ResponseEntity<List<ProductDTO>> listOrPage(String cursor,
+                                                               Integer limit,
+                                                               Supplier<List<Product>> all,
+                                                               BiFunction<Long, Integer, List<Product>> page) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(all.get().stream()
+                    .map(ProductMapper::toDTO)
+                    .toList());
+        }
+        return page(cursor, limit, page);
+    }
+
+    private static ResponseEntity<List<ProductDTO>> page(String cursor,
+                                                         Integer limit,
+                                                         BiFunction<Long, Integer, List<Product>> page) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<ProductDTO> dtos = page.apply(KeysetPage.decodeCursor(cursor), pageSize).stream()
+                .map(ProductMapper::toDTO)
+                .toList();
+        return KeysetPage.respond(dtos, ProductDTO::getId, pageSize);
+    }
+
+    // Null from a handler tells Spring the response has already been written
+    private static boolean writeCached(Optional<CatalogResponseCache.Body> body,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        if (body.isEmpty()) {
+            return false;
+        }
+        body.get().writeTo(request, response);
+        return true;
+    }
 }
@@ -0,0 +1,82 @@
+package com.shoppingcart.atelier.controllers;
+
+import com.shoppingcart.atelier.dto.CustomerPurchasesReport;
+import com.shoppingcart.atelier.dto.OrderSummaryReport;
+import com.shoppingcart.atelier.dto.ProductSalesReport;
+import com.shoppingcart.atelier.services.ReportingService;
+import com.shoppingcart.atelier.services.SalesColumnStore;
+import com.shoppingcart.atelier.utils.KeysetPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ReportingController {
+
+    private static final int MAX_TOP = 100;
+    private static final int MAX_GROUPS = 10_000;
+
+    private final ReportingService reportingService;
+    private final SalesColumnStore salesColumnStore;
+
+    // Endpoint: GET /api/reports/orders?status=SHIPPED&cursor=...&limit=50
+    @GetMapping("/reports/orders")
+    public ResponseEntity<List<OrderSummaryReport>> getOrderSummaries(@RequestParam(required = false) String status,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<OrderSummaryReport> orders = reportingService.getOrderSummaries(status, KeysetPage.decodeCursor(cursor), pageSize);
+        return KeysetPage.respond(orders, OrderSummaryReport::getOrderId, pageSize);
+    }
+
+    // Endpoint: GET /api/reports/products?limit=20
+    @GetMapping("/reports/products")
+    public ResponseEntity<List<ProductSalesReport>> getTopProducts(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reportingService.getTopProducts(Math.min(Math.max(limit, 1), MAX_TOP)));
+    }
+
+    // Endpoint: GET /api/reports/customers?limit=20
+    @GetMapping("/reports/customers")
+    public ResponseEntity<List<CustomerPurchasesReport>> getTopCustomers(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reportingService.getTopCustomers(Math.min(Math.max(limit, 1), MAX_TOP)));
+    }
+
+    // Endpoint: GET /api/reports/sales?groupBy=category|gender|day|product&from=2026-01-01&to=2026-02-01&limit=50
+    @GetMapping("/reports/sales")
+    public ResponseEntity<SalesColumnStore.Result> getSales(
+            @RequestParam(defaultValue = "category") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        SalesColumnStore.Dimension dimension;
+        try {
+            dimension = SalesColumnStore.Dimension.valueOf(groupBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "groupBy must be one of " + Arrays.toString(SalesColumnStore.Dimension.values()));
+        }
+        if (!salesColumnStore.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Sales analytics are still loading");
+        }
+        return ResponseEntity.ok(salesColumnStore.aggregate(dimension,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.atStartOfDay() : null,
+                Math.min(Math.max(limit, 1), MAX_GROUPS)));
+    }
+
+    // Endpoint: POST /api/admin/reports/rebuild - recompute the summaries from orders
+    @PostMapping("/admin/reports/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(reportingService.rebuild());
+    }
+}
@@ -0,0 +1,46 @@
+package com.shoppingcart.atelier.controllers;
+
+import com.shoppingcart.atelier.utils.SqlProfiler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/admin/sql")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilingController {
+
+    private static final Set<String> SORT_KEYS = Set.of("max", "mean", "total");
+
+    private final SqlProfiler sqlProfiler;
+
+    // Endpoint: GET /api/admin/sql/top?limit=10&by=max
+    @GetMapping("/top")
+    public ResponseEntity<Map<String, Object>> topFingerprints(@RequestParam(defaultValue = "10") int limit,
+                                                               @RequestParam(defaultValue = "max") String by) {
+        if (!SORT_KEYS.contains(by)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "by must be one of " + SORT_KEYS);
+        }
+        List<Map<String, Object>> top = sqlProfiler.top(Math.min(Math.max(limit, 1), 100), by);
+
+        Map<String, Object> response = new LinkedHashMap<>(sqlProfiler.getStats());
+        response.put("top", top);
+        return ResponseEntity.ok(response);
+    }
+
+    // Endpoint: DELETE /api/admin/sql/top
+    @DeleteMapping("/top")
+    public ResponseEntity<Void> resetFingerprints() {
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
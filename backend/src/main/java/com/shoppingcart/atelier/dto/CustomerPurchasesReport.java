@@ -0,0 +1,21 @@
+package com.shoppingcart.atelier.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerPurchasesReport {
+
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private Long totalOrders;
+    private BigDecimal lifetimeValue;
+    private LocalDateTime lastOrderDate;
+    private BigDecimal averageOrderValue;
+}
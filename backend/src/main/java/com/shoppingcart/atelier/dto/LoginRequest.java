@@ -15,4 +15,7 @@ public class LoginRequest {
 
     @NotBlank(message = "Password is required")
     private String password;
+
+    // Guest cart session to merge into the customer's cart, optional
+    private String cartSessionId;
 }
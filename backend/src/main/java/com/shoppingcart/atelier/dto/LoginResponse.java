@@ -16,4 +16,7 @@ public class LoginResponse {
     private String email;
     private String userType;
     private String message;
+
+    // Session ID of the customer's cart after login; the client keeps its cart under this session
+    private String cartSessionId;
 }
@@ -0,0 +1,23 @@
+package com.shoppingcart.atelier.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryReport {
+
+    private Long orderId;
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private BigDecimal totalAmount;
+    private String status;
+    private LocalDateTime orderDate;
+    private LocalDateTime completedAt;
+    private Integer totalItems;
+}
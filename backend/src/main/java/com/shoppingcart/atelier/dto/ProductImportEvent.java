@@ -0,0 +1,30 @@
+package com.shoppingcart.atelier.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * One line of the NDJSON progress stream returned by a bulk product import.
+ * "error" events name the rejected row; "progress" and "summary" carry running totals.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportEvent {
+
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    private Long line;
+    private String sku;
+    private String message;
+    private Long processed;
+    private Long inserted;
+    private Long updated;
+    private Long failed;
+    private Long elapsedMs;
+}
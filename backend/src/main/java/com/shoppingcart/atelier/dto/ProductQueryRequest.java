@@ -0,0 +1,25 @@
+package com.shoppingcart.atelier.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductQueryRequest {
+
+    // Multiple values within one attribute are OR-ed, attributes are AND-ed
+    private List<String> gender;
+    private List<Long> categoryId;
+    private List<String> size;
+    private List<String> color;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean featured;
+    private Boolean inStock;
+    private Integer offset;
+    private Integer limit;
+}
@@ -0,0 +1,19 @@
+package com.shoppingcart.atelier.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductQueryResponse {
+
+    private List<ProductDTO> items;
+    private Integer total;
+    private Integer offset;
+    private Integer limit;
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,22 @@
+package com.shoppingcart.atelier.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSalesReport {
+
+    private Long productId;
+    private String productName;
+    private String sku;
+    private String categoryName;
+    private Long timesSold;
+    private Long totalQuantitySold;
+    private BigDecimal totalRevenue;
+    private BigDecimal averageSellingPrice;
+    private Integer currentStock;
+}
@@ -0,0 +1,25 @@
+package com.shoppingcart.atelier.models;
+
+import lombok.*;
+
+/**
+ * One product line of a CartState, with the product details denormalized
+ * so the cart can be rendered without touching the products table.
+ * Prices are held as cents.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class CartLine {
+
+    private Long itemId;
+    private Long productId;
+    private String productName;
+    private String imageUrl;
+    private String size;
+    private String color;
+    private int quantity;
+    private long unitPriceCents;
+    private long totalCents;
+}
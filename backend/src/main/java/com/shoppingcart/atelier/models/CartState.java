@@ -0,0 +1,85 @@
+package com.shoppingcart.atelier.models;
+
+import lombok.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Live cart held in the CartStore.
+ * This is the source of truth for cart reads and mutations; the carts and cart_items
+ * tables are written behind it asynchronously.
+ * Totals are maintained incrementally: every line change applies its delta rather than
+ * re-summing the lines, so lines should only be changed through putLine/removeLine/clearLines.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartState {
+
+    // Database ID, null until the cart has been flushed once
+    private Long cartId;
+
+    private String sessionId;
+
+    // Keyed by product ID, in the order items were added
+    @Builder.Default
+    private Map<Long, CartLine> lines = new LinkedHashMap<>();
+
+    private long totalCents;
+
+    private int itemCount;
+
+    /**
+     * Add or replace the line for its product, adjusting totals by the difference
+     */
+    public void putLine(CartLine line) {
+        CartLine previous = lines.put(line.getProductId(), line);
+        applyDelta(previous, line);
+    }
+
+    public void removeLine(Long productId) {
+        CartLine removed = lines.remove(productId);
+        applyDelta(removed, null);
+    }
+
+    public void clearLines() {
+        lines.clear();
+        totalCents = 0;
+        itemCount = 0;
+    }
+
+    /**
+     * Re-sum totals from the lines, used when loading state whose stored totals may have drifted
+     */
+    public void recomputeTotals() {
+        long total = 0;
+        int count = 0;
+        for (CartLine line : lines.values()) {
+            total = Math.addExact(total, line.getTotalCents());
+            count += line.getQuantity();
+        }
+        totalCents = total;
+        itemCount = count;
+    }
+
+    /**
+     * Deep copy, so stored states are never mutated while another request is reading them
+     */
+    public CartState copy() {
+        Map<Long, CartLine> copiedLines = new LinkedHashMap<>();
+        lines.forEach((productId, line) -> copiedLines.put(productId, line.toBuilder().build()));
+        return new CartState(cartId, sessionId, copiedLines, totalCents, itemCount);
+    }
+
+    private void applyDelta(CartLine removed, CartLine added) {
+        if (removed != null) {
+            totalCents -= removed.getTotalCents();
+            itemCount -= removed.getQuantity();
+        }
+        if (added != null) {
+            totalCents = Math.addExact(totalCents, added.getTotalCents());
+            itemCount += added.getQuantity();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.shoppingcart.atelier.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row written in the same transaction as its order.
+ * Background workers claim due PENDING rows, run the downstream stages and mark them DONE,
+ * or push oe_next_attempt_at back with a backoff when a stage fails.
+ */
+@Entity
+@Table(name = "order_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEvent {
+
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_events_seq")
+    @SequenceGenerator(name = "order_events_seq", sequenceName = "order_events_seq", allocationSize = 50)
+    @Column(name = "oe_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "oe_order_id", nullable = false)
+    private Order order;
+
+    @Column(name = "oe_type", nullable = false, length = 50)
+    private String type;
+
+    @Column(name = "oe_status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "oe_attempts", nullable = false)
+    private Integer attempts;
+
+    // When the row is next due; also serves as the lease while a worker holds it
+    @Column(name = "oe_next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "oe_last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "oe_processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) status = PENDING;
+        if (attempts == null) attempts = 0;
+        if (nextAttemptAt == null) nextAttemptAt = createdAt;
+    }
+}
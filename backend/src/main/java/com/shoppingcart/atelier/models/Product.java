@@ -2,15 +2,19 @@ package com.shoppingcart.atelier.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// Updates write only the changed columns, so an admin edit never writes back a stale
+// p_stock_quantity over a checkout's concurrent decrement
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Product {
 
     @Id
@@ -0,0 +1,45 @@
+package com.shoppingcart.atelier.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stock held for a cart line between add-to-cart and checkout.
+ * The reserved quantity has already been taken off p_stock_quantity; checkout converts
+ * the reservation into the order and the sweeper gives it back once it expires.
+ */
+@Entity
+@Table(name = "stock_reservations",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"sr_session_id", "sr_product_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sr_id")
+    private Long id;
+
+    @Column(name = "sr_session_id", nullable = false)
+    private String sessionId;
+
+    @Column(name = "sr_product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sr_quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "sr_expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,6 +1,7 @@
 package com.shoppingcart.atelier.repositories;
 
 import com.shoppingcart.atelier.models.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,8 @@ import java.util.Optional;
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findBySessionId(String sessionId);
+
+    // Read path that loads cart, items, product and category in a single query
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    Optional<Cart> findWithItemsBySessionId(String sessionId);
 }
@@ -0,0 +1,40 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.shoppingcart.atelier.models.CartState;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Fast store for live cart state, keyed by session ID.
+ * Implementations must treat stored states as immutable and apply compute() atomically
+ * per session.
+ */
+public interface CartStore {
+
+    Optional<CartState> get(String sessionId);
+
+    /**
+     * Store the state unless the session already has one
+     * @return the state now held for the session
+     */
+    CartState putIfAbsent(CartState state);
+
+    /**
+     * Atomically replace a session's state
+     * @param mutation receives a private copy of the current state (null if absent) and returns the new state
+     * @return the new state
+     */
+    CartState compute(String sessionId, UnaryOperator<CartState> mutation);
+
+    void remove(String sessionId);
+
+    /**
+     * Run an action while compute() on any of the given sessions waits, e.g. while their
+     * carts are rewritten in the database. compute() calls made by the action itself go through.
+     * @return the action's result
+     */
+    <T> T withSessionsLocked(Collection<String> sessionIds, Supplier<T> action);
+}
@@ -0,0 +1,97 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.shoppingcart.atelier.models.CartState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-node CartStore backed by a ConcurrentHashMap.
+ * Like the Redis store, entries expire once they have not been written for the TTL;
+ * expired entries read as absent and are dropped by a periodic sweep.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.cart-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCartStore implements CartStore {
+
+    private final ConcurrentMap<String, Entry> carts = new ConcurrentHashMap<>();
+    // The map's own compute() is atomic per key, but cannot be held off across a database write
+    private final SessionLocks locks = new SessionLocks();
+    private final long ttlNanos;
+
+    public InMemoryCartStore(@Value("${app.cart-store.ttl:7d}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Optional<CartState> get(String sessionId) {
+        Entry entry = carts.get(sessionId);
+        return entry != null && !entry.isExpired(System.nanoTime(), ttlNanos)
+                ? Optional.of(entry.state())
+                : Optional.empty();
+    }
+
+    @Override
+    public CartState putIfAbsent(CartState state) {
+        long now = System.nanoTime();
+        Entry entry = carts.compute(state.getSessionId(), (id, current) ->
+                current != null && !current.isExpired(now, ttlNanos) ? current : new Entry(state, now));
+        return entry.state();
+    }
+
+    @Override
+    public CartState compute(String sessionId, UnaryOperator<CartState> mutation) {
+        return locks.withLocked(sessionId, () -> {
+            long now = System.nanoTime();
+            Entry entry = carts.compute(sessionId, (id, current) -> {
+                CartState live = current != null && !current.isExpired(now, ttlNanos) ? current.state().copy() : null;
+                CartState updated = mutation.apply(live);
+                return updated != null ? new Entry(updated, now) : null;
+            });
+            return entry != null ? entry.state() : null;
+        });
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        carts.remove(sessionId);
+    }
+
+    @Override
+    public <T> T withSessionsLocked(Collection<String> sessionIds, Supplier<T> action) {
+        return locks.withLocked(sessionIds, action);
+    }
+
+    /**
+     * Drop entries that have not been written for the TTL
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        evictWrittenBefore(System.nanoTime() - ttlNanos);
+    }
+
+    // Package-private so tests can expire entries without waiting out the TTL
+    void evictWrittenBefore(long cutoffNanos) {
+        carts.values().removeIf(entry -> entry.writtenAt() - cutoffNanos < 0);
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    private record Entry(CartState state, long writtenAt) {
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - writtenAt > ttlNanos;
+        }
+    }
+}
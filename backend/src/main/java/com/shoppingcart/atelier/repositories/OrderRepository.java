@@ -1,9 +1,14 @@
 package com.shoppingcart.atelier.repositories;
 
 import com.shoppingcart.atelier.models.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +17,23 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Optional<Order> findByOrderNumber(String orderNumber);
 
-    List<Order> findByCustomerId(Long customerId);
+    // Read paths that load order, items, product and category in a single query
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    Optional<Order> findWithItemsById(Long id);
 
-    List<Order> findByStatus(String status);
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    Optional<Order> findWithItemsByOrderNumber(String orderNumber);
+
+    @EntityGraph(attributePaths = {"items", "items.product", "items.product.category"})
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    // Keyset pages select IDs only, newest first, so the graph fetch above can't be paged in memory
+    @Query("SELECT o.id FROM Order o WHERE o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsBefore(@Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.customerId = :customerId AND o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsByCustomerIdBefore(@Param("customerId") Long customerId, @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsByStatusBefore(@Param("status") String status, @Param("beforeId") Long beforeId, Limit limit);
 }
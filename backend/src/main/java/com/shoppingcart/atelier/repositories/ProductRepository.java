@@ -1,10 +1,16 @@
 package com.shoppingcart.atelier.repositories;
 
 import com.shoppingcart.atelier.models.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -20,4 +26,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByIsFeaturedTrueAndIsActiveTrue();
 
     List<Product> findTop4ByIsActiveTrueOrderByCreatedAtDesc();
+
+    long countByIsActiveTrue();
+
+    // Keyset pages, ascending by ID
+    List<Product> findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<Product> findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<Product> findByCategoryIdAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long categoryId, Long afterId, Limit limit);
+
+    List<Product> findByGenderAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(String gender, Long afterId, Limit limit);
+
+    // Server-side cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.isActive = true ORDER BY p.id")
+    Stream<Product> streamActive();
 }
@@ -0,0 +1,95 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.models.CartState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * CartStore on any Redis-protocol server, one JSON value per session with a sliding TTL.
+ * compute() is serialized per session with striped in-process locks, which is enough
+ * while a single backend instance owns cart writes.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.cart-store.type", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final SessionLocks locks = new SessionLocks();
+
+    public RedisCartStore(StringRedisTemplate redisTemplate,
+                          ObjectMapper objectMapper,
+                          @Value("${app.cart-store.ttl:7d}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<CartState> get(String sessionId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(KEY_PREFIX + sessionId))
+                .map(this::read);
+    }
+
+    @Override
+    public CartState putIfAbsent(CartState state) {
+        String key = KEY_PREFIX + state.getSessionId();
+        Boolean stored = redisTemplate.opsForValue().setIfAbsent(key, write(state), ttl);
+        if (Boolean.TRUE.equals(stored)) {
+            return state;
+        }
+        return get(state.getSessionId()).orElse(state);
+    }
+
+    @Override
+    public CartState compute(String sessionId, UnaryOperator<CartState> mutation) {
+        return locks.withLocked(sessionId, () -> {
+            CartState updated = mutation.apply(get(sessionId).orElse(null));
+            if (updated == null) {
+                redisTemplate.delete(KEY_PREFIX + sessionId);
+            } else {
+                redisTemplate.opsForValue().set(KEY_PREFIX + sessionId, write(updated), ttl);
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        redisTemplate.delete(KEY_PREFIX + sessionId);
+    }
+
+    @Override
+    public <T> T withSessionsLocked(Collection<String> sessionIds, Supplier<T> action) {
+        return locks.withLocked(sessionIds, action);
+    }
+
+    private CartState read(String json) {
+        try {
+            return objectMapper.readValue(json, CartState.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt cart state in Redis", e);
+        }
+    }
+
+    private String write(CartState state) {
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cart state", e);
+        }
+    }
+}
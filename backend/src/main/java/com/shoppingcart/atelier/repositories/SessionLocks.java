@@ -0,0 +1,54 @@
+package com.shoppingcart.atelier.repositories;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped per-session locks for the CartStore implementations.
+ * Locks are reentrant, and several sessions are always locked in stripe order so two
+ * callers locking overlapping sets cannot deadlock.
+ */
+final class SessionLocks {
+
+    private static final int STRIPES = 64;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    SessionLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    <T> T withLocked(String sessionId, Supplier<T> action) {
+        Lock lock = locks[stripe(sessionId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    <T> T withLocked(Collection<String> sessionIds, Supplier<T> action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        sessionIds.forEach(sessionId -> stripes.add(stripe(sessionId)));
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    private static int stripe(String sessionId) {
+        return Math.floorMod(sessionId.hashCode(), STRIPES);
+    }
+}
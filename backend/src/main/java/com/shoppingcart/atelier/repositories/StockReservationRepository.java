@@ -0,0 +1,34 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.shoppingcart.atelier.models.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    Optional<StockReservation> findBySessionIdAndProductId(String sessionId, Long productId);
+
+    List<StockReservation> findBySessionId(String sessionId);
+
+    List<StockReservation> findByExpiresAtBeforeOrderByIdAsc(LocalDateTime cutoff, Limit limit);
+
+    // The write methods below return affected row counts so that concurrent checkouts,
+    // releases and sweeps can tell which of them claimed a reservation
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.quantity = r.quantity - :quantity WHERE r.id = :id AND r.quantity > :quantity")
+    int shrink(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id = :id AND r.quantity = :quantity")
+    int claim(@Param("id") Long id, @Param("quantity") int quantity);
+}
@@ -7,6 +7,10 @@ import com.shoppingcart.atelier.models.Customer;
 import com.shoppingcart.atelier.models.User;
 import com.shoppingcart.atelier.repositories.UserRepository;
 import com.shoppingcart.atelier.utils.PasswordUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -18,20 +22,42 @@ import java.util.Optional;
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
+    private static final Counter UNKNOWN_USER = Metrics.counter("atelier.auth.login.failures", "reason", "unknown_user");
+    private static final Counter BAD_PASSWORD = Metrics.counter("atelier.auth.login.failures", "reason", "bad_password");
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordVerifier passwordVerifier;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private LastLoginWriteBehind lastLoginWriteBehind;
+
+    @Autowired
+    private CartMergeService cartMergeService;
+
     /**
      * Login user with username and password
      * @param request LoginRequest containing username and password
+     * @param clientIp address the attempt came from, for per-IP rate limiting
      * @return LoginResponse with user details
-     * @throws ResponseStatusException if credentials are invalid
+     * @throws ResponseStatusException if credentials are invalid, the caller is rate limited
+     *         or password verification is saturated
      */
-    public LoginResponse login(LoginRequest request) {
+    public LoginResponse login(LoginRequest request, String clientIp) {
+        loginRateLimiter.acquireForIp(clientIp);
+
         // Find user by username (case-sensitive for security)
         Optional<User> user = userRepository.findByuUsernameAnduIsActiveTrue(request.getUsername());
 
         if (user.isEmpty()) {
+            UNKNOWN_USER.increment();
             throw new ResponseStatusException(
                     HttpStatus.UNAUTHORIZED,
                     "Invalid username or password"
@@ -40,17 +66,38 @@ public class AuthService {
 
         User foundUser = user.get();
 
-        // Verify password using BCrypt
-        if (!PasswordUtil.verifyPassword(request.getPassword(), foundUser.getUPassword())) {
+        // A recent identical success skips BCrypt; otherwise the check runs unless the username's
+        // failures have used up its bucket, and only a failed check is charged to it
+        boolean verified = passwordVerifier.recentlyVerified(
+                foundUser.getUUsername(), request.getPassword(), foundUser.getUPassword());
+        if (!verified) {
+            loginRateLimiter.checkUser(foundUser.getUUsername());
+            verified = passwordVerifier.verify(
+                    foundUser.getUUsername(), request.getPassword(), foundUser.getUPassword());
+        }
+
+        if (!verified) {
+            loginRateLimiter.recordFailure(foundUser.getUUsername());
+            BAD_PASSWORD.increment();
             throw new ResponseStatusException(
                     HttpStatus.UNAUTHORIZED,
                     "Invalid username or password"
             );
         }
 
-        // Update last login timestamp
-        foundUser.setULastLogin(LocalDateTime.now());
-        userRepository.save(foundUser);
+        // Last login is written in the next batch rather than with its own UPDATE
+        lastLoginWriteBehind.record(foundUser.getUId(), LocalDateTime.now());
+
+        // Customers continue with the cart they built as a guest, merged into their own
+        String cartSessionId = request.getCartSessionId();
+        if (foundUser instanceof Customer) {
+            try {
+                cartSessionId = cartMergeService.mergeGuestCart(foundUser.getUId(), cartSessionId);
+            } catch (RuntimeException e) {
+                // Both carts are left as they were; a failed merge must not fail the login
+                log.warn("Cart merge for user {} failed: {}", foundUser.getUId(), e.getMessage());
+            }
+        }
 
         // Return user info in response
         return LoginResponse.builder()
@@ -59,6 +106,7 @@ public class AuthService {
                 .email(foundUser.getUEmail())
                 .userType(foundUser.getUserType())
                 .message("Login successful")
+                .cartSessionId(cartSessionId)
                 .build();
     }
 
@@ -0,0 +1,227 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.repositories.CartStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Deletes carts that have not been written for longer than the TTL, with their cart_items.
+ * Each run deletes at most maxBatches batches of batchSize carts, oldest first and one short
+ * transaction per batch, so a backlog is worked off over several runs without long locks.
+ * After a run it samples table and index sizes so the effect of the sweep is visible.
+ */
+@Component
+public class CartExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CartExpirySweeper.class);
+
+    private static final Counter EXPIRED = Metrics.counter("atelier.cart.expired");
+
+    // Rows locked by a concurrent flush are skipped and picked up by a later run
+    private static final String SELECT_EXPIRED =
+            "SELECT ct_id, ct_session_id FROM carts WHERE updated_at < ? " +
+            "ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_CART = "DELETE FROM carts WHERE ct_id = ?";
+
+    private static final String TABLE_STATS =
+            "SELECT relname, n_live_tup, n_dead_tup, pg_relation_size(relid) AS table_bytes, " +
+            "pg_indexes_size(relid) AS index_bytes, GREATEST(last_vacuum, last_autovacuum) AS last_vacuum " +
+            "FROM pg_stat_user_tables WHERE relname IN ('carts', 'cart_items') ORDER BY relname";
+
+    private static final String INDEX_STATS =
+            "SELECT indexrelname, pg_relation_size(indexrelid) AS bytes, idx_scan " +
+            "FROM pg_stat_user_indexes WHERE relname IN ('carts', 'cart_items') ORDER BY indexrelname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartStore cartStore;
+    private final CartWriteBehind cartWriteBehind;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final AtomicLong totalDeleted = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile Map<String, Object> storage = Map.of();
+    private volatile Map<String, Map<String, Object>> tables = Map.of();
+
+    public CartExpirySweeper(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             CartStore cartStore,
+                             CartWriteBehind cartWriteBehind,
+                             @Value("${app.cart-expiry.enabled:true}") boolean enabled,
+                             @Value("${app.cart-expiry.ttl:30d}") Duration ttl,
+                             @Value("${app.cart-expiry.batch-size:1000}") int batchSize,
+                             @Value("${app.cart-expiry.max-batches:50}") int maxBatches) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cartStore = cartStore;
+        this.cartWriteBehind = cartWriteBehind;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    // Registered once construction is done, since each gauge holds on to this sweeper
+    @PostConstruct
+    public void registerGauges() {
+        for (String table : List.of("carts", "cart_items")) {
+            gauge("atelier.cart.table.live.rows", table, "n_live_tup");
+            gauge("atelier.cart.table.dead.rows", table, "n_dead_tup");
+            gauge("atelier.cart.table.bytes", table, "table_bytes");
+            gauge("atelier.cart.table.index.bytes", table, "index_bytes");
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.cart-expiry.interval-ms:600000}",
+            fixedDelayString = "${app.cart-expiry.interval-ms:600000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = deleteExpiredBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Deleted {} carts not written for {}", deleted, ttl);
+        }
+        sampleStorage();
+    }
+
+    /**
+     * Delete up to maxBatches batches of carts last written before the cutoff
+     * @return the number of carts deleted
+     */
+    public int deleteExpiredBefore(LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<String> sessionIds = transactionTemplate.execute(status -> deleteBatch(cutoff));
+            if (sessionIds == null || sessionIds.isEmpty()) {
+                break;
+            }
+            // Drop the swept carts from the store too, unless a mutation since made them live again.
+            // Under the session lock, so a mutation cannot land between the check and the remove
+            for (String sessionId : sessionIds) {
+                cartStore.withSessionsLocked(List.of(sessionId), () -> {
+                    if (!cartWriteBehind.isDirty(sessionId)) {
+                        cartStore.remove(sessionId);
+                    }
+                    return null;
+                });
+            }
+            total += sessionIds.size();
+            EXPIRED.increment(sessionIds.size());
+            if (sessionIds.size() < batchSize) {
+                break;
+            }
+        }
+
+        lastRunDeleted.set(total);
+        totalDeleted.addAndGet(total);
+        lastRunAt = LocalDateTime.now();
+        return total;
+    }
+
+    /**
+     * Read carts/cart_items row counts and on-disk sizes from the Postgres statistics views
+     */
+    public void sampleStorage() {
+        try {
+            Map<String, Map<String, Object>> sampledTables = new LinkedHashMap<>();
+            jdbcTemplate.query(TABLE_STATS, rs -> {
+                Map<String, Object> table = new LinkedHashMap<>();
+                table.put("n_live_tup", rs.getLong("n_live_tup"));
+                table.put("n_dead_tup", rs.getLong("n_dead_tup"));
+                table.put("table_bytes", rs.getLong("table_bytes"));
+                table.put("index_bytes", rs.getLong("index_bytes"));
+                Timestamp lastVacuum = rs.getTimestamp("last_vacuum");
+                table.put("last_vacuum", lastVacuum != null ? lastVacuum.toLocalDateTime() : null);
+                sampledTables.put(rs.getString("relname"), table);
+            });
+
+            List<Map<String, Object>> indexes = new ArrayList<>();
+            jdbcTemplate.query(INDEX_STATS, rs -> {
+                Map<String, Object> index = new LinkedHashMap<>();
+                index.put("name", rs.getString("indexrelname"));
+                index.put("bytes", rs.getLong("bytes"));
+                index.put("scans", rs.getLong("idx_scan"));
+                indexes.add(index);
+            });
+
+            Map<String, Object> sampled = new LinkedHashMap<>();
+            sampled.put("tables", sampledTables);
+            sampled.put("indexes", indexes);
+            sampled.put("sampledAt", LocalDateTime.now());
+            tables = sampledTables;
+            storage = sampled;
+        } catch (DataAccessException e) {
+            // Not Postgres (e.g. H2 in tests); keep whatever was sampled last
+            log.debug("Could not sample cart table statistics: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ttl", ttl.toString());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunDeleted", lastRunDeleted.get());
+        stats.put("totalDeleted", totalDeleted.get());
+        return stats;
+    }
+
+    /**
+     * The latest table and index sample, taking one if no sweep has run yet
+     */
+    public Map<String, Object> getStorage() {
+        if (storage.isEmpty()) {
+            sampleStorage();
+        }
+        return storage;
+    }
+
+    private List<String> deleteBatch(LocalDateTime cutoff) {
+        List<Long> cartIds = new ArrayList<>();
+        List<String> sessionIds = new ArrayList<>();
+        jdbcTemplate.query(SELECT_EXPIRED, rs -> {
+            cartIds.add(rs.getLong("ct_id"));
+            sessionIds.add(rs.getString("ct_session_id"));
+        }, Timestamp.valueOf(cutoff), batchSize);
+        if (!cartIds.isEmpty()) {
+            // cart_items go with their cart through ON DELETE CASCADE
+            jdbcTemplate.batchUpdate(DELETE_CART, cartIds, cartIds.size(),
+                    (ps, cartId) -> ps.setLong(1, cartId));
+        }
+        return sessionIds;
+    }
+
+    private void gauge(String name, String table, String column) {
+        ToDoubleFunction<CartExpirySweeper> value = sweeper -> {
+            Map<String, Object> sampled = sweeper.tables.get(table);
+            return sampled != null ? ((Number) sampled.get(column)).doubleValue() : Double.NaN;
+        };
+        Gauge.builder(name, this, value).tag("table", table).register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,201 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.repositories.CartStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Links carts to customers at login.
+ * A customer owns at most one cart (carts.ct_user_id). Logging in with a guest cart either
+ * makes that cart the customer's or, if the customer already has one, folds the guest lines
+ * into it with one set-based statement and deletes the guest cart. Merges for the same
+ * customer are serialized on the users row, so concurrent logins from several devices
+ * each merge into the same cart.
+ */
+@Service
+public class CartMergeService {
+
+    private static final Counter LINKED = merges("linked");
+    private static final Counter MERGED = merges("merged");
+    private static final Counter CREATED = merges("created");
+    private static final Counter KEPT = merges("kept");
+
+    private static final String LOCK_USER = "SELECT u_id FROM users WHERE u_id = ? FOR UPDATE";
+
+    private static final String FIND_CUSTOMER_CART = "SELECT ct_id, ct_session_id FROM carts WHERE ct_user_id = ?";
+
+    // Locked so a concurrent flush of the guest session waits for the merge
+    private static final String FIND_SESSION_CART =
+            "SELECT ct_id, ct_user_id FROM carts WHERE ct_session_id = ? FOR UPDATE";
+
+    private static final String LINK_CART = "UPDATE carts SET ct_user_id = ? WHERE ct_id = ?";
+
+    // A flush may have inserted the session's cart since it was looked up; link that row instead
+    private static final String CREATE_CART =
+            "INSERT INTO carts (ct_session_id, ct_user_id, ct_total_price, ct_item_count) VALUES (?, ?, 0, 0) " +
+            "ON CONFLICT (ct_session_id) DO UPDATE SET ct_user_id = EXCLUDED.ct_user_id WHERE carts.ct_user_id IS NULL";
+
+    // Moves every guest line into the customer cart, adding quantities where both carts hold
+    // the product at the customer cart's unit price, and rewrites the cart totals. All CTEs read
+    // the snapshot from before the statement, so the totals add the customer cart's old lines
+    // to the moved lines priced the way the upsert prices them.
+    private static final String MERGE_ITEMS = """
+            WITH moved AS (
+                DELETE FROM cart_items WHERE ci_cart_id = ?
+                RETURNING ci_product_id, ci_quantity, ci_unit_price
+            ), merged AS (
+                INSERT INTO cart_items (ci_cart_id, ci_product_id, ci_quantity, ci_unit_price, ci_total_price)
+                SELECT ?, ci_product_id, ci_quantity, ci_unit_price, ci_unit_price * ci_quantity FROM moved
+                ON CONFLICT (ci_cart_id, ci_product_id) DO UPDATE SET
+                    ci_quantity = cart_items.ci_quantity + EXCLUDED.ci_quantity,
+                    ci_total_price = cart_items.ci_unit_price * (cart_items.ci_quantity + EXCLUDED.ci_quantity)
+            ), lines AS (
+                SELECT ci_total_price AS total, ci_quantity AS quantity FROM cart_items WHERE ci_cart_id = ?
+                UNION ALL
+                SELECT COALESCE(c.ci_unit_price, m.ci_unit_price) * m.ci_quantity, m.ci_quantity
+                FROM moved m
+                LEFT JOIN cart_items c ON c.ci_cart_id = ? AND c.ci_product_id = m.ci_product_id
+            )
+            UPDATE carts SET
+                ct_total_price = (SELECT COALESCE(SUM(total), 0) FROM lines),
+                ct_item_count = (SELECT COALESCE(SUM(quantity), 0) FROM lines),
+                updated_at = CURRENT_TIMESTAMP
+            WHERE ct_id = ?
+            """;
+
+    // Stock held for the guest session is held for the customer cart's session instead
+    private static final String MOVE_RESERVATIONS = """
+            WITH moved AS (
+                DELETE FROM stock_reservations WHERE sr_session_id = ?
+                RETURNING sr_product_id, sr_quantity, sr_expires_at
+            )
+            INSERT INTO stock_reservations (sr_session_id, sr_product_id, sr_quantity, sr_expires_at)
+            SELECT ?, sr_product_id, sr_quantity, sr_expires_at FROM moved
+            ON CONFLICT (sr_session_id, sr_product_id) DO UPDATE SET
+                sr_quantity = stock_reservations.sr_quantity + EXCLUDED.sr_quantity,
+                sr_expires_at = GREATEST(stock_reservations.sr_expires_at, EXCLUDED.sr_expires_at)
+            """;
+
+    private static final String DELETE_CART = "DELETE FROM carts WHERE ct_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartStore cartStore;
+    private final CartWriteBehind cartWriteBehind;
+
+    public CartMergeService(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            CartStore cartStore,
+                            CartWriteBehind cartWriteBehind) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cartStore = cartStore;
+        this.cartWriteBehind = cartWriteBehind;
+    }
+
+    /**
+     * Give a customer who just logged in the cart of the session they were shopping in
+     * @param guestSessionId the session the customer used before logging in, may be null
+     * @return the session ID of the customer's cart, which the client should use from now on
+     */
+    public String mergeGuestCart(Long userId, String guestSessionId) {
+        while (true) {
+            List<String> sessionIds = new ArrayList<>(
+                    jdbcTemplate.query(FIND_CUSTOMER_CART, (rs, rowNum) -> rs.getString("ct_session_id"), userId));
+            if (guestSessionId != null) {
+                sessionIds.add(guestSessionId);
+            }
+            Merge merge = cartWriteBehind.withFlushesHeld(() ->
+                    cartStore.withSessionsLocked(sessionIds, () -> mergeLocked(userId, guestSessionId, sessionIds)));
+            if (merge != null) {
+                return merge.sessionId();
+            }
+        }
+    }
+
+    // Both carts are held from the flush until their store copies are dropped, so an add-to-cart
+    // either reaches the database before the merge or reads the merged cart back afterwards,
+    // and no flush of a pre-merge copy can delete the merged lines
+    private Merge mergeLocked(Long userId, String guestSessionId, List<String> lockedSessionIds) {
+        // Write both carts so the merge sees every mutation, including one whose markDirty is still
+        // pending. A clean store copy is safe to write: read-throughs take the same locks, so it
+        // cannot predate an earlier merge.
+        lockedSessionIds.forEach(cartWriteBehind::flush);
+
+        Merge merge = transactionTemplate.execute(status -> merge(userId, guestSessionId, lockedSessionIds));
+        if (merge != null && merge.merged()) {
+            // Both carts changed underneath the store; the next read loads the merged cart
+            cartStore.remove(guestSessionId);
+            cartStore.remove(merge.sessionId());
+        }
+        return merge;
+    }
+
+    // Returns null, writing nothing, when a concurrent login created the customer cart after it was looked up
+    private Merge merge(Long userId, String guestSessionId, List<String> lockedSessionIds) {
+        jdbcTemplate.queryForObject(LOCK_USER, Long.class, userId);
+
+        List<CartRow> customerCarts = jdbcTemplate.query(FIND_CUSTOMER_CART,
+                (rs, rowNum) -> new CartRow(rs.getLong("ct_id"), rs.getString("ct_session_id"), userId), userId);
+        CartRow customerCart = customerCarts.isEmpty() ? null : customerCarts.get(0);
+        if (customerCart != null && !lockedSessionIds.contains(customerCart.sessionId())) {
+            return null;
+        }
+        List<CartRow> guestCarts = guestSessionId == null ? List.of() : jdbcTemplate.query(FIND_SESSION_CART,
+                (rs, rowNum) -> new CartRow(rs.getLong("ct_id"), guestSessionId, (Long) rs.getObject("ct_user_id")),
+                guestSessionId);
+        CartRow guestCart = guestCarts.isEmpty() ? null : guestCarts.get(0);
+
+        // The session's cart belongs to someone else, e.g. a shared browser: never merge it
+        // and start the customer on a fresh session
+        String sessionId = guestSessionId;
+        if (guestCart != null && guestCart.userId() != null && !guestCart.userId().equals(userId)) {
+            guestCart = null;
+            sessionId = null;
+        }
+
+        if (customerCart == null) {
+            if (guestCart != null) {
+                jdbcTemplate.update(LINK_CART, userId, guestCart.cartId());
+                LINKED.increment();
+                return new Merge(sessionId, false);
+            }
+            // An empty cart now saves linking whatever the customer adds later
+            if (sessionId == null) {
+                sessionId = UUID.randomUUID().toString();
+            }
+            jdbcTemplate.update(CREATE_CART, sessionId, userId);
+            CREATED.increment();
+            return new Merge(sessionId, false);
+        }
+
+        if (guestCart == null || guestCart.cartId() == customerCart.cartId()) {
+            KEPT.increment();
+            return new Merge(customerCart.sessionId(), false);
+        }
+
+        jdbcTemplate.update(MERGE_ITEMS, guestCart.cartId(), customerCart.cartId(),
+                customerCart.cartId(), customerCart.cartId(), customerCart.cartId());
+        jdbcTemplate.update(MOVE_RESERVATIONS, guestSessionId, customerCart.sessionId());
+        jdbcTemplate.update(DELETE_CART, guestCart.cartId());
+        MERGED.increment();
+        return new Merge(customerCart.sessionId(), true);
+    }
+
+    private static Counter merges(String result) {
+        return Metrics.counter("atelier.cart.merges", "result", result);
+    }
+
+    private record CartRow(long cartId, String sessionId, Long userId) {
+    }
+
+    private record Merge(String sessionId, boolean merged) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.shoppingcart.atelier.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically checks ct_total_price and ct_item_count against the cart_items rows
+ * and repairs carts whose stored totals have drifted.
+ * Carts are scanned in ID order one batch at a time; a repair only applies if the cart
+ * has not been written since it was checked, so it never overwrites a concurrent flush.
+ */
+@Component
+public class CartReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(CartReconciler.class);
+
+    private static final String FIND_DRIFTED =
+            "SELECT c.ct_id, c.updated_at, " +
+            "COALESCE(s.total, 0) AS actual_total, COALESCE(s.item_count, 0) AS actual_count " +
+            "FROM carts c LEFT JOIN (" +
+            "  SELECT ci_cart_id, SUM(ci_total_price) AS total, SUM(ci_quantity) AS item_count " +
+            "  FROM cart_items WHERE ci_cart_id > ? AND ci_cart_id <= ? GROUP BY ci_cart_id" +
+            ") s ON s.ci_cart_id = c.ct_id " +
+            "WHERE c.ct_id > ? AND c.ct_id <= ? " +
+            "AND (c.ct_total_price <> COALESCE(s.total, 0) OR c.ct_item_count <> COALESCE(s.item_count, 0))";
+
+    private static final String REPAIR =
+            "UPDATE carts SET ct_total_price = ?, ct_item_count = ? WHERE ct_id = ? AND updated_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final AtomicLong lastRunRepaired = new AtomicLong();
+    private final AtomicLong totalRepaired = new AtomicLong();
+
+    public CartReconciler(JdbcTemplate jdbcTemplate,
+                          @Value("${app.cart-reconcile.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Scan every cart and repair drifted totals
+     * @return the number of carts repaired
+     */
+    @Scheduled(initialDelayString = "${app.cart-reconcile.interval-ms:3600000}",
+            fixedDelayString = "${app.cart-reconcile.interval-ms:3600000}")
+    public int reconcile() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(ct_id) FROM carts", Long.class);
+        if (maxId == null) {
+            return 0;
+        }
+
+        int repaired = 0;
+        for (long from = 0; from < maxId; from += batchSize) {
+            repaired += reconcileRange(from, Math.min(from + batchSize, maxId));
+        }
+
+        lastRunRepaired.set(repaired);
+        totalRepaired.addAndGet(repaired);
+        if (repaired > 0) {
+            log.warn("Cart reconciliation repaired {} carts with drifted totals", repaired);
+        }
+        return repaired;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastRunRepaired", lastRunRepaired.get());
+        stats.put("totalRepaired", totalRepaired.get());
+        return stats;
+    }
+
+    // Checks carts with fromExclusive < ct_id <= toInclusive
+    private int reconcileRange(long fromExclusive, long toInclusive) {
+        List<Drift> drifted = jdbcTemplate.query(FIND_DRIFTED,
+                (rs, rowNum) -> new Drift(
+                        rs.getLong("ct_id"),
+                        rs.getBigDecimal("actual_total"),
+                        rs.getInt("actual_count"),
+                        rs.getTimestamp("updated_at")),
+                fromExclusive, toInclusive, fromExclusive, toInclusive);
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(REPAIR, drifted, drifted.size(), (ps, drift) -> {
+            ps.setBigDecimal(1, drift.total());
+            ps.setInt(2, drift.itemCount());
+            ps.setLong(3, drift.cartId());
+            ps.setTimestamp(4, drift.updatedAt());
+        });
+
+        int repaired = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                repaired += Math.max(count, 0);
+            }
+        }
+        return repaired;
+    }
+
+    private record Drift(long cartId, BigDecimal total, int itemCount, Timestamp updatedAt) {
+    }
+}
@@ -2,118 +2,203 @@ package com.shoppingcart.atelier.services;
 
 import com.shoppingcart.atelier.dto.AddToCartRequest;
 import com.shoppingcart.atelier.models.Cart;
-import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
 import com.shoppingcart.atelier.models.Product;
-import com.shoppingcart.atelier.repositories.CartItemRepository;
 import com.shoppingcart.atelier.repositories.CartRepository;
+import com.shoppingcart.atelier.repositories.CartStore;
 import com.shoppingcart.atelier.repositories.ProductRepository;
+import com.shoppingcart.atelier.utils.CartMapper;
+import com.shoppingcart.atelier.utils.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
+    // Registered on the global registry, which Spring Boot's registry joins at startup
+    private static final Counter ADDS = mutations("add");
+    private static final Counter UPDATES = mutations("update");
+    private static final Counter REMOVES = mutations("remove");
+    private static final Counter CLEARS = mutations("clear");
+
     private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-
-    public Cart getOrCreateCart(String sessionId) {
-        return cartRepository.findBySessionId(sessionId)
-                .orElseGet(() -> {
-                    Cart cart = Cart.builder()
-                            .sessionId(sessionId)
-                            .totalPrice(BigDecimal.ZERO)
-                            .itemCount(0)
-                            .build();
-                    return cartRepository.save(cart);
-                });
+    private final CartStore cartStore;
+    private final CartWriteBehind cartWriteBehind;
+    private final CatalogCache catalogCache;
+    private final StockReservationService stockReservationService;
+
+    /**
+     * Get the live cart for a session, reading it through from the database on a store miss
+     * @return the cart, or empty if the session has never added anything
+     */
+    public Optional<CartState> findCart(String sessionId) {
+        Optional<CartState> cached = cartStore.get(sessionId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        // Under the session lock, so a login merge cannot rewrite the cart between the read and the put
+        return cartStore.withSessionsLocked(List.of(sessionId), () -> cartStore.get(sessionId)
+                .or(() -> cartRepository.findWithItemsBySessionId(sessionId)
+                        .map(CartMapper::toState)
+                        .map(cartStore::putIfAbsent)));
     }
 
-    public Cart addToCart(String sessionId, AddToCartRequest request) {
-        Cart cart = getOrCreateCart(sessionId);
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), product.getId());
-
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + request.getQuantity());
-            item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            cartItemRepository.save(item);
-        } else {
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .unitPrice(product.getPrice())
-                    .totalPrice(product.getPrice().multiply(BigDecimal.valueOf(request.getQuantity())))
-                    .build();
-            cartItemRepository.save(newItem);
+    /**
+     * Get the live cart for a session, creating it on first use
+     */
+    public CartState getOrCreateCart(String sessionId) {
+        Optional<CartState> existing = findCart(sessionId);
+        if (existing.isPresent()) {
+            return existing.get();
         }
 
-        updateCartTotals(cart);
-        return cart;
+        CartState created = cartStore.putIfAbsent(CartState.builder().sessionId(sessionId).build());
+        cartWriteBehind.markDirty(sessionId);
+        return created;
     }
 
-    public Cart removeFromCart(String sessionId, Long productId) {
-        Cart cart = getOrCreateCart(sessionId);
-        Optional<CartItem> item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
-
-        item.ifPresent(cartItemRepository::delete);
-        updateCartTotals(cart);
-        return cart;
+    public CartState addToCart(String sessionId, AddToCartRequest request) {
+        getOrCreateCart(sessionId);
+        Product product = findProduct(request.getProductId());
+        stockReservationService.reserve(sessionId, product.getId(), request.getQuantity());
+        ADDS.increment();
+
+        return mutate(sessionId, cart -> {
+            CartLine existing = cart.getLines().get(product.getId());
+            if (existing != null) {
+                int quantity = existing.getQuantity() + request.getQuantity();
+                cart.putLine(existing.toBuilder()
+                        .quantity(quantity)
+                        .totalCents(Money.times(existing.getUnitPriceCents(), quantity))
+                        .build());
+            } else {
+                long unitPriceCents = Money.toCents(product.getPrice());
+                cart.putLine(CartLine.builder()
+                        .productId(product.getId())
+                        .productName(product.getName())
+                        .imageUrl(product.getImageUrl())
+                        .size(product.getSize())
+                        .color(product.getColor())
+                        .quantity(request.getQuantity())
+                        .unitPriceCents(unitPriceCents)
+                        .totalCents(Money.times(unitPriceCents, request.getQuantity()))
+                        .build());
+            }
+        });
     }
 
-    public Cart updateCartItem(String sessionId, Long productId, Integer quantity) {
-        Cart cart = getOrCreateCart(sessionId);
-        Optional<CartItem> item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
-
-        if (item.isPresent()) {
-            CartItem cartItem = item.get();
-            if (quantity <= 0) {
-                cartItemRepository.delete(cartItem);
-            } else {
-                cartItem.setQuantity(quantity);
-                cartItem.setTotalPrice(cartItem.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
-                cartItemRepository.save(cartItem);
+    public CartState removeFromCart(String sessionId, Long productId) {
+        if (findCart(sessionId).isEmpty()) {
+            return emptyCart(sessionId);
+        }
+        REMOVES.increment();
+        // Read the line and release its reservation under the session lock, so two concurrent
+        // removes cannot both release the same quantity
+        return cartStore.withSessionsLocked(List.of(sessionId), () -> {
+            CartLine line = findCart(sessionId).map(cart -> cart.getLines().get(productId)).orElse(null);
+            if (line != null) {
+                stockReservationService.release(sessionId, productId, line.getQuantity());
             }
+            return mutate(sessionId, cart -> cart.removeLine(productId));
+        });
+    }
+
+    public CartState updateCartItem(String sessionId, Long productId, Integer quantity) {
+        if (findCart(sessionId).isEmpty()) {
+            return emptyCart(sessionId);
         }
+        UPDATES.increment();
+        // The reservation delta must come from the quantity the mutation replaces, so both are
+        // applied under the session lock
+        return cartStore.withSessionsLocked(List.of(sessionId), () -> {
+            CartLine current = findCart(sessionId).map(cart -> cart.getLines().get(productId)).orElse(null);
+            if (current != null) {
+                int delta = Math.max(quantity, 0) - current.getQuantity();
+                if (delta > 0) {
+                    stockReservationService.reserve(sessionId, productId, delta);
+                } else {
+                    stockReservationService.release(sessionId, productId, -delta);
+                }
+            }
+            return mutate(sessionId, cart -> {
+                CartLine line = cart.getLines().get(productId);
+                if (line != null) {
+                    if (quantity <= 0) {
+                        cart.removeLine(productId);
+                    } else {
+                        cart.putLine(line.toBuilder()
+                                .quantity(quantity)
+                                .totalCents(Money.times(line.getUnitPriceCents(), quantity))
+                                .build());
+                    }
+                }
+            });
+        });
+    }
 
-        updateCartTotals(cart);
-        return cart;
+    /**
+     * Get a session's cart; a session without one sees an empty cart that is not stored,
+     * so browsing never creates carts rows
+     */
+    public CartState getCart(String sessionId) {
+        return findCart(sessionId).orElseGet(() -> emptyCart(sessionId));
     }
 
-    public Cart getCart(String sessionId) {
-        return getOrCreateCart(sessionId);
+    /**
+     * Flush the session's cart and read it back from the database, for checkout
+     * @return the persisted cart, or empty if the session never had one
+     */
+    public Optional<Cart> getPersistedCart(String sessionId) {
+        cartWriteBehind.flush(sessionId);
+        return cartRepository.findWithItemsBySessionId(sessionId);
     }
 
     public void clearCart(String sessionId) {
-        Optional<Cart> cart = cartRepository.findBySessionId(sessionId);
-        if (cart.isPresent()) {
-            Cart c = cart.get();
-            c.getItems().clear();
-            c.setTotalPrice(BigDecimal.ZERO);
-            c.setItemCount(0);
-            cartRepository.save(c);
+        if (findCart(sessionId).isEmpty()) {
+            return;
         }
+        stockReservationService.releaseAll(sessionId);
+        CLEARS.increment();
+        mutate(sessionId, CartState::clearLines);
+    }
+
+    private CartState mutate(String sessionId, Consumer<CartState> change) {
+        // A login merge may have dropped the store copy since the caller read it, so read it through
+        // again under the session lock; otherwise the change would start a new cart over the merged one
+        // The dirty mark is set under the lock too, so the expiry sweeper never sees a changed cart as clean
+        return cartStore.withSessionsLocked(List.of(sessionId), () -> {
+            findCart(sessionId);
+            CartState updated = cartStore.compute(sessionId, current -> {
+                CartState cart = current != null ? current : CartState.builder().sessionId(sessionId).build();
+                change.accept(cart);
+                return cart;
+            });
+            cartWriteBehind.markDirty(sessionId);
+            return updated;
+        });
     }
 
-    private void updateCartTotals(Cart cart) {
-        BigDecimal total = BigDecimal.ZERO;
-        int itemCount = 0;
+    private static CartState emptyCart(String sessionId) {
+        return CartState.builder().sessionId(sessionId).build();
+    }
 
-        for (CartItem item : cart.getItems()) {
-            total = total.add(item.getTotalPrice());
-            itemCount += item.getQuantity();
-        }
+    private Product findProduct(Long productId) {
+        return catalogCache.snapshot()
+                .map(snapshot -> snapshot.byId().get(productId))
+                .or(() -> productRepository.findById(productId))
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
 
-        cart.setTotalPrice(total);
-        cart.setItemCount(itemCount);
-        cartRepository.save(cart);
+    private static Counter mutations(String operation) {
+        return Metrics.counter("atelier.cart.mutations", "operation", operation);
     }
 }
@@ -0,0 +1,267 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.repositories.CartStore;
+import com.shoppingcart.atelier.utils.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Flushes dirty carts from the CartStore to the carts and cart_items tables.
+ * Mutations only mark a session dirty; a scheduled job upserts dirty carts in batches,
+ * and checkout forces a synchronous flush of its own session.
+ */
+@Component
+public class CartWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(CartWriteBehind.class);
+
+    private static final String UPSERT_CART =
+            "INSERT INTO carts (ct_session_id, ct_total_price, ct_item_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (ct_session_id) DO UPDATE SET ct_total_price = EXCLUDED.ct_total_price, " +
+            "ct_item_count = EXCLUDED.ct_item_count, updated_at = CURRENT_TIMESTAMP";
+
+    private static final String SELECT_CART_IDS =
+            "SELECT ct_id, ct_session_id FROM carts WHERE ct_session_id = ANY (?)";
+
+    private static final String DELETE_REMOVED_ITEMS =
+            "DELETE FROM cart_items WHERE ci_cart_id = ? AND ci_product_id <> ALL (?)";
+
+    private static final String SELECT_EXISTING_PRODUCTS =
+            "SELECT p_id FROM products WHERE p_id = ANY (?)";
+
+    // Skips a line whose product was deleted after the existence check instead of failing its batch
+    private static final String UPSERT_ITEM =
+            "INSERT INTO cart_items (ci_cart_id, ci_product_id, ci_quantity, ci_unit_price, ci_total_price) " +
+            "SELECT ?, ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM products WHERE p_id = ?) " +
+            "ON CONFLICT (ci_cart_id, ci_product_id) DO UPDATE SET " +
+            "ci_quantity = EXCLUDED.ci_quantity, ci_unit_price = EXCLUDED.ci_unit_price, " +
+            "ci_total_price = EXCLUDED.ci_total_price";
+
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CartWriteBehind(CartStore cartStore,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.cart-store.flush-batch-size:200}") int batchSize) {
+        this.cartStore = cartStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void markDirty(String sessionId) {
+        dirty.add(sessionId);
+    }
+
+    public boolean isDirty(String sessionId) {
+        return dirty.contains(sessionId);
+    }
+
+    public int getPendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Flush every dirty cart, batchSize carts per transaction.
+     * A failed batch is retried cart by cart so one bad cart cannot hold back the others;
+     * carts that still fail stay dirty for the next tick.
+     */
+    @Scheduled(fixedDelayString = "${app.cart-store.flush-interval-ms:1000}")
+    public void flushPending() {
+        Set<String> failed = new HashSet<>();
+        while (true) {
+            List<String> batch = new ArrayList<>(batchSize);
+            Iterator<String> iterator = dirty.iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                String sessionId = iterator.next();
+                if (!failed.contains(sessionId)) {
+                    batch.add(sessionId);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cart write-behind flush of {} carts failed, retrying them one by one: {}",
+                        batch.size(), e.getMessage());
+                for (String sessionId : batch) {
+                    try {
+                        flush(List.of(sessionId));
+                    } catch (RuntimeException sessionFailure) {
+                        log.warn("Cart write-behind flush of session {} failed: {}",
+                                sessionId, sessionFailure.getMessage());
+                        failed.add(sessionId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Synchronously write one session's cart, e.g. before checkout reads it from the database
+     */
+    public void flush(String sessionId) {
+        flush(List.of(sessionId));
+    }
+
+    /**
+     * Run an action while no flush can start, e.g. while cart rows are rewritten outside the
+     * write-behind. Flushes the action makes itself go through.
+     * @return the action's result
+     */
+    public <T> T withFlushesHeld(Supplier<T> action) {
+        flushLock.lock();
+        try {
+            return action.get();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPending();
+    }
+
+    private void flush(List<String> sessionIds) {
+        flushLock.lock();
+        try {
+            // Clear the flag before reading so a concurrent mutation re-marks the cart
+            List<CartState> read = new ArrayList<>(sessionIds.size());
+            for (String sessionId : sessionIds) {
+                dirty.remove(sessionId);
+                cartStore.get(sessionId).ifPresent(read::add);
+            }
+            List<CartState> states = pruneDeletedProducts(read);
+            if (states.isEmpty()) {
+                return;
+            }
+
+            Map<String, Long> cartIds = transactionTemplate.execute(status -> write(states));
+
+            // Remember database IDs so DTOs can expose them
+            for (CartState state : states) {
+                Long cartId = cartIds.get(state.getSessionId());
+                if (state.getCartId() == null && cartId != null) {
+                    cartStore.compute(state.getSessionId(), current -> {
+                        if (current != null) {
+                            current.setCartId(cartId);
+                        }
+                        return current;
+                    });
+                }
+            }
+        } catch (RuntimeException e) {
+            sessionIds.forEach(dirty::add);
+            throw e;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drop lines whose product has been deleted since it was added. Deleting a product cascades
+     * its cart_items rows and reservations away, but the store copy still holds the line.
+     */
+    private List<CartState> pruneDeletedProducts(List<CartState> states) {
+        Object[] productIds = states.stream()
+                .flatMap(state -> state.getLines().keySet().stream())
+                .distinct()
+                .toArray();
+        if (productIds.length == 0) {
+            return states;
+        }
+        Set<Long> existing = new HashSet<>(jdbcTemplate.query(SELECT_EXISTING_PRODUCTS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", productIds)),
+                (rs, rowNum) -> rs.getLong(1)));
+        if (existing.size() == productIds.length) {
+            return states;
+        }
+        List<CartState> kept = new ArrayList<>(states.size());
+        for (CartState state : states) {
+            if (existing.containsAll(state.getLines().keySet())) {
+                kept.add(state);
+                continue;
+            }
+            CartState pruned = cartStore.compute(state.getSessionId(), current -> {
+                if (current != null) {
+                    current.getLines().keySet().stream()
+                            .filter(productId -> !existing.contains(productId))
+                            .toList()
+                            .forEach(current::removeLine);
+                }
+                return current;
+            });
+            // The cart may have expired or been merged away since it was read
+            if (pruned != null) {
+                kept.add(pruned);
+            }
+        }
+        return kept;
+    }
+
+    private Map<String, Long> write(List<CartState> states) {
+        jdbcTemplate.batchUpdate(UPSERT_CART, states, states.size(), (ps, state) -> {
+            ps.setString(1, state.getSessionId());
+            ps.setBigDecimal(2, Money.fromCents(state.getTotalCents()));
+            ps.setInt(3, state.getItemCount());
+        });
+
+        String[] sessionIds = states.stream().map(CartState::getSessionId).toArray(String[]::new);
+        Map<String, Long> cartIds = new HashMap<>();
+        jdbcTemplate.query(SELECT_CART_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", sessionIds)),
+                rs -> {
+                    cartIds.put(rs.getString("ct_session_id"), rs.getLong("ct_id"));
+                });
+
+        jdbcTemplate.batchUpdate(DELETE_REMOVED_ITEMS, states, states.size(), (ps, state) -> {
+            Object[] productIds = state.getLines().keySet().toArray();
+            Array keep = ps.getConnection().createArrayOf("bigint", productIds);
+            ps.setLong(1, cartIds.get(state.getSessionId()));
+            ps.setArray(2, keep);
+        });
+
+        List<Object[]> items = new ArrayList<>();
+        for (CartState state : states) {
+            Long cartId = cartIds.get(state.getSessionId());
+            for (CartLine line : state.getLines().values()) {
+                items.add(new Object[]{cartId, line.getProductId(), line.getQuantity(),
+                        Money.fromCents(line.getUnitPriceCents()), Money.fromCents(line.getTotalCents()),
+                        line.getProductId()});
+            }
+        }
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ITEM, items);
+        }
+        return cartIds;
+    }
+}
@@ -0,0 +1,266 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Versioned in-process snapshot of the active catalog.
+ * Storefront reads are served from an immutable snapshot that is loaded on first use
+ * and patched copy-on-write whenever ProductService writes a product or committed stock changes.
+ * Concurrent misses wait for a single loader instead of each scanning the products table.
+ */
+@Component
+public class CatalogCache {
+
+    private static final int LATEST_LIMIT = 4;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final int maxProducts;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    // Version at which the catalog was last found to exceed maxProducts
+    private volatile long oversizedAtVersion = -1;
+
+    public CatalogCache(ProductRepository productRepository,
+                        @Value("${app.catalog-cache.enabled:true}") boolean enabled,
+                        @Value("${app.catalog-cache.max-products:10000}") int maxProducts) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.maxProducts = maxProducts;
+    }
+
+    /**
+     * Get the current catalog snapshot, loading it on a miss
+     * @return the snapshot, or empty if the cache is disabled or the catalog is too large to hold
+     */
+    public Optional<Snapshot> snapshot() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            hits.increment();
+            return Optional.of(snapshot);
+        }
+
+        misses.increment();
+        loadLock.lock();
+        try {
+            // Another miss may have loaded the snapshot while this one waited
+            snapshot = current.get();
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+
+            long loadVersion = version.get();
+            if (oversizedAtVersion == loadVersion) {
+                return Optional.empty();
+            }
+            if (productRepository.countByIsActiveTrue() > maxProducts) {
+                oversizedAtVersion = loadVersion;
+                return Optional.empty();
+            }
+
+            Snapshot loaded = Snapshot.of(loadVersion, productRepository.findByIsActiveTrue());
+
+            // A write that ran while we were loading found no snapshot to patch, so a snapshot
+            // installed here may already miss it; take it back out if the version has moved
+            if (current.compareAndSet(null, loaded) && version.get() != loadVersion) {
+                current.compareAndSet(loaded, null);
+            }
+            return Optional.of(loaded);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Patch a created or updated product into the snapshot
+     */
+    public void onProductSaved(Product product) {
+        long next = version.incrementAndGet();
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.with(next, product, maxProducts));
+    }
+
+    /**
+     * Remove a deleted product from the snapshot
+     */
+    public void onProductDeleted(Long productId) {
+        long next = version.incrementAndGet();
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.without(next, productId));
+    }
+
+    /**
+     * Patch committed stock into the snapshot; stock-only updates bypass onProductSaved
+     * @param stockById the current p_stock_quantity of each product
+     */
+    public void onStockChanged(Map<Long, Integer> stockById) {
+        long next = version.incrementAndGet();
+        // Stock never changes how many products are active, so an oversized catalog stays oversized
+        if (oversizedAtVersion == next - 1) {
+            oversizedAtVersion = next;
+        }
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.withStock(next, stockById));
+    }
+
+    /**
+     * Drop the snapshot entirely, e.g. after a category rename
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        current.set(null);
+    }
+
+    /**
+     * Bump the version without touching the snapshot, for catalog writes no product carries
+     */
+    public void touch() {
+        long next = version.incrementAndGet();
+        current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.at(next));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Snapshot snapshot = current.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("version", version.get());
+        stats.put("size", snapshot != null ? snapshot.activeProducts().size() : 0);
+        stats.put("maxSize", maxProducts);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    /**
+     * Immutable view of the active catalog with the storefront lists precomputed.
+     * All lists are ordered by ascending product ID so they can be keyset-paged.
+     */
+    public record Snapshot(long version,
+                           Map<Long, Product> byId,
+                           List<Product> activeProducts,
+                           List<Product> featuredProducts,
+                           List<Product> latestProducts,
+                           Map<String, List<Product>> byGender,
+                           Map<Long, List<Product>> byCategory) {
+
+        static Snapshot of(long version, List<Product> products) {
+            Map<Long, Product> byId = new TreeMap<>();
+            for (Product product : products) {
+                byId.put(product.getId(), product);
+            }
+            return build(version, byId);
+        }
+
+        Snapshot with(long nextVersion, Product product, int maxProducts) {
+            Map<Long, Product> copy = new TreeMap<>(byId);
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                copy.put(product.getId(), product);
+            } else {
+                copy.remove(product.getId());
+            }
+            return copy.size() > maxProducts ? null : build(nextVersion, copy);
+        }
+
+        Snapshot without(long nextVersion, Long productId) {
+            if (!byId.containsKey(productId)) {
+                return build(nextVersion, byId);
+            }
+            Map<Long, Product> copy = new TreeMap<>(byId);
+            copy.remove(productId);
+            return build(nextVersion, copy);
+        }
+
+        // Snapshot entities are never modified, so changed products are replaced by copies
+        Snapshot withStock(long nextVersion, Map<Long, Integer> stockById) {
+            Map<Long, Product> copy = null;
+            for (Map.Entry<Long, Integer> stock : stockById.entrySet()) {
+                Product product = byId.get(stock.getKey());
+                if (product != null && !stock.getValue().equals(product.getStockQuantity())) {
+                    if (copy == null) {
+                        copy = new TreeMap<>(byId);
+                    }
+                    copy.put(product.getId(), product.toBuilder().stockQuantity(stock.getValue()).build());
+                }
+            }
+            return copy == null ? at(nextVersion) : build(nextVersion, copy);
+        }
+
+        Snapshot at(long nextVersion) {
+            return new Snapshot(nextVersion, byId, activeProducts, featuredProducts, latestProducts, byGender, byCategory);
+        }
+
+        public List<Product> productsByGender(String gender) {
+            return byGender.getOrDefault(gender.toUpperCase(), List.of());
+        }
+
+        public List<Product> productsByCategory(Long categoryId) {
+            return byCategory.getOrDefault(categoryId, List.of());
+        }
+
+        private static Snapshot build(long version, Map<Long, Product> byId) {
+            List<Product> active = List.copyOf(byId.values());
+
+            List<Product> featured = active.stream()
+                    .filter(p -> Boolean.TRUE.equals(p.getIsFeatured()))
+                    .toList();
+
+            List<Product> latest = active.stream()
+                    .sorted(Comparator.comparing(Product::getCreatedAt,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(LATEST_LIMIT)
+                    .toList();
+
+            Map<String, List<Product>> genders = new HashMap<>();
+            Map<Long, List<Product>> categories = new HashMap<>();
+            for (Product product : active) {
+                if (product.getGender() != null) {
+                    genders.computeIfAbsent(product.getGender().toUpperCase(), g -> new ArrayList<>()).add(product);
+                }
+                if (product.getCategory() != null) {
+                    categories.computeIfAbsent(product.getCategory().getId(), c -> new ArrayList<>()).add(product);
+                }
+            }
+            genders.replaceAll((g, list) -> List.copyOf(list));
+            categories.replaceAll((c, list) -> List.copyOf(list));
+
+            return new Snapshot(version, Collections.unmodifiableMap(byId), active, featured, latest,
+                    Map.copyOf(genders), Map.copyOf(categories));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.utils.ProductMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized JSON for the hottest storefront lists (featured, latest, by gender).
+ * Bodies are built from a CatalogCache snapshot off the request thread and stamped with the
+ * snapshot version; a request only uses them while that version is still current, otherwise
+ * it falls back to the regular mapping path and a background rebuild is kicked off.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+    // Below this a gzip frame costs more than it saves
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    private final CatalogCache catalogCache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean gzip;
+
+    private final AtomicReference<Responses> current = new AtomicReference<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("catalog-responses").daemon(true).factory());
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public CatalogResponseCache(CatalogCache catalogCache,
+                                ObjectMapper objectMapper,
+                                @Value("${app.catalog-responses.enabled:true}") boolean enabled,
+                                @Value("${app.catalog-responses.gzip:true}") boolean gzip) {
+        this.catalogCache = catalogCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzip = gzip;
+    }
+
+    public Optional<Body> featured() {
+        return fresh().map(Responses::featured);
+    }
+
+    public Optional<Body> latest() {
+        return fresh().map(Responses::latest);
+    }
+
+    public Optional<Body> byGender(String gender) {
+        return fresh().map(responses -> responses.byGender().getOrDefault(gender.toUpperCase(), responses.empty()));
+    }
+
+    /**
+     * Build the bodies for the current catalog on the calling thread
+     * @return false if the catalog cache is disabled or the catalog is too large to snapshot
+     */
+    public boolean rebuild() {
+        Optional<CatalogCache.Snapshot> loaded = catalogCache.snapshot();
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        CatalogCache.Snapshot snapshot = loaded.get();
+
+        Map<String, Body> genders = new HashMap<>();
+        snapshot.byGender().forEach((gender, products) -> genders.put(gender, serialize(products)));
+
+        current.set(new Responses(snapshot.version(),
+                serialize(snapshot.featuredProducts()),
+                serialize(snapshot.latestProducts()),
+                Map.copyOf(genders),
+                serialize(List.of())));
+        rebuilds.increment();
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Responses responses = current.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("version", responses != null ? responses.version() : null);
+        stats.put("fresh", responses != null && responses.version() == catalogCache.getVersion());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Optional<Responses> fresh() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Responses responses = current.get();
+        if (responses != null && responses.version() == catalogCache.getVersion()) {
+            hits.increment();
+            return Optional.of(responses);
+        }
+        misses.increment();
+        scheduleRebuild();
+        return Optional.empty();
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Catalog response rebuild failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    private Body serialize(List<Product> products) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(products.stream().map(ProductMapper::toDTO).toList());
+            return new Body(json, gzip && json.length >= MIN_GZIP_BYTES ? compress(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog response", e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Responses(long version,
+                             Body featured,
+                             Body latest,
+                             Map<String, Body> byGender,
+                             Body empty) {
+    }
+
+    /**
+     * Immutable serialized response, optionally with a gzip variant
+     */
+    public static final class Body {
+
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private Body(byte[] json, byte[] gzip) {
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        /**
+         * Write the body straight to the servlet output stream, gzipped if the client accepts it
+         */
+        public void writeTo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            byte[] bytes = json;
+            if (gzip != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    bytes = gzip;
+                }
+            }
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+
+        static boolean acceptsGzip(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+            return false;
+        }
+    }
+}
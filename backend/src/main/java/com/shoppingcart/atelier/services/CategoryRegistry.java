@@ -0,0 +1,210 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.models.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable in-memory view of the category list with active-product counts.
+ * Reads see a snapshot that is rebuilt whenever CategoryService writes a category or a
+ * product write changes how many active products a category has, so the navbar payload is
+ * served as pre-serialized JSON and name lookups never touch the database.
+ */
+@Component
+public class CategoryRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Held across the reload scans; a monitor would pin a virtual thread's carrier during the queries
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Active product ID -> category ID, and active products per category; guarded by lock
+    private final Map<Long, Long> activeProducts = new HashMap<>();
+    private final Map<Long, Integer> counts = new HashMap<>();
+    private List<Entry> categories = List.of();
+
+    private volatile Snapshot current;
+
+    public CategoryRegistry(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Get the current snapshot, loading it on first use
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            lock.lock();
+            try {
+                if (current == null) {
+                    reload();
+                }
+                snapshot = current;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    public List<Entry> getCategories() {
+        return snapshot().categories();
+    }
+
+    public Optional<Entry> getById(Long id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public Optional<Entry> getByName(String name) {
+        return Optional.ofNullable(snapshot().byName().get(name.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Reload categories and product counts from the database, after category writes or bulk imports
+     */
+    public void refresh() {
+        lock.lock();
+        try {
+            reload();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move a created or updated product's count to its current category
+     */
+    public void onProductSaved(Product product) {
+        lock.lock();
+        try {
+            if (current == null) {
+                return;
+            }
+            Long categoryId = Boolean.TRUE.equals(product.getIsActive()) && product.getCategory() != null
+                    ? product.getCategory().getId()
+                    : null;
+            Long previous = categoryId != null
+                    ? activeProducts.put(product.getId(), categoryId)
+                    : activeProducts.remove(product.getId());
+            if (!Objects.equals(previous, categoryId)) {
+                adjust(previous, -1);
+                adjust(categoryId, 1);
+                publish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop a deleted product from its category's count
+     */
+    public void onProductDeleted(Long productId) {
+        lock.lock();
+        try {
+            Long previous = current != null ? activeProducts.remove(productId) : null;
+            if (previous != null) {
+                adjust(previous, -1);
+                publish();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot snapshot = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", snapshot != null);
+        stats.put("categories", snapshot != null ? snapshot.categories().size() : 0);
+        stats.put("payloadBytes", snapshot != null ? snapshot.json().length : 0);
+        return stats;
+    }
+
+    private void reload() {
+        List<Entry> loaded = jdbcTemplate.query(
+                "SELECT c_id, c_name, c_description FROM categories",
+                (rs, rowNum) -> new Entry(rs.getLong("c_id"), rs.getString("c_name"), rs.getString("c_description"), 0));
+
+        activeProducts.clear();
+        counts.clear();
+        jdbcTemplate.query("SELECT p_id, p_category_id FROM products WHERE p_is_active = TRUE", rs -> {
+            long categoryId = rs.getLong("p_category_id");
+            activeProducts.put(rs.getLong("p_id"), categoryId);
+            adjust(categoryId, 1);
+        });
+
+        categories = loaded;
+        publish();
+        log.debug("Category registry loaded {} categories, {} active products", loaded.size(), activeProducts.size());
+    }
+
+    private void adjust(Long categoryId, int delta) {
+        if (categoryId != null) {
+            counts.merge(categoryId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private void publish() {
+        List<Entry> entries = new ArrayList<>(categories.size());
+        for (Entry category : categories) {
+            entries.add(new Entry(category.id(), category.name(), category.description(),
+                    counts.getOrDefault(category.id(), 0)));
+        }
+        entries.sort(Comparator.comparing(Entry::name, String.CASE_INSENSITIVE_ORDER));
+
+        Map<Long, Entry> byId = new HashMap<>();
+        Map<String, Entry> byName = new HashMap<>();
+        for (Entry entry : entries) {
+            byId.put(entry.id(), entry);
+            byName.put(entry.name().toLowerCase(Locale.ROOT), entry);
+        }
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(entries);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize categories", e);
+        }
+        current = new Snapshot(List.copyOf(entries), Map.copyOf(byId), Map.copyOf(byName), json);
+    }
+
+    public record Entry(long id, String name, String description, int productCount) {
+    }
+
+    /**
+     * Categories ordered by name, the lookups over them and the same list as JSON bytes
+     */
+    public record Snapshot(List<Entry> categories,
+                           Map<Long, Entry> byId,
+                           Map<String, Entry> byName,
+                           byte[] json) {
+    }
+}
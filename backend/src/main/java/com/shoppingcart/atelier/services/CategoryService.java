@@ -13,21 +13,35 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final CategoryRegistry categoryRegistry;
 
-    public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+    public List<CategoryRegistry.Entry> getAllCategories() {
+        return categoryRegistry.getCategories();
     }
 
-    public Optional<Category> getCategoryById(Long id) {
-        return categoryRepository.findById(id);
+    /**
+     * The category list as ready-to-send JSON bytes
+     */
+    public byte[] getAllCategoriesJson() {
+        return categoryRegistry.snapshot().json();
     }
 
-    public Optional<Category> getCategoryByName(String name) {
-        return categoryRepository.findByName(name);
+    public Optional<CategoryRegistry.Entry> getCategoryById(Long id) {
+        return categoryRegistry.getById(id);
+    }
+
+    public Optional<CategoryRegistry.Entry> getCategoryByName(String name) {
+        return categoryRegistry.getByName(name);
     }
 
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryRegistry.refresh();
+        catalogCache.touch();
+        return saved;
     }
 
     public Category updateCategory(Long id, Category category) {
@@ -35,12 +49,22 @@ public class CategoryService {
                 .map(existing -> {
                     existing.setName(category.getName());
                     existing.setDescription(category.getDescription());
-                    return categoryRepository.save(existing);
+                    Category saved = categoryRepository.save(existing);
+                    categoryRegistry.refresh();
+                    // Cached products and the search index carry the category name
+                    catalogCache.invalidate();
+                    searchIndex.invalidate();
+                    facetIndex.invalidate();
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Category not found"));
     }
 
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        categoryRegistry.refresh();
+        catalogCache.invalidate();
+        searchIndex.invalidate();
+        facetIndex.invalidate();
     }
 }
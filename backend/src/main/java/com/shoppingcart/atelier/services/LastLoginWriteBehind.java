@@ -0,0 +1,88 @@
+package com.shoppingcart.atelier.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces u_last_login updates into one periodic batch.
+ * Logins only record the newest timestamp per user; a scheduled job writes them all with a
+ * single batched UPDATE, so repeated logins by the same user cost one row write per interval.
+ */
+@Component
+public class LastLoginWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE users SET u_last_login = ? WHERE u_id = ? AND (u_last_login IS NULL OR u_last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public LastLoginWriteBehind(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write every pending timestamp in one batch
+     */
+    @Scheduled(fixedDelayString = "${app.auth.last-login-flush-interval-ms:5000}")
+    public void flushPending() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // Remove each entry as it is taken so a login racing the flush is kept for the next one
+            List<Long> userIds = new ArrayList<>(pending.keySet());
+            List<Object[]> batch = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                LocalDateTime loginAt = pending.remove(userId);
+                if (loginAt != null) {
+                    Timestamp timestamp = Timestamp.valueOf(loginAt);
+                    batch.add(new Object[]{timestamp, userId, timestamp});
+                }
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, batch);
+            } catch (RuntimeException e) {
+                // Put the timestamps back and retry on the next tick
+                for (Object[] row : batch) {
+                    record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime());
+                }
+                log.warn("Last-login flush of {} users failed: {}", batch.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPending();
+    }
+}
@@ -0,0 +1,160 @@
+package com.shoppingcart.atelier.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets for login attempts, one per client IP and one per username.
+ * Each bucket holds a minute's allowance and refills continuously, so short bursts pass
+ * while sustained guessing is throttled to the configured rate.
+ * The IP bucket is charged for every attempt. The username bucket is charged only for failed
+ * password checks, so a user who keeps logging in successfully is never locked out, and it
+ * is checked before the next BCrypt so a guesser cannot keep paying for new checks.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Counter LIMITED = Metrics.counter("atelier.auth.login.failures", "reason", "rate_limited");
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int failuresPerUserPerMinute;
+    private final int perIpPerMinute;
+
+    private final Map<String, Bucket> users = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> ips = new ConcurrentHashMap<>();
+
+    public LoginRateLimiter(@Value("${app.auth.rate-limit.failures-per-user-per-minute:30}") int failuresPerUserPerMinute,
+                            @Value("${app.auth.rate-limit.per-ip-per-minute:60}") int perIpPerMinute) {
+        this.failuresPerUserPerMinute = failuresPerUserPerMinute;
+        this.perIpPerMinute = perIpPerMinute;
+    }
+
+    /**
+     * Take one attempt from the client IP's bucket
+     * @throws ResponseStatusException 429 if the IP is over its limit
+     */
+    public void acquireForIp(String clientIp) {
+        if (perIpPerMinute > 0 && clientIp != null) {
+            acquire(ips, clientIp, perIpPerMinute);
+        }
+    }
+
+    /**
+     * Refuse a password check for a username whose failures have used up its bucket; takes nothing
+     * @throws ResponseStatusException 429 if the username is over its limit
+     */
+    public void checkUser(String username) {
+        if (failuresPerUserPerMinute > 0) {
+            Bucket bucket = users.get(username.toLowerCase(Locale.ROOT));
+            if (bucket != null) {
+                rejectIfWaiting(bucket.waitNanos(System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Charge one failed password check to the username's bucket
+     */
+    public void recordFailure(String username) {
+        if (failuresPerUserPerMinute > 0) {
+            long now = System.nanoTime();
+            users.computeIfAbsent(username.toLowerCase(Locale.ROOT), k -> new Bucket(failuresPerUserPerMinute, now))
+                    .take(now);
+        }
+    }
+
+    /**
+     * Forget buckets that have refilled completely; they behave exactly like a new one
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        users.values().removeIf(bucket -> bucket.isFull(now));
+        ips.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("failuresPerUserPerMinute", failuresPerUserPerMinute);
+        stats.put("perIpPerMinute", perIpPerMinute);
+        stats.put("trackedUsers", users.size());
+        stats.put("trackedIps", ips.size());
+        return stats;
+    }
+
+    private void acquire(Map<String, Bucket> buckets, String key, int perMinute) {
+        long now = System.nanoTime();
+        rejectIfWaiting(buckets.computeIfAbsent(key, k -> new Bucket(perMinute, now)).take(now));
+    }
+
+    private static void rejectIfWaiting(long waitNanos) {
+        if (waitNanos > 0) {
+            LIMITED.increment();
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many login attempts, retry in " + seconds + "s");
+        }
+    }
+
+    private static final class Bucket {
+
+        private final int capacity;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, long now) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        synchronized long take(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return waitFor();
+        }
+
+        /**
+         * @return 0 if a token is available, otherwise the nanoseconds until one is
+         */
+        synchronized long waitNanos(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : waitFor();
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private long waitFor() {
+            return (long) Math.ceil((1 - tokens) * MINUTE_NANOS / capacity);
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAt;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + (double) elapsed * capacity / MINUTE_NANOS);
+                refilledAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.OrderEvent;
+
+/**
+ * One downstream stage of the order pipeline, run by OrderEventWorker for every outbox event.
+ * An event is redelivered to every stage after any stage fails or a worker dies mid-event,
+ * so implementations must be idempotent.
+ */
+public interface OrderEventHandler {
+
+    /**
+     * @throws RuntimeException to have the event retried with backoff
+     */
+    void handle(OrderEvent event);
+}
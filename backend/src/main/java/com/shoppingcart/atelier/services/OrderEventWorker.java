@@ -0,0 +1,248 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.OrderEvent;
+import com.shoppingcart.atelier.repositories.OrderEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pool of background workers that drain the order_events outbox.
+ * Each worker claims a batch of due events with SELECT ... FOR UPDATE SKIP LOCKED, leases them by
+ * pushing oe_next_attempt_at forward, and runs every OrderEventHandler outside the claim transaction.
+ * Failed events are retried with exponential backoff until max-attempts, then marked FAILED.
+ * A worker that dies mid-batch simply lets its lease expire and another worker picks the events up.
+ * Outcomes are counted as atelier.order.events{result}; the outbox depth is sampled on a schedule and
+ * exposed as atelier.order.events.queue{state}, so a scrape never runs the count queries itself.
+ */
+@Component
+public class OrderEventWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private static final Counter PROCESSED = Metrics.counter("atelier.order.events", "result", "processed");
+    private static final Counter RETRIED = Metrics.counter("atelier.order.events", "result", "retried");
+    private static final Counter FAILED = Metrics.counter("atelier.order.events", "result", "failed");
+
+    private final OrderEventRepository orderEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OrderEventHandler> handlers;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollIntervalMs;
+    private final Duration lease;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final boolean virtualThreads;
+
+    // Latest outbox counts for the gauges, null until the first sample
+    private volatile QueueSample queueSample;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public OrderEventWorker(OrderEventRepository orderEventRepository,
+                            TransactionTemplate transactionTemplate,
+                            List<OrderEventHandler> handlers,
+                            @Value("${app.order-events.workers:4}") int workers,
+                            @Value("${app.order-events.batch-size:20}") int batchSize,
+                            @Value("${app.order-events.max-attempts:8}") int maxAttempts,
+                            @Value("${app.order-events.poll-interval-ms:200}") long pollIntervalMs,
+                            @Value("${app.order-events.lease:5m}") Duration lease,
+                            @Value("${app.order-events.backoff:1s}") Duration backoff,
+                            @Value("${app.order-events.max-backoff:5m}") Duration maxBackoff,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.orderEventRepository = orderEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.handlers = handlers;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lease = lease;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        // The gauges hold on to this worker, so they are registered once construction is done
+        gauge("pending", QueueSample::pending);
+        gauge("due", QueueSample::due);
+        gauge("failed", QueueSample::failed);
+
+        if (workers <= 0) {
+            return;
+        }
+        if (handlers.isEmpty()) {
+            // Events stay PENDING until a build with handlers drains them
+            log.warn("No order event handlers registered, order event workers not started");
+            return;
+        }
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("order-worker-", 1).factory()
+                : Thread.ofPlatform().name("order-worker-", 1).daemon(true).factory();
+        executor = Executors.newFixedThreadPool(workers, threadFactory);
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::pollLoop);
+        }
+        log.info("Started {} order event workers", workers);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Claim and process one batch of due events
+     * @return the number of events claimed
+     */
+    public int processBatch() {
+        List<OrderEvent> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null) {
+            return 0;
+        }
+        for (OrderEvent event : claimed) {
+            process(event);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Refresh the outbox counts behind the queue gauges
+     */
+    @Scheduled(fixedDelayString = "${app.order-events.metrics-interval-ms:15000}")
+    public void sampleQueue() {
+        try {
+            queueSample = new QueueSample(
+                    orderEventRepository.countByStatus(OrderEvent.PENDING),
+                    orderEventRepository.countByStatusAndNextAttemptAtLessThanEqual(
+                            OrderEvent.PENDING, LocalDateTime.now()),
+                    orderEventRepository.countByStatus(OrderEvent.FAILED));
+        } catch (RuntimeException e) {
+            log.warn("Order event queue sample failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("queueDepth", orderEventRepository.countByStatus(OrderEvent.PENDING));
+        stats.put("due", orderEventRepository.countByStatusAndNextAttemptAtLessThanEqual(
+                OrderEvent.PENDING, LocalDateTime.now()));
+        stats.put("deadLettered", orderEventRepository.countByStatus(OrderEvent.FAILED));
+        stats.put("processed", (long) PROCESSED.count());
+        stats.put("retried", (long) RETRIED.count());
+        stats.put("failed", (long) FAILED.count());
+        return stats;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                if (processBatch() == 0) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Order event poll failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<OrderEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEvent> due = orderEventRepository.findDueForUpdate(now, Limit.of(batchSize));
+        for (OrderEvent event : due) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(now.plus(lease));
+        }
+        return due;
+    }
+
+    private void process(OrderEvent event) {
+        try {
+            for (OrderEventHandler handler : handlers) {
+                handler.handle(event);
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    orderEventRepository.markDone(event.getId(), LocalDateTime.now()));
+            PROCESSED.increment();
+        } catch (RuntimeException e) {
+            String error = truncate(e.toString());
+            if (event.getAttempts() >= maxAttempts) {
+                log.error("Order event {} failed {} times, giving up: {}", event.getId(), event.getAttempts(), error);
+                transactionTemplate.executeWithoutResult(status ->
+                        orderEventRepository.markFailed(event.getId(), error));
+                FAILED.increment();
+            } else {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoffFor(event.getAttempts()));
+                log.warn("Order event {} attempt {} failed, retrying at {}: {}",
+                        event.getId(), event.getAttempts(), nextAttemptAt, error);
+                transactionTemplate.executeWithoutResult(status ->
+                        orderEventRepository.markRetry(event.getId(), nextAttemptAt, error));
+                RETRIED.increment();
+            }
+        }
+    }
+
+    // backoff * 2^(attempts - 1), capped at maxBackoff
+    private Duration backoffFor(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        Duration delay = backoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private void gauge(String state, ToDoubleFunction<QueueSample> count) {
+        ToDoubleFunction<OrderEventWorker> value = worker -> {
+            QueueSample sample = worker.queueSample;
+            return sample != null ? count.applyAsDouble(sample) : Double.NaN;
+        };
+        Gauge.builder("atelier.order.events.queue", this, value).tag("state", state).register(Metrics.globalRegistry);
+    }
+
+    private record QueueSample(long pending, long due, long failed) {
+    }
+}
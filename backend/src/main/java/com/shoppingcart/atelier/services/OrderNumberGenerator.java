@@ -0,0 +1,171 @@
+package com.shoppingcart.atelier.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered, node-aware order numbers in the Snowflake layout.
+ * An ID packs 41 bits of milliseconds since 2026-01-01, a 10-bit node ID and a 12-bit
+ * per-millisecond sequence, and is rendered as 13 Crockford base32 characters plus a
+ * mod-37 check symbol, e.g. ORD-01AB2-CD3EF-GH4J7. Generation is a single CAS on one
+ * AtomicLong and formatting allocates one String.
+ */
+@Component
+public class OrderNumberGenerator {
+
+    public static final String PREFIX = "ORD-";
+
+    static final long EPOCH_MILLIS = 1_767_225_600_000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int DIGITS = 13;
+    private static final int LENGTH = PREFIX.length() + DIGITS + 3;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    // Crockford's extra check symbols for the values 32..36
+    private static final char[] CHECK_SYMBOLS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ*~$=U".toCharArray();
+
+    private final long nodeId;
+
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong last = new AtomicLong();
+
+    public OrderNumberGenerator(@Value("${app.order-numbers.node-id:-1}") long nodeId) {
+        this.nodeId = nodeId >= 0 ? nodeId : hostNodeId();
+        if (this.nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-numbers.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+
+    /**
+     * Issue the next order number
+     */
+    public String next() {
+        return format(nextId());
+    }
+
+    /**
+     * Issue the next raw 63-bit ID.
+     * Never goes backwards: if the clock does, or more than 4096 IDs are taken in one
+     * millisecond, the sequence carries into the timestamp and IDs run slightly ahead.
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long stamp = last.accumulateAndGet(now, (previous, floor) -> Math.max(previous + 1, floor));
+        long millis = stamp >>> SEQUENCE_BITS;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (stamp & SEQUENCE_MASK);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Render an ID as ORD-XXXXX-XXXXX-XXXC, where C is the mod-37 check symbol
+     */
+    public static String format(long id) {
+        char[] out = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+
+        long value = id;
+        int position = LENGTH - 2;
+        for (int digit = DIGITS - 1; digit >= 0; digit--) {
+            out[position--] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+            if (position == PREFIX.length() + 5 || position == PREFIX.length() + 11) {
+                out[position--] = '-';
+            }
+        }
+        out[LENGTH - 1] = CHECK_SYMBOLS[(int) Long.remainderUnsigned(id, 37)];
+        return new String(out);
+    }
+
+    /**
+     * Decode an order number in this generator's format
+     * @return the ID, or -1 if the string has the right shape but a bad character or check symbol
+     * @throws IllegalArgumentException if the string is not in this format at all
+     */
+    public static long parse(String orderNumber) {
+        if (!hasGeneratedShape(orderNumber)) {
+            throw new IllegalArgumentException("Not a generated order number: " + orderNumber);
+        }
+        long value = 0;
+        for (int i = PREFIX.length(); i < LENGTH - 1; i++) {
+            char c = orderNumber.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int digit = decode(c);
+            // 13 digits carry 65 bits, so the leading one may only use the low three
+            if (digit < 0 || (i == PREFIX.length() && digit > 7)) {
+                return -1;
+            }
+            value = (value << 5) | digit;
+        }
+        char check = Character.toUpperCase(orderNumber.charAt(LENGTH - 1));
+        return CHECK_SYMBOLS[(int) (value % 37)] == check ? value : -1;
+    }
+
+    /**
+     * True for strings shaped like a generated number whose check symbol does not match.
+     * Older ORD-XXXXXXXX numbers have a different shape and are never reported as malformed.
+     */
+    public static boolean isMalformed(String orderNumber) {
+        return hasGeneratedShape(orderNumber) && parse(orderNumber) < 0;
+    }
+
+    /**
+     * The number as it was issued, for a generated number typed in lowercase or with O, I or L.
+     * Older ORD-XXXXXXXX numbers are returned unchanged.
+     * @throws IllegalArgumentException if the number is malformed
+     */
+    public static String canonicalize(String orderNumber) {
+        if (!hasGeneratedShape(orderNumber)) {
+            return orderNumber;
+        }
+        long id = parse(orderNumber);
+        if (id < 0) {
+            throw new IllegalArgumentException("Malformed order number: " + orderNumber);
+        }
+        return format(id);
+    }
+
+    private static boolean hasGeneratedShape(String orderNumber) {
+        return orderNumber != null
+                && orderNumber.length() == LENGTH
+                && orderNumber.regionMatches(true, 0, PREFIX, 0, PREFIX.length())
+                && orderNumber.charAt(PREFIX.length() + 5) == '-'
+                && orderNumber.charAt(PREFIX.length() + 11) == '-';
+    }
+
+    // Crockford decoding: case-insensitive, I and L read as 1, O as 0
+    private static int decode(char c) {
+        char upper = Character.toUpperCase(c);
+        switch (upper) {
+            case 'I', 'L' -> upper = '1';
+            case 'O' -> upper = '0';
+            default -> { }
+        }
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == upper) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Without explicit configuration nodes are told apart by host name; set node-id when running several
+    private static long hostNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & MAX_NODE_ID;
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
@@ -4,30 +4,73 @@ import com.shoppingcart.atelier.dto.CreateOrderRequest;
 import com.shoppingcart.atelier.models.Cart;
 import com.shoppingcart.atelier.models.CartItem;
 import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderEvent;
 import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.repositories.OrderEventRepository;
 import com.shoppingcart.atelier.repositories.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    // Orders per keyset batch when streaming the full history
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final Counter ORDERS_PLACED = Metrics.counter("atelier.orders.placed");
+
     private final OrderRepository orderRepository;
+    private final OrderEventRepository orderEventRepository;
     private final CartService cartService;
-
+    private final StockReservationService stockReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final SalesColumnStore salesColumnStore;
+    private final OrderNumberGenerator orderNumberGenerator;
+
+    /**
+     * Create an order from the session's cart.
+     * Stock, the order and its ORDER_PLACED outbox event are written in one transaction;
+     * everything downstream of the order runs later on OrderEventWorker.
+     * @throws RuntimeException if the cart is empty or any line is out of stock
+     */
     public Order createOrderFromCart(CreateOrderRequest request) {
-        Cart cart = cartService.getCart(request.getSessionId());
+        // Forces a synchronous write-behind flush so the database cart is current.
+        // This runs before the checkout transaction so a checkout never holds two connections.
+        Cart cart = cartService.getPersistedCart(request.getSessionId())
+                .filter(c -> !c.getItems().isEmpty())
+                .orElseThrow(() -> new RuntimeException("Cannot create order from empty cart"));
+
+        Order order = transactionTemplate.execute(status -> placeOrder(request, cart));
+        ORDERS_PLACED.increment();
+        // The client reads its cart right after checkout, so clearing it stays on the request
+        cartService.clearCart(request.getSessionId());
+
+        return order;
+    }
 
-        if (cart.getItems().isEmpty()) {
-            throw new RuntimeException("Cannot create order from empty cart");
+    private Order placeOrder(CreateOrderRequest request, Cart cart) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
         }
+        stockReservationService.commit(request.getSessionId(), quantities);
 
-        String orderNumber = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String orderNumber = orderNumberGenerator.next();
 
         Order order = Order.builder()
                 .orderNumber(orderNumber)
@@ -43,9 +86,12 @@ public class OrderService {
                 .status("PENDING")
                 .build();
 
-        order = orderRepository.save(order);
-
-        for (CartItem cartItem : cart.getItems()) {
+        // Items go in product order so the reporting triggers lock rpt_product_sales rows in a fixed
+        // order even when a batch reaches the database as one statement per item
+        List<CartItem> cartItems = cart.getItems().stream()
+                .sorted(Comparator.comparing(cartItem -> cartItem.getProduct().getId()))
+                .toList();
+        for (CartItem cartItem : cartItems) {
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
                     .product(cartItem.getProduct())
@@ -56,38 +102,88 @@ public class OrderService {
             order.getItems().add(orderItem);
         }
 
+        // One persist; the order, its items and the outbox event are inserted as batches at commit
         order = orderRepository.save(order);
-        cartService.clearCart(request.getSessionId());
-
+        orderEventRepository.save(OrderEvent.builder()
+                .order(order)
+                .type(OrderEvent.ORDER_PLACED)
+                .build());
         return order;
     }
 
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findWithItemsById(id);
     }
 
     public Optional<Order> getOrderByNumber(String orderNumber) {
-        return orderRepository.findByOrderNumber(orderNumber);
-    }
-
-    public List<Order> getOrdersByCustomerId(Long customerId) {
-        return orderRepository.findByCustomerId(customerId);
-    }
-
-    public List<Order> getOrdersByStatus(String status) {
-        return orderRepository.findByStatus(status);
+        // A mistyped number fails its check symbol, so it cannot exist and needs no query
+        if (OrderNumberGenerator.isMalformed(orderNumber)) {
+            return Optional.empty();
+        }
+        // Numbers are stored as issued, while parse accepts any case and the Crockford aliases
+        return orderRepository.findWithItemsByOrderNumber(OrderNumberGenerator.canonicalize(orderNumber));
     }
 
     public Order updateOrderStatus(Long orderId, String status) {
-        return orderRepository.findById(orderId)
+        return orderRepository.findWithItemsById(orderId)
                 .map(order -> {
                     order.setStatus(status);
-                    return orderRepository.save(order);
+                    Order saved = orderRepository.save(order);
+                    salesColumnStore.onOrderStatusChanged(orderId, status);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    /**
+     * Keyset page of orders, newest first
+     * @param beforeId last order ID of the previous page, or null for the first page
+     * @param limit page size
+     * @return up to limit orders with IDs lower than beforeId
+     */
+    public List<Order> getAllOrders(Long beforeId, int limit) {
+        return loadWithItems(orderRepository.findIdsBefore(beforeId(beforeId), Limit.of(limit)));
+    }
+
+    public List<Order> getOrdersByCustomerId(Long customerId, Long beforeId, int limit) {
+        return loadWithItems(orderRepository.findIdsByCustomerIdBefore(customerId, beforeId(beforeId), Limit.of(limit)));
+    }
+
+    public List<Order> getOrdersByStatus(String status, Long beforeId, int limit) {
+        return loadWithItems(orderRepository.findIdsByStatusBefore(status, beforeId(beforeId), Limit.of(limit)));
+    }
+
+    /**
+     * Walk every order in keyset batches without holding the list in memory.
+     * Each batch loads its items and products in one query, and the persistence context is
+     * cleared after the batch so neither orders nor products pile up in it
+     * @param consumer called once per order, newest first
+     */
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<Order> consumer) {
+        Long beforeId = null;
+        while (true) {
+            List<Order> batch = getAllOrders(beforeId, STREAM_BATCH_SIZE);
+            batch.forEach(consumer);
+            entityManager.clear();
+            if (batch.size() < STREAM_BATCH_SIZE) {
+                return;
+            }
+            beforeId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    // Second query of a keyset page: fetch the graph for the page IDs and restore newest-first order
+    private List<Order> loadWithItems(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Order> orders = new ArrayList<>(orderRepository.findWithItemsByIdIn(ids));
+        orders.sort(Comparator.comparing(Order::getId).reversed());
+        return orders;
+    }
+
+    private static Long beforeId(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
     }
 }
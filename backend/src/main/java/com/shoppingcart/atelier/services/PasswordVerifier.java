@@ -0,0 +1,193 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.utils.PasswordUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt checks on a small bounded pool so a login burst cannot take every core.
+ * Submissions beyond the queue are refused with 503 instead of piling up, and recent
+ * successful checks are remembered as an HMAC of (username, password, stored hash) under a
+ * per-process random key, so a repeat login skips BCrypt without any plaintext being kept.
+ */
+@Component
+public class PasswordVerifier {
+
+    private static final Counter CACHE_HITS = Metrics.counter("atelier.auth.credential.cache", "result", "hit");
+    private static final Counter CACHE_MISSES = Metrics.counter("atelier.auth.credential.cache", "result", "miss");
+    private static final Counter REJECTED = Metrics.counter("atelier.auth.login.failures", "reason", "busy");
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final long cacheTtlNanos;
+    private final int cacheSize;
+    private final SecretKeySpec cacheKey;
+
+    // HMAC of the credentials -> System.nanoTime() at which the entry expires
+    private final Map<String, Long> verified = new ConcurrentHashMap<>();
+
+    public PasswordVerifier(@Value("${app.auth.bcrypt-threads:0}") int threads,
+                            @Value("${app.auth.bcrypt-queue:64}") int queueSize,
+                            @Value("${app.auth.bcrypt-timeout:5s}") Duration timeout,
+                            @Value("${app.auth.credential-cache-ttl:5m}") Duration cacheTtl,
+                            @Value("${app.auth.credential-cache-size:10000}") int cacheSize) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                r -> {
+                    Thread thread = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.cacheSize = cacheSize;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.cacheKey = new SecretKeySpec(key, HMAC);
+    }
+
+    /**
+     * Check whether these credentials were verified against this stored hash within the TTL
+     */
+    public boolean recentlyVerified(String username, String password, String storedHash) {
+        if (cacheTtlNanos <= 0) {
+            return false;
+        }
+        Long expiresAt = verified.get(fingerprint(username, password, storedHash));
+        if (expiresAt != null && expiresAt - System.nanoTime() > 0) {
+            CACHE_HITS.increment();
+            return true;
+        }
+        CACHE_MISSES.increment();
+        return false;
+    }
+
+    /**
+     * Verify a password with BCrypt on the bounded pool, remembering a success
+     * @return true if the password matches the stored hash
+     * @throws ResponseStatusException 503 if the pool is saturated or the check times out
+     */
+    public boolean verify(String username, String password, String storedHash) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> PasswordUtil.verifyPassword(password, storedHash));
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            throw busy();
+        }
+
+        boolean matches;
+        try {
+            matches = result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            REJECTED.increment();
+            throw busy();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password verification failed", e.getCause());
+        }
+
+        if (matches) {
+            remember(fingerprint(username, password, storedHash));
+        }
+        return matches;
+    }
+
+    /**
+     * Drop expired entries so the cache only holds live credentials
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        verified.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("cachedCredentials", verified.size());
+        stats.put("cacheCapacity", cacheSize);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void remember(String fingerprint) {
+        if (cacheTtlNanos <= 0) {
+            return;
+        }
+        if (verified.size() >= cacheSize) {
+            evictExpired();
+            if (verified.size() >= cacheSize) {
+                // Still full of live entries; the next login for this user simply pays for BCrypt
+                return;
+            }
+        }
+        verified.put(fingerprint, System.nanoTime() + cacheTtlNanos);
+    }
+
+    // The stored hash is part of the input, so a password change invalidates old entries
+    private String fingerprint(String username, String password, String storedHash) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(cacheKey);
+            for (String part : new String[]{username, password, storedHash}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                mac.update((byte) (bytes.length >>> 24));
+                mac.update((byte) (bytes.length >>> 16));
+                mac.update((byte) (bytes.length >>> 8));
+                mac.update((byte) bytes.length);
+                mac.update(bytes);
+            }
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static ResponseStatusException busy() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Login is busy, please try again shortly");
+    }
+}
@@ -0,0 +1,536 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.shoppingcart.atelier.dto.CreateProductRequest;
+import com.shoppingcart.atelier.dto.ProductImportEvent;
+import com.shoppingcart.atelier.utils.CsvReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk catalog import and export.
+ * Imports read CSV or NDJSON incrementally, validate each batch of rows in parallel against
+ * the in-memory CategoryRegistry and upsert it by p_sku with one batched INSERT ... ON CONFLICT.
+ * Exports stream every product off a server-side cursor in the same column layout, so an
+ * export can be edited and imported back.
+ */
+@Service
+public class ProductBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkService.class);
+
+    private static final Counter ROWS_IMPORTED = Metrics.counter("atelier.products.import.rows", "result", "imported");
+    private static final Counter ROWS_REJECTED = Metrics.counter("atelier.products.import.rows", "result", "rejected");
+
+    /** Column order of exports and the field names imports understand */
+    public static final List<String> COLUMNS = List.of("sku", "name", "description", "category", "categoryId",
+            "price", "costPrice", "stockQuantity", "size", "color", "gender", "imageUrl", "isActive", "isFeatured");
+
+    private static final List<String> GENDERS = List.of("MEN", "WOMEN", "UNISEX", "KIDS");
+
+    private static final String SELECT_EXISTING_SKUS = "SELECT p_sku FROM products WHERE p_sku = ANY (?)";
+
+    // Optional columns left out of a row keep their current value on update and take the
+    // same defaults as ProductService.createProduct on insert
+    private static final String UPSERT_PRODUCT = """
+            INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price, p_cost_price,
+                                  p_stock_quantity, p_size, p_color, p_gender, p_image_url, p_is_active, p_is_featured)
+            VALUES (?, ?, ?, ?, ?, ?, COALESCE(?, 0), ?, ?, ?, ?, COALESCE(?, FALSE), COALESCE(?, FALSE))
+            ON CONFLICT (p_sku) DO UPDATE SET
+                p_category_id = EXCLUDED.p_category_id,
+                p_name = EXCLUDED.p_name,
+                p_description = EXCLUDED.p_description,
+                p_price = EXCLUDED.p_price,
+                p_cost_price = COALESCE(EXCLUDED.p_cost_price, products.p_cost_price),
+                p_stock_quantity = COALESCE(?, products.p_stock_quantity),
+                p_size = COALESCE(EXCLUDED.p_size, products.p_size),
+                p_color = COALESCE(EXCLUDED.p_color, products.p_color),
+                p_gender = COALESCE(EXCLUDED.p_gender, products.p_gender),
+                p_image_url = COALESCE(EXCLUDED.p_image_url, products.p_image_url),
+                p_is_active = COALESCE(?, products.p_is_active),
+                p_is_featured = COALESCE(?, products.p_is_featured)
+            """;
+
+    private static final String SELECT_EXPORT = """
+            SELECT p.p_sku, p.p_name, p.p_description, c.c_name, p.p_category_id, p.p_price, p.p_cost_price,
+                   p.p_stock_quantity, p.p_size, p.p_color, p.p_gender, p.p_image_url, p.p_is_active, p.p_is_featured
+            FROM products p
+            LEFT JOIN categories c ON c.c_id = p.p_category_id
+            ORDER BY p.p_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final CategoryRegistry categoryRegistry;
+    private final ObjectMapper objectMapper;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final int batchSize;
+
+    public ProductBulkService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              CategoryRegistry categoryRegistry,
+                              ObjectMapper objectMapper,
+                              CatalogCache catalogCache,
+                              ProductSearchIndex searchIndex,
+                              ProductFacetIndex facetIndex,
+                              @Value("${app.product-import.batch-size:1000}") int batchSize,
+                              @Value("${app.product-import.export-fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(exportFetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.categoryRegistry = categoryRegistry;
+        this.objectMapper = objectMapper;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @throws IllegalArgumentException for anything other than csv or ndjson
+         */
+        public static Format of(String name) {
+            return switch (name == null ? "" : name.toLowerCase(Locale.ROOT)) {
+                case "csv", "text/csv" -> CSV;
+                case "ndjson", "application/x-ndjson" -> NDJSON;
+                default -> throw new IllegalArgumentException("Unsupported format: " + name);
+            };
+        }
+    }
+
+    /**
+     * Upsert every row of a CSV or NDJSON body by SKU.
+     * Rows that fail validation or the database are reported and skipped; the rest are
+     * committed one batch at a time, so an interrupted import keeps what it has written.
+     * @param events receives an error event per rejected row, a progress event per batch
+     *               and a final summary
+     */
+    public void importProducts(InputStream body, Format format, Consumer<ProductImportEvent> events) {
+        long started = System.nanoTime();
+        CategoryRegistry.Snapshot categories = categoryRegistry.snapshot();
+
+        Totals totals = new Totals();
+        RowSource source = format == Format.CSV ? new CsvSource(body) : new NdjsonSource(body);
+        try {
+            List<RawRow> batch = new ArrayList<>(batchSize);
+            RawRow row;
+            while ((row = source.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(batch, categories, totals, events);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                importBatch(batch, categories, totals, events);
+            }
+        } catch (IllegalArgumentException e) {
+            // Malformed stream (bad header, unterminated quote): nothing after this point can be read
+            events.accept(ProductImportEvent.builder()
+                    .type(ProductImportEvent.ERROR)
+                    .line(source.line())
+                    .message(e.getMessage())
+                    .build());
+        } finally {
+            if (totals.inserted + totals.updated > 0) {
+                categoryRegistry.refresh();
+                catalogCache.invalidate();
+                searchIndex.invalidate();
+                facetIndex.invalidate();
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Product import: {} rows, {} inserted, {} updated, {} rejected in {} ms",
+                totals.processed, totals.inserted, totals.updated, totals.failed, elapsedMs);
+        events.accept(totals.event(ProductImportEvent.SUMMARY, elapsedMs));
+    }
+
+    /**
+     * Stream every product, active or not, in COLUMNS order off a server-side cursor
+     * @param consumer called once per product with one value per column
+     */
+    public void exportProducts(Consumer<Object[]> consumer) {
+        // A read-only transaction lets the driver stream with a cursor instead of buffering the result
+        readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(SELECT_EXPORT, rs -> {
+            consumer.accept(new Object[]{
+                    rs.getString("p_sku"),
+                    rs.getString("p_name"),
+                    rs.getString("p_description"),
+                    rs.getString("c_name"),
+                    rs.getLong("p_category_id"),
+                    rs.getBigDecimal("p_price"),
+                    rs.getBigDecimal("p_cost_price"),
+                    rs.getInt("p_stock_quantity"),
+                    rs.getString("p_size"),
+                    rs.getString("p_color"),
+                    rs.getString("p_gender"),
+                    rs.getString("p_image_url"),
+                    rs.getBoolean("p_is_active"),
+                    rs.getBoolean("p_is_featured")
+            });
+        }));
+    }
+
+    private void importBatch(List<RawRow> batch,
+                             CategoryRegistry.Snapshot categories,
+                             Totals totals,
+                             Consumer<ProductImportEvent> events) {
+        List<ValidatedRow> validated = batch.parallelStream()
+                .map(row -> validate(row, categories))
+                .toList();
+
+        List<ValidatedRow> valid = new ArrayList<>(validated.size());
+        for (ValidatedRow row : validated) {
+            if (row.error() == null) {
+                valid.add(row);
+            } else {
+                reject(row.line(), row.sku(), row.error(), totals, events);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            try {
+                Set<String> existing = transactionTemplate.execute(status -> upsert(valid));
+                count(valid, existing, totals);
+            } catch (DataAccessException e) {
+                // Validation missed something; retry row by row so only the offending rows are lost
+                for (ValidatedRow row : valid) {
+                    try {
+                        Set<String> existing = transactionTemplate.execute(status -> upsert(List.of(row)));
+                        count(List.of(row), existing, totals);
+                    } catch (DataAccessException rowFailure) {
+                        reject(row.line(), row.sku(),
+                                NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage(), totals, events);
+                    }
+                }
+            }
+        }
+
+        totals.processed += batch.size();
+        events.accept(totals.event(ProductImportEvent.PROGRESS, null));
+    }
+
+    // Returns the SKUs that already existed, so the caller can tell inserts from updates
+    private Set<String> upsert(List<ValidatedRow> rows) {
+        String[] skus = rows.stream().map(ValidatedRow::sku).toArray(String[]::new);
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(SELECT_EXISTING_SKUS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", skus)),
+                rs -> {
+                    existing.add(rs.getString("p_sku"));
+                });
+
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, rows, rows.size(), (ps, row) -> {
+            CreateProductRequest product = row.product();
+            ps.setLong(1, row.categoryId());
+            ps.setString(2, product.getName());
+            ps.setString(3, product.getDescription());
+            ps.setString(4, product.getSku());
+            ps.setBigDecimal(5, product.getPrice());
+            ps.setObject(6, product.getCostPrice(), Types.NUMERIC);
+            setInteger(ps, 7, product.getStockQuantity());
+            ps.setString(8, product.getSize());
+            ps.setString(9, product.getColor());
+            ps.setString(10, product.getGender());
+            ps.setString(11, product.getImageUrl());
+            setBoolean(ps, 12, product.getIsActive());
+            setBoolean(ps, 13, product.getIsFeatured());
+            setInteger(ps, 14, product.getStockQuantity());
+            setBoolean(ps, 15, product.getIsActive());
+            setBoolean(ps, 16, product.getIsFeatured());
+        });
+        return existing;
+    }
+
+    private ValidatedRow validate(RawRow row, CategoryRegistry.Snapshot categories) {
+        if (row.error() != null) {
+            return ValidatedRow.rejected(row.line(), null, row.error());
+        }
+
+        ObjectNode fields = row.fields();
+        JsonNode categoryName = fields.remove("category");
+        String sku = fields.hasNonNull("sku") && fields.get("sku").isValueNode() ? fields.get("sku").asText().trim() : null;
+
+        CreateProductRequest product;
+        try {
+            product = objectMapper.treeToValue(fields, CreateProductRequest.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return ValidatedRow.rejected(row.line(), sku, "Invalid value: " + firstLine(e.getMessage()));
+        }
+        product.setSku(sku);
+        if (product.getGender() != null) {
+            product.setGender(product.getGender().toUpperCase(Locale.ROOT));
+        }
+
+        CategoryRegistry.Entry category = product.getCategoryId() != null
+                ? categories.byId().get(product.getCategoryId())
+                : categoryName != null && !categoryName.isNull()
+                        ? categories.byName().get(categoryName.asText().trim().toLowerCase(Locale.ROOT))
+                        : null;
+        Long categoryId = category != null ? category.id() : null;
+
+        String error = null;
+        if (isBlank(sku)) {
+            error = "sku is required";
+        } else if (sku.length() > 100) {
+            error = "sku is longer than 100 characters";
+        } else if (isBlank(product.getName())) {
+            error = "name is required";
+        } else if (product.getName().length() > 255) {
+            error = "name is longer than 255 characters";
+        } else if (isBlank(product.getDescription())) {
+            error = "description is required";
+        } else if (categoryId == null) {
+            error = product.getCategoryId() == null && (categoryName == null || categoryName.isNull())
+                    ? "category or categoryId is required"
+                    : "Unknown category";
+        } else if (product.getPrice() == null) {
+            error = "price is required";
+        } else if (product.getPrice().signum() < 0 || exceedsPrecision(product.getPrice())) {
+            error = "price must be between 0 and 99999999.99";
+        } else if (product.getCostPrice() != null
+                && (product.getCostPrice().signum() < 0 || exceedsPrecision(product.getCostPrice()))) {
+            error = "costPrice must be between 0 and 99999999.99";
+        } else if (product.getStockQuantity() != null && product.getStockQuantity() < 0) {
+            error = "stockQuantity must not be negative";
+        } else if (product.getGender() != null && !GENDERS.contains(product.getGender())) {
+            error = "gender must be one of " + GENDERS;
+        } else if (tooLong(product.getSize(), 50) || tooLong(product.getColor(), 50)) {
+            error = "size and color are limited to 50 characters";
+        } else if (tooLong(product.getImageUrl(), 500)) {
+            error = "imageUrl is longer than 500 characters";
+        }
+
+        return error != null
+                ? ValidatedRow.rejected(row.line(), sku, error)
+                : new ValidatedRow(row.line(), sku, product, categoryId, null);
+    }
+
+    private void count(List<ValidatedRow> rows, Set<String> existing, Totals totals) {
+        for (ValidatedRow row : rows) {
+            // A SKU repeated within the batch is an insert the first time and an update after
+            if (existing.add(row.sku())) {
+                totals.inserted++;
+            } else {
+                totals.updated++;
+            }
+        }
+        ROWS_IMPORTED.increment(rows.size());
+    }
+
+    private static void reject(long line, String sku, String message, Totals totals,
+                               Consumer<ProductImportEvent> events) {
+        totals.failed++;
+        ROWS_REJECTED.increment();
+        events.accept(ProductImportEvent.builder()
+                .type(ProductImportEvent.ERROR)
+                .line(line)
+                .sku(sku)
+                .message(message)
+                .build());
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static void setBoolean(PreparedStatement ps, int index, Boolean value) throws SQLException {
+        if (value != null) {
+            ps.setBoolean(index, value);
+        } else {
+            ps.setNull(index, Types.BOOLEAN);
+        }
+    }
+
+    // DECIMAL(10, 2)
+    private static boolean exceedsPrecision(BigDecimal value) {
+        return value.scale() > 2 || value.compareTo(new BigDecimal("99999999.99")) > 0;
+    }
+
+    private static boolean tooLong(String value, int max) {
+        return value != null && value.length() > max;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    private record RawRow(long line, ObjectNode fields, String error) {
+    }
+
+    private record ValidatedRow(long line, String sku, CreateProductRequest product, Long categoryId, String error) {
+
+        static ValidatedRow rejected(long line, String sku, String error) {
+            return new ValidatedRow(line, sku, null, null, error);
+        }
+    }
+
+    private interface RowSource {
+
+        /**
+         * @return the next row, or null at end of input
+         * @throws IllegalArgumentException if the stream cannot be read any further
+         */
+        RawRow next();
+
+        long line();
+    }
+
+    // Header row names the fields; empty cells are treated as absent
+    private final class CsvSource implements RowSource {
+
+        private final CsvReader reader;
+        private List<String> header;
+
+        CsvSource(InputStream body) {
+            this.reader = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public RawRow next() {
+            if (header == null) {
+                header = reader.next();
+                if (header == null) {
+                    return null;
+                }
+                header = header.stream().map(String::trim).toList();
+                if (!header.contains("sku")) {
+                    throw new IllegalArgumentException("CSV header must include a sku column");
+                }
+            }
+
+            List<String> values = reader.next();
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != header.size()) {
+                return new RawRow(reader.getRecordLine(), null,
+                        "Expected " + header.size() + " fields but found " + values.size());
+            }
+            ObjectNode fields = objectMapper.createObjectNode();
+            for (int i = 0; i < values.size(); i++) {
+                if (!values.get(i).isEmpty()) {
+                    fields.put(header.get(i), values.get(i));
+                }
+            }
+            return new RawRow(reader.getRecordLine(), fields, null);
+        }
+
+        @Override
+        public long line() {
+            return reader.getRecordLine();
+        }
+    }
+
+    // One JSON object per line; a line that does not parse only loses that row
+    private final class NdjsonSource implements RowSource {
+
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonSource(InputStream body) {
+            this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public RawRow next() {
+            try {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    line++;
+                    if (text.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JsonNode node = objectMapper.readTree(text);
+                        if (node instanceof ObjectNode fields) {
+                            return new RawRow(line, fields, null);
+                        }
+                        return new RawRow(line, null, "Expected a JSON object");
+                    } catch (JsonProcessingException e) {
+                        return new RawRow(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+    }
+
+    private static final class Totals {
+
+        long processed;
+        long inserted;
+        long updated;
+        long failed;
+
+        ProductImportEvent event(String type, Long elapsedMs) {
+            return ProductImportEvent.builder()
+                    .type(type)
+                    .processed(processed)
+                    .inserted(inserted)
+                    .updated(updated)
+                    .failed(failed)
+                    .elapsedMs(elapsedMs)
+                    .build();
+        }
+    }
+}
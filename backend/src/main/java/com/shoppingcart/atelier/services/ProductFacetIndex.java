@@ -0,0 +1,363 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.dto.ProductQueryRequest;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import com.shoppingcart.atelier.utils.Money;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-attribute bitsets over the active catalog.
+ * Every active product gets a dense ordinal; each attribute value owns a BitSet of the
+ * ordinals that carry it, so a combined filter is a series of ANDs and facet counts are
+ * cardinalities of the filtered sets.
+ * Indexed products are shared with the catalog snapshot and never modified here; stock changes
+ * only move inStock bits, and compaction carries those bits over rather than re-reading the entities.
+ */
+@Component
+public class ProductFacetIndex {
+
+    public static final String GENDER = "gender";
+    public static final String CATEGORY = "category";
+    public static final String SIZE = "size";
+    public static final String COLOR = "color";
+    public static final String FEATURED = "featured";
+    public static final String IN_STOCK = "inStock";
+
+    private static final List<String> ATTRIBUTES = List.of(GENDER, CATEGORY, SIZE, COLOR, FEATURED, IN_STOCK);
+    private static final int DEFAULT_LIMIT = 48;
+    private static final int MAX_LIMIT = 500;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Product> products = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> facets = new HashMap<>();
+    private long[] priceCents = new long[64];
+    private volatile boolean loaded;
+
+    public ProductFacetIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Run a combined filter and compute facet counts
+     * @param request filter values, offset and limit
+     * @return the requested page of matching products plus counts per attribute value
+     */
+    public Result query(ProductQueryRequest request) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> filters = new LinkedHashMap<>();
+            addFilter(filters, GENDER, request.getGender() == null ? null
+                    : request.getGender().stream().map(String::toUpperCase).toList());
+            addFilter(filters, CATEGORY, request.getCategoryId() == null ? null
+                    : request.getCategoryId().stream().map(String::valueOf).toList());
+            addFilter(filters, SIZE, request.getSize());
+            addFilter(filters, COLOR, request.getColor());
+            addFilter(filters, FEATURED, request.getFeatured() == null ? null : List.of(request.getFeatured().toString()));
+            addFilter(filters, IN_STOCK, request.getInStock() == null ? null : List.of(request.getInStock().toString()));
+
+            BitSet priceFilter = priceFilter(request.getMinPrice(), request.getMaxPrice());
+
+            BitSet matching = (BitSet) live.clone();
+            if (priceFilter != null) {
+                matching.and(priceFilter);
+            }
+            filters.values().forEach(matching::and);
+
+            // Each attribute's counts ignore its own filter so multi-select stays useful
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String attribute : ATTRIBUTES) {
+                BitSet base = matching;
+                if (filters.containsKey(attribute)) {
+                    base = (BitSet) live.clone();
+                    if (priceFilter != null) {
+                        base.and(priceFilter);
+                    }
+                    for (Map.Entry<String, BitSet> filter : filters.entrySet()) {
+                        if (!filter.getKey().equals(attribute)) {
+                            base.and(filter.getValue());
+                        }
+                    }
+                }
+                counts.put(attribute, countValues(attribute, base));
+            }
+
+            int offset = request.getOffset() != null ? Math.max(request.getOffset(), 0) : 0;
+            int limit = request.getLimit() != null ? Math.min(Math.max(request.getLimit(), 1), MAX_LIMIT) : DEFAULT_LIMIT;
+
+            List<Product> page = new ArrayList<>(Math.min(limit, matching.cardinality()));
+            int position = 0;
+            for (int i = matching.nextSetBit(0); i >= 0 && page.size() < limit; i = matching.nextSetBit(i + 1)) {
+                if (position++ >= offset) {
+                    page.add(products.get(i));
+                }
+            }
+
+            return new Result(page, matching.cardinality(), offset, limit, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Set the bits for a created or updated product
+     */
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            clearBits(product.getId());
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                setBits(product, isInStock(product));
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clear the bits of a deleted product
+     */
+    public void onProductDeleted(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            clearBits(productId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move products between the inStock values after a stock update that bypassed onProductSaved.
+     * Applying the same stock twice is harmless, so callers may pass products whose stock did not cross zero
+     * @param stockById the current p_stock_quantity of each product
+     */
+    public void onStockChanged(Map<Long, Integer> stockById) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            Map<String, BitSet> inStock = facets.computeIfAbsent(IN_STOCK, a -> new HashMap<>());
+            stockById.forEach((productId, stock) -> {
+                Integer ordinal = ordinals.get(productId);
+                if (ordinal == null) {
+                    return;
+                }
+                String value = String.valueOf(stock > 0);
+                String previous = String.valueOf(stock <= 0);
+                BitSet previousBits = inStock.get(previous);
+                if (previousBits != null) {
+                    previousBits.clear(ordinal);
+                    if (previousBits.isEmpty()) {
+                        inStock.remove(previous);
+                    }
+                }
+                inStock.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the index so it is rebuilt on the next query
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ordinals handed out since the last rebuild, including holes left by updates and deletes
+    int ordinalCount() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                reset();
+                for (Product product : productRepository.findByIsActiveTrue()) {
+                    setBits(product, isInStock(product));
+                }
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addFilter(Map<String, BitSet> filters, String attribute, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        BitSet union = new BitSet();
+        for (Map.Entry<String, BitSet> entry : facets.getOrDefault(attribute, Map.of()).entrySet()) {
+            for (String value : values) {
+                if (entry.getKey().equalsIgnoreCase(value)) {
+                    union.or(entry.getValue());
+                }
+            }
+        }
+        filters.put(attribute, union);
+    }
+
+    private BitSet priceFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        long min = minPrice != null ? Money.toCents(minPrice) : Long.MIN_VALUE;
+        long max = maxPrice != null ? Money.toCents(maxPrice) : Long.MAX_VALUE;
+
+        BitSet inRange = new BitSet(products.size());
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            if (priceCents[i] >= min && priceCents[i] <= max) {
+                inRange.set(i);
+            }
+        }
+        return inRange;
+    }
+
+    private Map<String, Integer> countValues(String attribute, BitSet base) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : facets.getOrDefault(attribute, Map.of()).entrySet()) {
+            BitSet intersection = (BitSet) entry.getValue().clone();
+            intersection.and(base);
+            int count = intersection.cardinality();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    private void setBits(Product product, boolean inStock) {
+        int ordinal = products.size();
+        products.add(product);
+        ordinals.put(product.getId(), ordinal);
+        live.set(ordinal);
+
+        if (ordinal >= priceCents.length) {
+            long[] grown = new long[priceCents.length * 2];
+            System.arraycopy(priceCents, 0, grown, 0, priceCents.length);
+            priceCents = grown;
+        }
+        priceCents[ordinal] = product.getPrice() != null ? Money.toCents(product.getPrice()) : 0L;
+
+        for (Map.Entry<String, String> value : attributeValues(product).entrySet()) {
+            if (value.getValue() != null) {
+                facets.computeIfAbsent(value.getKey(), a -> new HashMap<>())
+                        .computeIfAbsent(value.getValue(), v -> new BitSet())
+                        .set(ordinal);
+            }
+        }
+        facets.computeIfAbsent(IN_STOCK, a -> new HashMap<>())
+                .computeIfAbsent(String.valueOf(inStock), v -> new BitSet())
+                .set(ordinal);
+    }
+
+    private void clearBits(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        products.set(ordinal, null);
+        live.clear(ordinal);
+
+        // Stock changes move bits without touching the entity, so clear every value's bit
+        for (Map<String, BitSet> values : facets.values()) {
+            values.values().removeIf(bits -> {
+                bits.clear(ordinal);
+                return bits.isEmpty();
+            });
+        }
+    }
+
+    // Updates append a fresh ordinal, so reclaim the holes once they outnumber live products
+    private void compactIfSparse() {
+        int holes = products.size() - ordinals.size();
+        if (holes > 64 && holes > ordinals.size()) {
+            // The inStock bits may have moved since a product was indexed, so carry them over
+            BitSet stocked = facets.getOrDefault(IN_STOCK, Map.of()).getOrDefault(String.valueOf(true), new BitSet());
+            List<Product> remaining = new ArrayList<>(ordinals.size());
+            BitSet remainingStocked = new BitSet(ordinals.size());
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                if (stocked.get(i)) {
+                    remainingStocked.set(remaining.size());
+                }
+                remaining.add(products.get(i));
+            }
+            reset();
+            for (int i = 0; i < remaining.size(); i++) {
+                setBits(remaining.get(i), remainingStocked.get(i));
+            }
+        }
+    }
+
+    private void reset() {
+        products.clear();
+        ordinals.clear();
+        live.clear();
+        facets.clear();
+        priceCents = new long[64];
+    }
+
+    private static Map<String, String> attributeValues(Product product) {
+        Map<String, String> values = new HashMap<>();
+        values.put(GENDER, product.getGender() != null ? product.getGender().toUpperCase() : null);
+        values.put(CATEGORY, product.getCategory() != null ? String.valueOf(product.getCategory().getId()) : null);
+        values.put(SIZE, product.getSize());
+        values.put(COLOR, product.getColor());
+        values.put(FEATURED, String.valueOf(Boolean.TRUE.equals(product.getIsFeatured())));
+        return values;
+    }
+
+    private static boolean isInStock(Product product) {
+        return product.getStockQuantity() != null && product.getStockQuantity() > 0;
+    }
+
+    public record Result(List<Product> products,
+                         int total,
+                         int offset,
+                         int limit,
+                         Map<String, Map<String, Integer>> facets) {
+    }
+}
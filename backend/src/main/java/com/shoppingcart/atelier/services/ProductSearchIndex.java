@@ -0,0 +1,353 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over active products.
+ * Indexes name, description, color, SKU and category name with per-field weights,
+ * and answers queries with exact, prefix and single-typo term matching ranked by tf-idf.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double SKU_WEIGHT = 3.0;
+    private static final double CATEGORY_WEIGHT = 2.0;
+    private static final double COLOR_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    // Score multipliers for non-exact term matches
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double FUZZY_FACTOR = 0.3;
+
+    // Keeps query cost bounded regardless of catalog size
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Double>> postings = new HashMap<>();
+    private final NavigableSet<String> terms = new TreeSet<>();
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private volatile boolean loaded;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${app.search.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Search the index
+     * @param query free-text query
+     * @param limit maximum number of results
+     * @return matching product IDs, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            // Every query token must match; score the smallest candidate set first
+            List<Map<Long, Double>> candidates = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Map<Long, Double> matches = match(token);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                candidates.add(matches);
+            }
+            candidates.sort(Comparator.comparingInt(Map::size));
+
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            outer:
+            for (Map.Entry<Long, Double> entry : candidates.get(0).entrySet()) {
+                double score = entry.getValue();
+                for (int i = 1; i < candidates.size(); i++) {
+                    Double other = candidates.get(i).get(entry.getKey());
+                    if (other == null) {
+                        continue outer;
+                    }
+                    score += other;
+                }
+                top.add(Map.entry(entry.getKey(), score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ids.add(top.poll().getKey());
+            }
+            return ids.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index a created or updated product, replacing any previous entry
+     */
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            // Not built yet: the initial load will pick the product up from the database
+            if (!loaded) {
+                return;
+            }
+            remove(product.getId());
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a deleted product from the index
+     */
+    public void onProductDeleted(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the index so it is rebuilt on the next search, e.g. after a category rename
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                clear();
+                for (Product product : productRepository.findByIsActiveTrue()) {
+                    add(product);
+                }
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> match(String token) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        Map<Long, Double> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(scores, exact, 1.0);
+        }
+
+        int expansions = 0;
+        for (String term : terms.tailSet(token, false)) {
+            if (!term.startsWith(token) || expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            accumulate(scores, postings.get(term), PREFIX_FACTOR);
+        }
+
+        if (scores.isEmpty() && token.length() >= MIN_FUZZY_LENGTH) {
+            for (String term : fuzzyTerms(token)) {
+                accumulate(scores, postings.get(term), FUZZY_FACTOR);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Double> posting, double factor) {
+        double idf = Math.log(1.0 + (double) docTerms.size() / posting.size());
+        for (Map.Entry<Long, Double> entry : posting.entrySet()) {
+            scores.merge(entry.getKey(), entry.getValue() * idf * factor, Double::sum);
+        }
+    }
+
+    // Symmetric-delete lookup: candidates share a single-deletion variant with the token
+    private Set<String> fuzzyTerms(String token) {
+        Set<String> candidates = new HashSet<>();
+        for (String variant : deletionVariants(token)) {
+            Set<String> found = deletions.get(variant);
+            if (found != null) {
+                candidates.addAll(found);
+            }
+        }
+        candidates.removeIf(term -> !withinOneEdit(token, term));
+        return candidates;
+    }
+
+    private void add(Product product) {
+        Map<String, Double> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getSku(), SKU_WEIGHT);
+        addField(weights, product.getCategory() != null ? product.getCategory().getName() : null, CATEGORY_WEIGHT);
+        addField(weights, product.getColor(), COLOR_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            String term = entry.getKey();
+            Map<Long, Double> posting = postings.computeIfAbsent(term, t -> new HashMap<>());
+            if (posting.isEmpty()) {
+                terms.add(term);
+                for (String variant : deletionVariants(term)) {
+                    deletions.computeIfAbsent(variant, v -> new HashSet<>()).add(term);
+                }
+            }
+            posting.put(product.getId(), entry.getValue());
+        }
+        docTerms.put(product.getId(), weights.keySet());
+    }
+
+    private void remove(Long productId) {
+        Set<String> previous = docTerms.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            Map<Long, Double> posting = postings.get(term);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+                terms.remove(term);
+                for (String variant : deletionVariants(term)) {
+                    Set<String> found = deletions.get(variant);
+                    found.remove(term);
+                    if (found.isEmpty()) {
+                        deletions.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        terms.clear();
+        deletions.clear();
+        docTerms.clear();
+    }
+
+    private static void addField(Map<String, Double> weights, String value, double weight) {
+        for (String token : tokenize(value)) {
+            weights.merge(token, weight, Double::sum);
+        }
+    }
+
+    /**
+     * Lowercase, strip accents and split on anything that isn't a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // The term itself plus every string obtained by deleting one character
+    private static Set<String> deletionVariants(String term) {
+        Set<String> variants = new HashSet<>();
+        variants.add(term);
+        if (term.length() >= MIN_FUZZY_LENGTH - 1) {
+            for (int i = 0; i < term.length(); i++) {
+                variants.add(term.substring(0, i) + term.substring(i + 1));
+            }
+        }
+        return variants;
+    }
+
+    // Levenshtein distance <= 1, or a single adjacent transposition
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (Math.abs(lengthDiff) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDiff > 0) {
+            return a.substring(i + 1).equals(b.substring(i));
+        }
+        if (lengthDiff < 0) {
+            return a.substring(i).equals(b.substring(i + 1));
+        }
+        if (i >= a.length()) {
+            return true;
+        }
+        if (a.substring(i + 1).equals(b.substring(i + 1))) {
+            return true;
+        }
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1)
+                && a.charAt(i + 1) == b.charAt(i)
+                && a.substring(i + 2).equals(b.substring(i + 2));
+    }
+}
@@ -1,15 +1,27 @@
 package com.shoppingcart.atelier.services;
 
 import com.shoppingcart.atelier.dto.CreateProductRequest;
+import com.shoppingcart.atelier.dto.ProductQueryRequest;
 import com.shoppingcart.atelier.models.Category;
 import com.shoppingcart.atelier.models.Product;
 import com.shoppingcart.atelier.repositories.CategoryRepository;
 import com.shoppingcart.atelier.repositories.ProductRepository;
+import com.shoppingcart.atelier.utils.KeysetPage;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -17,17 +29,25 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final CategoryRegistry categoryRegistry;
+    private final EntityManager entityManager;
 
-    public List<Product> getAllActiveProducts() {
-        return productRepository.findByIsActiveTrue();
-    }
+    @Value("${app.search.max-results:100}")
+    private int maxSearchResults;
 
     public List<Product> getFeaturedProducts() {
-        return productRepository.findByIsFeaturedTrueAndIsActiveTrue();
+        return catalogCache.snapshot()
+                .map(CatalogCache.Snapshot::featuredProducts)
+                .orElseGet(productRepository::findByIsFeaturedTrueAndIsActiveTrue);
     }
 
     public List<Product> getLatestProducts() {
-        return productRepository.findTop4ByIsActiveTrueOrderByCreatedAtDesc();
+        return catalogCache.snapshot()
+                .map(CatalogCache.Snapshot::latestProducts)
+                .orElseGet(productRepository::findTop4ByIsActiveTrueOrderByCreatedAtDesc);
     }
 
     public Optional<Product> getProductById(Long id) {
@@ -35,15 +55,93 @@ public class ProductService {
     }
 
     public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryIdAndIsActiveTrue(categoryId);
+        return catalogCache.snapshot()
+                .map(snapshot -> snapshot.productsByCategory(categoryId))
+                .orElseGet(() -> productRepository.findByCategoryIdAndIsActiveTrue(categoryId));
     }
 
     public List<Product> getProductsByGender(String gender) {
-        return productRepository.findByGenderAndIsActiveTrue(gender.toUpperCase());
+        return catalogCache.snapshot()
+                .map(snapshot -> snapshot.productsByGender(gender))
+                .orElseGet(() -> productRepository.findByGenderAndIsActiveTrue(gender.toUpperCase()));
+    }
+
+    /**
+     * Keyset page of active products
+     * @param afterId last product ID of the previous page, or null for the first page
+     * @param limit page size
+     * @return up to limit products with IDs greater than afterId, ascending
+     */
+    public List<Product> getAllActiveProducts(Long afterId, int limit) {
+        return catalogCache.snapshot()
+                .map(snapshot -> KeysetPage.slice(snapshot.activeProducts(), Product::getId, afterId, limit))
+                .orElseGet(() -> productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        afterId(afterId), Limit.of(limit)));
+    }
+
+    public List<Product> getFeaturedProducts(Long afterId, int limit) {
+        return catalogCache.snapshot()
+                .map(snapshot -> KeysetPage.slice(snapshot.featuredProducts(), Product::getId, afterId, limit))
+                .orElseGet(() -> productRepository.findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        afterId(afterId), Limit.of(limit)));
+    }
+
+    public List<Product> getProductsByCategory(Long categoryId, Long afterId, int limit) {
+        return catalogCache.snapshot()
+                .map(snapshot -> KeysetPage.slice(snapshot.productsByCategory(categoryId), Product::getId, afterId, limit))
+                .orElseGet(() -> productRepository.findByCategoryIdAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        categoryId, afterId(afterId), Limit.of(limit)));
+    }
+
+    public List<Product> getProductsByGender(String gender, Long afterId, int limit) {
+        return catalogCache.snapshot()
+                .map(snapshot -> KeysetPage.slice(snapshot.productsByGender(gender), Product::getId, afterId, limit))
+                .orElseGet(() -> productRepository.findByGenderAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        gender.toUpperCase(), afterId(afterId), Limit.of(limit)));
+    }
+
+    /**
+     * Stream every active product off a database cursor without holding the list in memory
+     * @param consumer called once per product, in ID order
+     */
+    @Transactional(readOnly = true)
+    public void streamActiveProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamActive()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
 
     public List<Product> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(query);
+        if (!searchIndex.isEnabled()) {
+            return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(query);
+        }
+
+        List<Long> ids = searchIndex.search(query, maxSearchResults);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Resolve hits from the catalog snapshot when we have one, keeping relevance order
+        Map<Long, Product> byId = catalogCache.snapshot()
+                .map(CatalogCache.Snapshot::byId)
+                .orElseGet(() -> productRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity())));
+
+        List<Product> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    public ProductFacetIndex.Result queryProducts(ProductQueryRequest request) {
+        return facetIndex.query(request);
     }
 
     public List<Product> getAllProducts() {
@@ -70,7 +168,13 @@ public class ProductService {
                 .isFeatured(request.getIsFeatured() != null && request.getIsFeatured())
                 .build();
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        // Registry first: the catalog version bump below is what changes the category list's ETag
+        categoryRegistry.onProductSaved(saved);
+        catalogCache.onProductSaved(saved);
+        searchIndex.onProductSaved(saved);
+        facetIndex.onProductSaved(saved);
+        return saved;
     }
 
     public Product updateProduct(Long id, CreateProductRequest request) {
@@ -93,12 +197,25 @@ public class ProductService {
                     if (request.getImageUrl() != null) existing.setImageUrl(request.getImageUrl());
                     if (request.getIsActive() != null) existing.setIsActive(request.getIsActive());
                     if (request.getIsFeatured() != null) existing.setIsFeatured(request.getIsFeatured());
-                    return productRepository.save(existing);
+                    Product saved = productRepository.save(existing);
+                    categoryRegistry.onProductSaved(saved);
+                    catalogCache.onProductSaved(saved);
+                    searchIndex.onProductSaved(saved);
+                    facetIndex.onProductSaved(saved);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        categoryRegistry.onProductDeleted(id);
+        catalogCache.onProductDeleted(id);
+        searchIndex.onProductDeleted(id);
+        facetIndex.onProductDeleted(id);
+    }
+
+    private static Long afterId(Long afterId) {
+        return afterId != null ? afterId : 0L;
     }
 }
@@ -0,0 +1,157 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.dto.CustomerPurchasesReport;
+import com.shoppingcart.atelier.dto.OrderSummaryReport;
+import com.shoppingcart.atelier.dto.ProductSalesReport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rpt_* summary tables that database triggers keep current (see database/triggers.sql).
+ * Every query is a primary-key or index lookup plus joins for names, never a GROUP BY over orders.
+ */
+@Service
+public class ReportingService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReportingService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Keyset page of orders with their item counts
+     * @param status only orders in this status, or null for all
+     * @param afterId last order ID of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSummaryReport> getOrderSummaries(String status, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT o.o_id, o.o_customer_id, u.u_fullName, u.u_email, o.o_total_amount, o.o_status,
+                       o.created_at, o.o_completed_at, COALESCE(rs.rs_total_items, 0) AS total_items
+                FROM orders o
+                JOIN users u ON u.u_id = o.o_customer_id
+                LEFT JOIN rpt_order_summary rs ON rs.rs_order_id = o.o_id
+                WHERE o.o_id > ?
+                """);
+        List<Object> args = new ArrayList<>();
+        args.add(afterId != null ? afterId : 0L);
+        if (status != null) {
+            sql.append(" AND o.o_status = ?");
+            args.add(status.toUpperCase());
+        }
+        sql.append(" ORDER BY o.o_id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, row) -> OrderSummaryReport.builder()
+                .orderId(rs.getLong("o_id"))
+                .customerId(rs.getLong("o_customer_id"))
+                .customerName(rs.getString("u_fullName"))
+                .customerEmail(rs.getString("u_email"))
+                .totalAmount(rs.getBigDecimal("o_total_amount"))
+                .status(rs.getString("o_status"))
+                .orderDate(toLocalDateTime(rs.getTimestamp("created_at")))
+                .completedAt(toLocalDateTime(rs.getTimestamp("o_completed_at")))
+                .totalItems(rs.getInt("total_items"))
+                .build(), args.toArray());
+    }
+
+    /**
+     * Best-selling products by revenue, excluding cancelled orders
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSalesReport> getTopProducts(int limit) {
+        return jdbcTemplate.query("""
+                SELECT p.p_id, p.p_name, p.p_sku, c.c_name, p.p_stock_quantity,
+                       rp.rp_times_sold, rp.rp_quantity_sold, rp.rp_revenue, rp.rp_unit_price_sum
+                FROM rpt_product_sales rp
+                JOIN products p ON p.p_id = rp.rp_product_id
+                LEFT JOIN categories c ON c.c_id = p.p_category_id
+                WHERE rp.rp_times_sold > 0
+                ORDER BY rp.rp_revenue DESC
+                LIMIT ?
+                """, (rs, row) -> {
+            long timesSold = rs.getLong("rp_times_sold");
+            return ProductSalesReport.builder()
+                    .productId(rs.getLong("p_id"))
+                    .productName(rs.getString("p_name"))
+                    .sku(rs.getString("p_sku"))
+                    .categoryName(rs.getString("c_name"))
+                    .timesSold(timesSold)
+                    .totalQuantitySold(rs.getLong("rp_quantity_sold"))
+                    .totalRevenue(rs.getBigDecimal("rp_revenue"))
+                    .averageSellingPrice(average(rs.getBigDecimal("rp_unit_price_sum"), timesSold))
+                    .currentStock(rs.getInt("p_stock_quantity"))
+                    .build();
+        }, limit);
+    }
+
+    /**
+     * Customers by lifetime value, excluding cancelled orders
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerPurchasesReport> getTopCustomers(int limit) {
+        return jdbcTemplate.query("""
+                SELECT u.u_id, u.u_fullName, u.u_email,
+                       rc.rc_total_orders, rc.rc_lifetime_value, rc.rc_last_order_date
+                FROM rpt_customer_purchases rc
+                JOIN users u ON u.u_id = rc.rc_customer_id
+                WHERE rc.rc_total_orders > 0 AND u.u_type = 'CUSTOMER'
+                ORDER BY rc.rc_lifetime_value DESC
+                LIMIT ?
+                """, (rs, row) -> {
+            long totalOrders = rs.getLong("rc_total_orders");
+            BigDecimal lifetimeValue = rs.getBigDecimal("rc_lifetime_value");
+            return CustomerPurchasesReport.builder()
+                    .customerId(rs.getLong("u_id"))
+                    .customerName(rs.getString("u_fullName"))
+                    .customerEmail(rs.getString("u_email"))
+                    .totalOrders(totalOrders)
+                    .lifetimeValue(lifetimeValue)
+                    .lastOrderDate(toLocalDateTime(rs.getTimestamp("rc_last_order_date")))
+                    .averageOrderValue(average(lifetimeValue, totalOrders))
+                    .build();
+        }, limit);
+    }
+
+    /**
+     * Recompute every summary table from orders and order_items.
+     * Order writes block until it commits, so this is a recovery tool, not a routine job.
+     * @return duration and the resulting row counts
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        long started = System.nanoTime();
+        jdbcTemplate.execute("SELECT fn_rebuild_reporting()");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+        result.put("orders", count("rpt_order_summary"));
+        result.put("products", count("rpt_product_sales"));
+        result.put("customers", count("rpt_customer_purchases"));
+        return result;
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private static BigDecimal average(BigDecimal sum, long count) {
+        return count > 0 ? sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.OrderEvent;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Order pipeline stage that appends placed orders to the sales column store.
+ * The order is re-read with its lines so a cancellation that committed before the event
+ * ran is appended as cancelled.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesAnalyticsHandler implements OrderEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final SalesColumnStore salesColumnStore;
+
+    @Override
+    public void handle(OrderEvent event) {
+        if (!OrderEvent.ORDER_PLACED.equals(event.getType())) {
+            return;
+        }
+        // The store skips orders it already holds, so a redelivered event appends nothing
+        orderRepository.findWithItemsById(event.getOrder().getId())
+                .ifPresent(salesColumnStore::onOrderPlaced);
+    }
+}
@@ -0,0 +1,536 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.utils.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process columnar copy of every order line for sales analytics.
+ * Each column is a primitive array indexed by row; product, category and gender are
+ * dictionary-encoded so group-by scans accumulate into small dense arrays. Rows are loaded
+ * from order_items once at startup and appended from the order_events outbox; an order already
+ * held is never appended twice, so redelivered events are harmless. Aggregations split the
+ * rows across a ForkJoinPool and never touch the database.
+ *
+ * A single writer appends under a lock and then publishes the new row count; readers take the
+ * count first and only scan rows below it, so they never see a half-written row.
+ */
+@Component
+public class SalesColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesColumnStore.class);
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MIN_LEAF_ROWS = 1 << 16;
+    private static final String NO_GENDER = "NONE";
+
+    public enum Dimension { CATEGORY, GENDER, DAY, PRODUCT }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final ForkJoinPool pool;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Dictionary<Long> products = new Dictionary<>();
+    private final Dictionary<Long> categories = new Dictionary<>();
+    private final Dictionary<String> genders = new Dictionary<>();
+    // Order IDs are dense sequence values, so one bit per ID records which orders are held
+    private final BitSet orderIds = new BitSet();
+
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private volatile int size;
+    private volatile long minMillis = Long.MAX_VALUE;
+    private volatile long maxMillis = Long.MIN_VALUE;
+
+    // Checkouts and status changes seen before the initial load finished; guarded by writeLock
+    private boolean loaded;
+    private final List<Order> pendingOrders = new ArrayList<>();
+    private final Map<Long, Boolean> pendingCancellations = new LinkedHashMap<>();
+
+    public SalesColumnStore(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.sales-analytics.enabled:true}") boolean enabled,
+                            @Value("${app.sales-analytics.parallelism:0}") int parallelism,
+                            @Value("${app.sales-analytics.load-fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().name("sales-column-load").daemon(true).start(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Sales column store load failed, analytics stay unavailable", e);
+            }
+        });
+    }
+
+    /**
+     * Stream every order line from the database into the columns
+     */
+    public void load() {
+        long started = System.nanoTime();
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class);
+        writeLock.lock();
+        try {
+            ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, (total != null ? total : 0L) + INITIAL_CAPACITY));
+        } finally {
+            writeLock.unlock();
+        }
+
+        // A read-only transaction lets the driver stream with a cursor instead of buffering the result
+        readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query("""
+                SELECT oi.ot_order_id, oi.ot_product_id, p.p_category_id, p.p_gender,
+                       oi.ot_quantity, oi.ot_unit_price, o.created_at, o.o_status
+                FROM order_items oi
+                JOIN orders o ON o.o_id = oi.ot_order_id
+                JOIN products p ON p.p_id = oi.ot_product_id
+                """, rs -> {
+            long categoryId = rs.getLong("p_category_id");
+            appendRow(rs.getLong("ot_order_id"),
+                    rs.getLong("ot_product_id"),
+                    rs.wasNull() ? null : categoryId,
+                    rs.getString("p_gender"),
+                    rs.getInt("ot_quantity"),
+                    Money.toCents(rs.getBigDecimal("ot_unit_price")),
+                    rs.getTimestamp("created_at").toLocalDateTime(),
+                    "CANCELLED".equals(rs.getString("o_status")));
+        }));
+
+        completeLoad();
+        log.info("Loaded {} order lines into the sales column store in {} ms",
+                size, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Append a committed order's lines, unless the store already holds them
+     */
+    public void onOrderPlaced(Order order) {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!loaded) {
+                pendingOrders.add(order);
+                return;
+            }
+            appendOrder(order);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Exclude an order's lines from the totals while it is CANCELLED
+     */
+    public void onOrderStatusChanged(Long orderId, String status) {
+        if (!enabled) {
+            return;
+        }
+        boolean cancelled = "CANCELLED".equals(status);
+        writeLock.lock();
+        try {
+            if (!loaded) {
+                pendingCancellations.put(orderId, cancelled);
+                return;
+            }
+            markCancelled(orderId, cancelled);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        writeLock.lock();
+        try {
+            return loaded;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sum revenue, units and lines per group over non-cancelled lines
+     * @param from inclusive lower bound on the order date, or null
+     * @param to exclusive upper bound on the order date, or null
+     * @param limit maximum groups to return; DAY groups are returned in date order, others by revenue
+     */
+    public Result aggregate(Dimension dimension, LocalDateTime from, LocalDateTime to, int limit) {
+        long started = System.nanoTime();
+
+        // Row count first: every row below it, and every dictionary code it uses, is already published
+        int rows = size;
+        Columns snapshot = columns;
+        long fromMillis = from != null ? toMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? toMillis(to) : Long.MAX_VALUE;
+        long firstDay = Math.floorDiv(Math.max(fromMillis, minMillis), DAY_MILLIS);
+        long lastDay = Math.floorDiv(Math.min(toMillis == Long.MAX_VALUE ? maxMillis : toMillis - 1, maxMillis), DAY_MILLIS);
+
+        int keys = switch (dimension) {
+            case CATEGORY -> categories.size();
+            case GENDER -> genders.size();
+            case PRODUCT -> products.size();
+            case DAY -> rows == 0 || lastDay < firstDay ? 0 : Math.toIntExact(lastDay - firstDay + 1);
+        };
+
+        Totals totals = keys == 0 ? new Totals(0)
+                : pool.invoke(new ScanTask(snapshot, dimension, 0, rows, leafRows(rows),
+                keys, fromMillis, toMillis, firstDay));
+
+        List<Group> groups = new ArrayList<>();
+        for (int key = 0; key < keys; key++) {
+            if (totals.lines[key] > 0) {
+                groups.add(new Group(label(dimension, key, firstDay),
+                        Money.fromCents(totals.revenueCents[key]), totals.units[key], totals.lines[key]));
+            }
+        }
+        if (dimension != Dimension.DAY) {
+            groups.sort(Comparator.comparing(Group::revenue).reversed());
+        }
+        if (groups.size() > limit) {
+            groups = new ArrayList<>(groups.subList(0, limit));
+        }
+        return new Result(dimension, groups, rows, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public Map<String, Object> getStats() {
+        int rows = size;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", isLoaded());
+        stats.put("rows", rows);
+        stats.put("capacity", columns.orderId.length);
+        stats.put("bytes", (long) columns.orderId.length * Columns.BYTES_PER_ROW);
+        stats.put("products", products.size());
+        stats.put("categories", categories.size());
+        stats.put("parallelism", pool.getParallelism());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Add one order line; only the loader and the locked append paths call this
+     */
+    void appendRow(long orderId, long productId, Long categoryId, String gender, int quantity,
+                   long unitPriceCents, LocalDateTime createdAt, boolean cancelled) {
+        writeLock.lock();
+        try {
+            int row = size;
+            ensureCapacity(row + 1);
+            Columns c = columns;
+            long millis = toMillis(createdAt);
+            c.orderId[row] = orderId;
+            c.product[row] = products.encode(productId);
+            c.category[row] = categories.encode(categoryId != null ? categoryId : -1L);
+            c.gender[row] = (byte) genders.encode(gender != null ? gender.toUpperCase() : NO_GENDER);
+            c.quantity[row] = quantity;
+            c.unitPriceCents[row] = unitPriceCents;
+            c.createdAt[row] = millis;
+            c.cancelled[row] = (byte) (cancelled ? 1 : 0);
+            orderIds.set(Math.toIntExact(orderId));
+            if (millis < minMillis) {
+                minMillis = millis;
+            }
+            if (millis > maxMillis) {
+                maxMillis = millis;
+            }
+            size = row + 1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Fold in what arrived while loading, skipping orders the load already picked up
+     */
+    void completeLoad() {
+        writeLock.lock();
+        try {
+            pendingOrders.forEach(this::appendOrder);
+            pendingCancellations.forEach(this::markCancelled);
+            pendingOrders.clear();
+            pendingCancellations.clear();
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void appendOrder(Order order) {
+        if (orderIds.get(Math.toIntExact(order.getId()))) {
+            return;
+        }
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            appendRow(order.getId(),
+                    product.getId(),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getGender(),
+                    item.getQuantity(),
+                    Money.toCents(item.getUnitPrice()),
+                    order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now(),
+                    "CANCELLED".equals(order.getStatus()));
+        }
+    }
+
+    // Status changes are rare, so a scan of the order column is cheaper than an index per order
+    private void markCancelled(Long orderId, boolean cancelled) {
+        Columns c = columns;
+        byte flag = (byte) (cancelled ? 1 : 0);
+        for (int row = 0; row < size; row++) {
+            if (c.orderId[row] == orderId) {
+                c.cancelled[row] = flag;
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > columns.orderId.length) {
+            int capacity = Math.max(needed, (int) Math.min(Integer.MAX_VALUE - 8, columns.orderId.length * 2L));
+            columns = columns.grow(capacity);
+        }
+    }
+
+    private int leafRows(int rows) {
+        return Math.max(MIN_LEAF_ROWS, rows / (pool.getParallelism() * 4));
+    }
+
+    private String label(Dimension dimension, int key, long firstDay) {
+        return switch (dimension) {
+            case CATEGORY -> {
+                long id = categories.value(key);
+                yield id < 0 ? "NONE" : String.valueOf(id);
+            }
+            case GENDER -> genders.value(key);
+            case PRODUCT -> String.valueOf(products.value(key));
+            case DAY -> LocalDate.ofEpochDay(firstDay + key).toString();
+        };
+    }
+
+    // Order timestamps are zone-less, so they are treated as UTC throughout
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public record Group(String key, BigDecimal revenue, long units, long lines) {
+    }
+
+    public record Result(Dimension groupBy, List<Group> groups, int scannedRows, long elapsedMs) {
+    }
+
+    private static final class Columns {
+
+        static final int BYTES_PER_ROW = 8 + 4 + 4 + 1 + 4 + 8 + 8 + 1;
+
+        final long[] orderId;
+        final int[] product;
+        final int[] category;
+        final byte[] gender;
+        final int[] quantity;
+        final long[] unitPriceCents;
+        final long[] createdAt;
+        final byte[] cancelled;
+
+        Columns(int capacity) {
+            this(new long[capacity], new int[capacity], new int[capacity], new byte[capacity],
+                    new int[capacity], new long[capacity], new long[capacity], new byte[capacity]);
+        }
+
+        private Columns(long[] orderId, int[] product, int[] category, byte[] gender,
+                        int[] quantity, long[] unitPriceCents, long[] createdAt, byte[] cancelled) {
+            this.orderId = orderId;
+            this.product = product;
+            this.category = category;
+            this.gender = gender;
+            this.quantity = quantity;
+            this.unitPriceCents = unitPriceCents;
+            this.createdAt = createdAt;
+            this.cancelled = cancelled;
+        }
+
+        Columns grow(int capacity) {
+            return new Columns(Arrays.copyOf(orderId, capacity), Arrays.copyOf(product, capacity),
+                    Arrays.copyOf(category, capacity), Arrays.copyOf(gender, capacity),
+                    Arrays.copyOf(quantity, capacity), Arrays.copyOf(unitPriceCents, capacity),
+                    Arrays.copyOf(createdAt, capacity), Arrays.copyOf(cancelled, capacity));
+        }
+    }
+
+    /**
+     * Dense codes for distinct values; codes are written under the store's write lock and
+     * read through a copy-on-write list so scans can label groups without locking
+     */
+    private static final class Dictionary<K> {
+
+        private final Map<K, Integer> codes = new HashMap<>();
+        private final List<K> values = new CopyOnWriteArrayList<>();
+
+        int encode(K value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        K value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private static final class Totals {
+
+        final long[] revenueCents;
+        final long[] units;
+        final long[] lines;
+
+        Totals(int keys) {
+            revenueCents = new long[keys];
+            units = new long[keys];
+            lines = new long[keys];
+        }
+
+        Totals merge(Totals other) {
+            for (int key = 0; key < lines.length; key++) {
+                revenueCents[key] += other.revenueCents[key];
+                units[key] += other.units[key];
+                lines[key] += other.lines[key];
+            }
+            return this;
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<Totals> {
+
+        private final Columns c;
+        private final Dimension dimension;
+        private final int start;
+        private final int end;
+        private final int leafRows;
+        private final int keys;
+        private final long fromMillis;
+        private final long toMillis;
+        private final long firstDay;
+
+        ScanTask(Columns c, Dimension dimension, int start, int end, int leafRows,
+                 int keys, long fromMillis, long toMillis, long firstDay) {
+            this.c = c;
+            this.dimension = dimension;
+            this.start = start;
+            this.end = end;
+            this.leafRows = leafRows;
+            this.keys = keys;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.firstDay = firstDay;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (end - start <= leafRows) {
+                return scan();
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask left = new ScanTask(c, dimension, start, middle, leafRows, keys, fromMillis, toMillis, firstDay);
+            ScanTask right = new ScanTask(c, dimension, middle, end, leafRows, keys, fromMillis, toMillis, firstDay);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+
+        // One tight loop per key column so the JIT sees a single array access pattern
+        private Totals scan() {
+            Totals totals = new Totals(keys);
+            switch (dimension) {
+                case PRODUCT -> scanCoded(totals, c.product);
+                case CATEGORY -> scanCoded(totals, c.category);
+                case GENDER -> {
+                    for (int row = start; row < end; row++) {
+                        if (included(row)) {
+                            add(totals, c.gender[row] & 0xFF, row);
+                        }
+                    }
+                }
+                case DAY -> {
+                    for (int row = start; row < end; row++) {
+                        if (included(row)) {
+                            add(totals, (int) (Math.floorDiv(c.createdAt[row], DAY_MILLIS) - firstDay), row);
+                        }
+                    }
+                }
+            }
+            return totals;
+        }
+
+        private void scanCoded(Totals totals, int[] codes) {
+            for (int row = start; row < end; row++) {
+                if (included(row)) {
+                    add(totals, codes[row], row);
+                }
+            }
+        }
+
+        private boolean included(int row) {
+            long time = c.createdAt[row];
+            return c.cancelled[row] == 0 && time >= fromMillis && time < toMillis;
+        }
+
+        private void add(Totals totals, int key, int row) {
+            int quantity = c.quantity[row];
+            totals.revenueCents[key] += c.unitPriceCents[row] * quantity;
+            totals.units[key] += quantity;
+            totals.lines[key]++;
+        }
+    }
+}
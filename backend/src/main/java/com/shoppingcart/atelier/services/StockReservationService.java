@@ -0,0 +1,313 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.StockReservation;
+import com.shoppingcart.atelier.repositories.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps p_stock_quantity from being oversold without locking product rows across a checkout.
+ * Stock is only ever taken with a conditional atomic decrement (stock = stock - n WHERE stock >= n).
+ * Adding to the cart reserves the quantity for a TTL; checkout converts the session's reservations
+ * and decrements any shortfall for all order lines in a single statement, all-or-nothing.
+ * Reservations that are never checked out are returned to stock by a background sweeper.
+ * After each commit the current stock of the touched products is re-read and pushed to the facet index
+ * and the catalog snapshot.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String UPSERT_RESERVATION =
+            "INSERT INTO stock_reservations (sr_session_id, sr_product_id, sr_quantity, sr_expires_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (sr_session_id, sr_product_id) DO UPDATE SET " +
+            "sr_quantity = stock_reservations.sr_quantity + EXCLUDED.sr_quantity, " +
+            "sr_expires_at = EXCLUDED.sr_expires_at";
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductFacetIndex facetIndex;
+    private final CatalogCache catalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean reserveOnAdd;
+    private final Duration ttl;
+    private final int sweepBatchSize;
+
+    // Serializes the after-commit stock reads so an older read is never applied over a newer one
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   ProductFacetIndex facetIndex,
+                                   CatalogCache catalogCache,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.stock.reserve-on-add:true}") boolean reserveOnAdd,
+                                   @Value("${app.stock.reservation-ttl:15m}") Duration ttl,
+                                   @Value("${app.stock.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.facetIndex = facetIndex;
+        this.catalogCache = catalogCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reserveOnAdd = reserveOnAdd;
+        this.ttl = ttl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Take quantity off stock and hold it for the session's cart
+     * @throws RuntimeException if there is not enough stock
+     */
+    @Transactional
+    public void reserve(String sessionId, Long productId, int quantity) {
+        if (!reserveOnAdd || quantity <= 0) {
+            return;
+        }
+        if (adjustStock(Map.of(productId, quantity), false) == 0) {
+            rejected.increment();
+            throw new RuntimeException("Insufficient stock");
+        }
+
+        // One statement, so two concurrent first adds of a product both land on the same row
+        jdbcTemplate.update(UPSERT_RESERVATION, sessionId, productId, quantity,
+                Timestamp.valueOf(LocalDateTime.now().plus(ttl)));
+        reserved.add(quantity);
+    }
+
+    /**
+     * Give back up to quantity of the session's reservation for a product
+     */
+    @Transactional
+    public void release(String sessionId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        reservationRepository.findBySessionIdAndProductId(sessionId, productId).ifPresent(reservation -> {
+            int releasedQuantity;
+            if (reservationRepository.shrink(reservation.getId(), quantity) == 1) {
+                releasedQuantity = quantity;
+            } else if (reservationRepository.claim(reservation.getId(), reservation.getQuantity()) == 1) {
+                releasedQuantity = reservation.getQuantity();
+            } else {
+                // Claimed by a concurrent checkout or sweep, which owns the stock now
+                return;
+            }
+            restock(Map.of(productId, releasedQuantity));
+            released.add(releasedQuantity);
+        });
+    }
+
+    /**
+     * Give back every reservation the session holds
+     */
+    @Transactional
+    public void releaseAll(String sessionId) {
+        Map<Long, Integer> restock = claimAll(reservationRepository.findBySessionId(sessionId));
+        restock(restock);
+        restock.values().forEach(released::add);
+    }
+
+    /**
+     * Take stock for an order inside the caller's transaction.
+     * The session's reservations are converted first; whatever they do not cover is decremented
+     * for all lines in one conditional statement, and if any line is short the whole call fails
+     * and the caller's transaction rolls back.
+     * @param quantities ordered quantity per product ID
+     * @throws RuntimeException if any line does not have enough stock
+     */
+    @Transactional
+    public void commit(String sessionId, Map<Long, Integer> quantities) {
+        Map<Long, Integer> held = claimAll(reservationRepository.findBySessionId(sessionId));
+
+        Map<Long, Integer> shortfall = new HashMap<>();
+        Map<Long, Integer> surplus = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            int missing = quantity - held.getOrDefault(productId, 0);
+            if (missing > 0) {
+                shortfall.put(productId, missing);
+            }
+        });
+        held.forEach((productId, quantity) -> {
+            int extra = quantity - quantities.getOrDefault(productId, 0);
+            if (extra > 0) {
+                surplus.put(productId, extra);
+            }
+        });
+
+        if (!shortfall.isEmpty() && adjustStock(shortfall, false) < shortfall.size()) {
+            rejected.increment();
+            throw new RuntimeException("Insufficient stock for one or more items");
+        }
+        restock(surplus);
+        quantities.values().forEach(converted::add);
+    }
+
+    /**
+     * Return expired reservations to stock
+     */
+    @Scheduled(fixedDelayString = "${app.stock.sweep-interval-ms:30000}")
+    public void releaseExpired() {
+        int units = releaseExpiredBefore(LocalDateTime.now());
+        if (units > 0) {
+            log.info("Returned {} units from expired stock reservations", units);
+        }
+    }
+
+    /**
+     * @return the number of units returned to stock
+     */
+    public int releaseExpiredBefore(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            List<StockReservation> batch =
+                    reservationRepository.findByExpiresAtBeforeOrderByIdAsc(cutoff, Limit.of(sweepBatchSize));
+            if (batch.isEmpty()) {
+                return total;
+            }
+
+            Integer claimed = transactionTemplate.execute(status -> {
+                Map<Long, Integer> restock = claimAll(batch);
+                restock(restock);
+                int units = restock.values().stream().mapToInt(Integer::intValue).sum();
+                expired.add(units);
+                return units;
+            });
+            total += claimed != null ? claimed : 0;
+
+            if (batch.size() < sweepBatchSize || claimed == null || claimed == 0) {
+                return total;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reserveOnAdd", reserveOnAdd);
+        stats.put("reservedUnits", reserved.sum());
+        stats.put("releasedUnits", released.sum());
+        stats.put("expiredUnits", expired.sum());
+        stats.put("convertedUnits", converted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    // Delete the given reservations, returning the claimed quantity per product;
+    // a reservation changed or removed concurrently is left to whoever changed it
+    private Map<Long, Integer> claimAll(List<StockReservation> reservations) {
+        Map<Long, Integer> claimed = new HashMap<>();
+        for (StockReservation reservation : reservations) {
+            if (reservationRepository.claim(reservation.getId(), reservation.getQuantity()) == 1) {
+                claimed.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+            }
+        }
+        return claimed;
+    }
+
+    private void restock(Map<Long, Integer> quantities) {
+        if (!quantities.isEmpty()) {
+            adjustStock(quantities, true);
+        }
+    }
+
+    /**
+     * Apply per-product stock changes in one statement.
+     * Decrements only touch rows that still have enough stock, so the returned row count
+     * tells the caller whether every line succeeded. Product IDs are bound in ascending order
+     * so concurrent multi-line checkouts lock rows in the same order.
+     * @return the number of product rows updated
+     */
+    private int adjustStock(Map<Long, Integer> quantities, boolean increment) {
+        StringBuilder caseExpression = new StringBuilder("CASE p_id");
+        StringBuilder inList = new StringBuilder();
+        List<Object> caseArgs = new ArrayList<>(quantities.size() * 2);
+        List<Object> inArgs = new ArrayList<>(quantities.size());
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            caseExpression.append(" WHEN ? THEN ?");
+            caseArgs.add(productId);
+            caseArgs.add(quantity);
+            inList.append(inList.isEmpty() ? "?" : ", ?");
+            inArgs.add(productId);
+        });
+        caseExpression.append(" END");
+
+        List<Object> args = new ArrayList<>(caseArgs);
+        StringBuilder sql = new StringBuilder("UPDATE products SET p_stock_quantity = p_stock_quantity ")
+                .append(increment ? "+ " : "- ").append(caseExpression)
+                .append(" WHERE p_id IN (").append(inList).append(')');
+        args.addAll(inArgs);
+        if (!increment) {
+            sql.append(" AND p_stock_quantity >= ").append(caseExpression);
+            args.addAll(caseArgs);
+        }
+        int updated = jdbcTemplate.update(sql.toString(), args.toArray());
+        if (updated == 0 || !increment && updated < quantities.size()) {
+            // A short decrement fails the caller, whose transaction then rolls back
+            return updated;
+        }
+        onCommit(() -> publishStock(inList.toString(), inArgs));
+        return updated;
+    }
+
+    /**
+     * Push the committed stock of the given products to the facet index and the catalog snapshot.
+     * Commit callbacks of different transactions run in no fixed order, so each one reads the
+     * current stock instead of applying a value computed inside its own transaction.
+     */
+    private void publishStock(String inList, List<Object> productIds) {
+        publishLock.lock();
+        try {
+            Map<Long, Integer> stock = new HashMap<>();
+            jdbcTemplate.query("SELECT p_id, p_stock_quantity FROM products WHERE p_id IN (" + inList + ")",
+                    rs -> {
+                        stock.put(rs.getLong("p_id"), rs.getInt("p_stock_quantity"));
+                    }, productIds.toArray());
+            facetIndex.onStockChanged(stock);
+            catalogCache.onStockChanged(stock);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // A rolled-back checkout must leave the index alone, so index updates wait for the commit
+    private static void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
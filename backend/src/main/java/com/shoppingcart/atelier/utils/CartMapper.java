@@ -4,7 +4,11 @@ import com.shoppingcart.atelier.dto.CartDTO;
 import com.shoppingcart.atelier.dto.CartItemDTO;
 import com.shoppingcart.atelier.models.Cart;
 import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class CartMapper {
@@ -42,4 +46,71 @@ public class CartMapper {
                 .color(item.getProduct().getColor())
                 .build();
     }
+
+    public static CartDTO toDTO(CartState cart) {
+        if (cart == null) {
+            return null;
+        }
+
+        return CartDTO.builder()
+                .id(cart.getCartId())
+                .sessionId(cart.getSessionId())
+                .items(cart.getLines().values().stream()
+                        .map(CartMapper::lineToDTO)
+                        .collect(Collectors.toList()))
+                .totalPrice(Money.fromCents(cart.getTotalCents()))
+                .itemCount(cart.getItemCount())
+                .build();
+    }
+
+    public static CartItemDTO lineToDTO(CartLine line) {
+        if (line == null) {
+            return null;
+        }
+
+        return CartItemDTO.builder()
+                .id(line.getItemId())
+                .productId(line.getProductId())
+                .productName(line.getProductName())
+                .quantity(line.getQuantity())
+                .unitPrice(Money.fromCents(line.getUnitPriceCents()))
+                .totalPrice(Money.fromCents(line.getTotalCents()))
+                .imageUrl(line.getImageUrl())
+                .size(line.getSize())
+                .color(line.getColor())
+                .build();
+    }
+
+    /**
+     * Convert a persisted cart into live CartStore state
+     */
+    public static CartState toState(Cart cart) {
+        if (cart == null) {
+            return null;
+        }
+
+        Map<Long, CartLine> lines = new LinkedHashMap<>();
+        for (CartItem item : cart.getItems()) {
+            lines.put(item.getProduct().getId(), CartLine.builder()
+                    .itemId(item.getId())
+                    .productId(item.getProduct().getId())
+                    .productName(item.getProduct().getName())
+                    .imageUrl(item.getProduct().getImageUrl())
+                    .size(item.getProduct().getSize())
+                    .color(item.getProduct().getColor())
+                    .quantity(item.getQuantity())
+                    .unitPriceCents(Money.toCents(item.getUnitPrice()))
+                    .totalCents(Money.toCents(item.getTotalPrice()))
+                    .build());
+        }
+
+        // Totals come from the lines rather than ct_total_price/ct_item_count, which may have drifted
+        CartState state = CartState.builder()
+                .cartId(cart.getId())
+                .sessionId(cart.getSessionId())
+                .lines(lines)
+                .build();
+        state.recomputeTotals();
+        return state;
+    }
 }
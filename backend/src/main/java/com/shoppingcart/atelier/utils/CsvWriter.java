@@ -0,0 +1,69 @@
+package com.shoppingcart.atelier.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RFC 4180 CSV records to a response stream, quoting only fields that need it
+ */
+public class CsvWriter {
+
+    public static final String MEDIA_TYPE = "text/csv";
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final Writer out;
+    private int pending;
+
+    public CsvWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write one record; null fields are written empty
+     * @throws UncheckedIOException if the client has gone away
+     */
+    public void write(Object... fields) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (fields[i] != null) {
+                    writeField(fields[i].toString());
+                }
+            }
+            out.write("\r\n");
+            if (++pending >= FLUSH_EVERY) {
+                out.flush();
+                pending = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,83 @@
+package com.shoppingcart.atelier.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helpers for cursor-based keyset pagination.
+ * The cursor is an opaque encoding of the last ID on the previous page; the next page
+ * is returned in the response body and its cursor in the X-Next-Cursor header.
+ */
+public class KeysetPage {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * @param cursor cursor from a previous X-Next-Cursor header, may be null
+     * @return the last seen ID, or null for the first page
+     * @throws ResponseStatusException if the cursor is malformed
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    /**
+     * Take one page from an in-memory list that is already sorted by ascending ID
+     */
+    public static <T> List<T> slice(List<T> sortedById, Function<T, Long> idOf, Long afterId, int limit) {
+        int from = 0;
+        if (afterId != null) {
+            int low = 0;
+            int high = sortedById.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (idOf.apply(sortedById.get(mid)) <= afterId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        return sortedById.subList(from, Math.min(from + limit, sortedById.size()));
+    }
+
+    /**
+     * Build the response for one page, adding the next cursor when the page is full
+     */
+    public static <T> ResponseEntity<List<T>> respond(List<T> items, Function<T, Long> idOf, int limit) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (items.size() == limit) {
+            builder.header(NEXT_CURSOR_HEADER, encodeCursor(idOf.apply(items.get(items.size() - 1))));
+        }
+        return builder.body(items);
+    }
+}
@@ -0,0 +1,29 @@
+package com.shoppingcart.atelier.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between BigDecimal amounts and scaled-long cents.
+ * Hot-path arithmetic works on cents; BigDecimal is only used at the DTO and JDBC edges.
+ */
+public class Money {
+
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * @throws ArithmeticException if the line total overflows a long
+     */
+    public static long times(long unitCents, int quantity) {
+        return Math.multiplyExact(unitCents, quantity);
+    }
+}
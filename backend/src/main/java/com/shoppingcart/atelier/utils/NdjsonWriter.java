@@ -0,0 +1,49 @@
+package com.shoppingcart.atelier.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON document per line to a response stream
+ */
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final OutputStream out;
+    private final ObjectWriter writer;
+    private int pending;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.out = out;
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Write a single row, flushing periodically so clients see rows as they are produced
+     * @throws UncheckedIOException if the client has gone away
+     */
+    public void write(Object row) {
+        try {
+            writer.writeValue(out, row);
+            out.write('\n');
+            if (++pending >= FLUSH_EVERY) {
+                out.flush();
+                pending = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
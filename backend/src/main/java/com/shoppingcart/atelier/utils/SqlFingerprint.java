@@ -0,0 +1,22 @@
+package com.shoppingcart.atelier.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL into a fingerprint so statements that differ only in literals, IN-list
+ * length or whitespace are grouped together
+ */
+public class SqlFingerprint {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public static String of(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?+)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+}
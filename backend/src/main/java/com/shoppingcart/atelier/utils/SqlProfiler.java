@@ -0,0 +1,233 @@
+package com.shoppingcart.atelier.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * datasource-proxy listener that attributes every JDBC execution to the current HTTP request,
+ * aggregates time per SQL fingerprint and writes slow statements and over-budget requests
+ * as JSON lines to the atelier.sql.slow logger, which logback-spring.xml routes through an async appender.
+ */
+public class SqlProfiler implements QueryExecutionListener {
+
+    private static final Logger SLOW_LOG = LoggerFactory.getLogger("atelier.sql.slow");
+    private static final String START = "sqlProfiler.start";
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final long slowQueryNanos;
+    private final int maxStatements;
+    private final long maxSqlNanos;
+    private final int maxFingerprints;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Hibernate reuses the same SQL strings, so normalizing is done once per distinct statement
+    private final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+    private final Map<String, FingerprintStats> byFingerprint = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+
+    public SqlProfiler(Duration slowQueryThreshold, int maxStatements, Duration maxSqlTime, int maxFingerprints) {
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+        this.maxStatements = maxStatements;
+        this.maxSqlNanos = maxSqlTime.toNanos();
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Start attributing statements on this thread to a request
+     */
+    public RequestProfile begin(String method, String uri) {
+        RequestProfile profile = new RequestProfile(method, uri);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * Stop attributing statements, logging the request if it went over its statement or time budget
+     * @return true if the request was over budget
+     */
+    public boolean end(RequestProfile profile) {
+        CURRENT.remove();
+        boolean flagged = profile.statements > maxStatements || profile.nanos > maxSqlNanos;
+        if (flagged && SLOW_LOG.isWarnEnabled()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ts", Instant.now().toString());
+            entry.put("type", "request");
+            entry.put("request", profile.method + " " + profile.uri);
+            entry.put("statements", profile.statements);
+            entry.put("sqlMs", profile.nanos / 1e6);
+            SLOW_LOG.warn(json(entry));
+        }
+        return flagged;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START, Long.class);
+        if (start == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.statements++;
+            profile.nanos += nanos;
+        }
+
+        QueryInfo query = queryInfoList.get(0);
+        String fingerprint = fingerprint(query.getQuery());
+        FingerprintStats stats = byFingerprint.get(fingerprint);
+        if (stats == null && byFingerprint.size() < maxFingerprints) {
+            stats = byFingerprint.computeIfAbsent(fingerprint, f -> new FingerprintStats());
+        }
+        if (stats != null) {
+            stats.record(nanos);
+        } else {
+            untracked.increment();
+        }
+
+        if (nanos >= slowQueryNanos && SLOW_LOG.isWarnEnabled()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ts", Instant.now().toString());
+            entry.put("type", "statement");
+            entry.put("elapsedMs", nanos / 1e6);
+            entry.put("fingerprint", fingerprint);
+            entry.put("params", parameterShape(query));
+            entry.put("batchSize", execInfo.isBatch() ? execInfo.getBatchSize() : 1);
+            entry.put("success", execInfo.isSuccess());
+            entry.put("request", profile != null ? profile.method + " " + profile.uri : null);
+            SLOW_LOG.warn(json(entry));
+        }
+    }
+
+    /**
+     * @param by "max", "mean" or "total"
+     * @return the slowest fingerprints by the chosen measure
+     */
+    public List<Map<String, Object>> top(int limit, String by) {
+        Comparator<Map<String, Object>> order = Comparator.comparingDouble(row -> (Double) row.get(by + "Ms"));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        byFingerprint.forEach((fingerprint, stats) -> rows.add(stats.summarize(fingerprint)));
+        return rows.stream().sorted(order.reversed()).limit(limit).toList();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fingerprints", byFingerprint.size());
+        stats.put("maxFingerprints", maxFingerprints);
+        stats.put("untrackedStatements", untracked.sum());
+        stats.put("slowQueryThresholdMs", slowQueryNanos / 1e6);
+        stats.put("maxStatementsPerRequest", maxStatements);
+        stats.put("maxSqlMsPerRequest", maxSqlNanos / 1e6);
+        return stats;
+    }
+
+    public void reset() {
+        byFingerprint.clear();
+        untracked.reset();
+    }
+
+    private String fingerprint(String sql) {
+        String cached = fingerprintCache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        if (fingerprintCache.size() < maxFingerprints * 4) {
+            fingerprintCache.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    // Bind parameter types, never values
+    private static List<String> parameterShape(QueryInfo query) {
+        List<String> shape = new ArrayList<>();
+        if (!query.getParametersList().isEmpty()) {
+            for (ParameterSetOperation operation : query.getParametersList().get(0)) {
+                Object[] args = operation.getArgs();
+                Object value = args.length > 1 ? args[1] : null;
+                shape.add(value == null ? "null" : value.getClass().getSimpleName());
+            }
+        }
+        return shape;
+    }
+
+    private String json(Map<String, Object> entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            return entry.toString();
+        }
+    }
+
+    /**
+     * Statement count and SQL time of one request, only touched by the request's own thread
+     */
+    public static final class RequestProfile {
+
+        private final String method;
+        private final String uri;
+        private int statements;
+        private long nanos;
+
+        private RequestProfile(String method, String uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private static final class FingerprintStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> summarize(String fingerprint) {
+            long calls = count.sum();
+            long total = totalNanos.sum();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("fingerprint", fingerprint);
+            row.put("count", calls);
+            row.put("totalMs", total / 1e6);
+            row.put("meanMs", calls == 0 ? 0.0 : total / 1e6 / calls);
+            row.put("maxMs", maxNanos.get() / 1e6);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.shoppingcart.atelier.config;
+
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.StockReservationRepository;
+import com.shoppingcart.atelier.services.CatalogCache;
+import com.shoppingcart.atelier.services.ProductFacetIndex;
+import com.shoppingcart.atelier.services.StockReservationService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogHttpCacheFilterTests {
+
+    private static final String CACHE_CONTROL = "max-age=60, public, stale-while-revalidate=300";
+
+    private final CatalogCache catalogCache = new CatalogCache(null, true, 100);
+    private final CatalogHttpCacheFilter filter = new CatalogHttpCacheFilter(catalogCache, CACHE_CONTROL);
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithoutReachingTheController() throws Exception {
+        MockHttpServletResponse first = get("/api/products/featured", null, 200);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertEquals(CACHE_CONTROL, first.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse revalidated = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/products/featured", etag), revalidated, chain);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, revalidated.getStatus());
+        assertEquals(etag, revalidated.getHeader(HttpHeaders.ETAG));
+        assertNull(chain.getRequest(), "304 must not reach the controller");
+    }
+
+    @Test
+    void catalogWritesChangeTheEtag() throws Exception {
+        String before = get("/api/categories", null, 200).getHeader(HttpHeaders.ETAG);
+
+        catalogCache.onProductSaved(Product.builder().id(1L).isActive(true).build());
+        MockHttpServletResponse afterProductWrite = get("/api/categories", before, 200);
+        assertEquals(HttpServletResponse.SC_OK, afterProductWrite.getStatus());
+        assertNotEquals(before, afterProductWrite.getHeader(HttpHeaders.ETAG));
+
+        String beforeTouch = afterProductWrite.getHeader(HttpHeaders.ETAG);
+        catalogCache.touch();
+        assertNotEquals(beforeTouch, get("/api/categories", beforeTouch, 200).getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void committedReservationsChangeTheEtag() throws Exception {
+        // Every statement "updates" one row, and the after-commit stock re-read finds nothing to patch
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.update(Mockito.anyString(), Mockito.any(Object[].class))).thenReturn(1);
+        StockReservationService reservations = new StockReservationService(
+                Mockito.mock(StockReservationRepository.class), Mockito.mock(ProductFacetIndex.class), catalogCache,
+                jdbcTemplate, Mockito.mock(PlatformTransactionManager.class), true, Duration.ofMinutes(15), 500);
+
+        String before = get("/api/products/1", null, 200).getHeader(HttpHeaders.ETAG);
+        reservations.reserve("s-1", 1L, 1);
+
+        // Product payloads carry stockQuantity, so a revalidation after the reservation gets a fresh body
+        MockHttpServletResponse after = get("/api/products/1", before, 200);
+        assertEquals(HttpServletResponse.SC_OK, after.getStatus());
+        assertNotEquals(before, after.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void errorsAndNonCatalogRequestsAreNotCached() throws Exception {
+        assertEquals("no-store", get("/api/products/999", null, 404).getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse cart = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/cart/1", null), cart, new MockFilterChain());
+        assertNull(cart.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse export = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/products/export", null), export, new MockFilterChain());
+        assertNull(export.getHeader(HttpHeaders.ETAG));
+        assertNull(export.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse query = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/products/query", null), query, new MockFilterChain());
+        assertNull(query.getHeader(HttpHeaders.ETAG));
+        assertNull(query.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/products", null), write, new MockFilterChain());
+        assertNull(write.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse get(String uri, String ifNoneMatch, int controllerStatus) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("GET", uri, ifNoneMatch), response, (req, res) -> {
+            if (controllerStatus >= 400) {
+                ((HttpServletResponse) res).sendError(controllerStatus);
+            } else {
+                ((HttpServletResponse) res).setStatus(controllerStatus);
+            }
+        });
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
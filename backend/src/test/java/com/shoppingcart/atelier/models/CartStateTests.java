@@ -0,0 +1,102 @@
+package com.shoppingcart.atelier.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the incrementally maintained totals always equal a re-sum of the lines
+ */
+class CartStateTests {
+
+    @Test
+    void putLineAddsNewLinesAndReplacesExistingOnesByDifference() {
+        CartState state = CartState.builder().sessionId("s1").build();
+
+        state.putLine(line(1L, 2, 1_250));
+        state.putLine(line(2L, 1, 4_999));
+        assertTotals(state, 2 * 1_250 + 4_999, 3);
+
+        // Same product again replaces its line rather than adding to it
+        state.putLine(line(1L, 5, 1_250));
+        assertTotals(state, 5 * 1_250 + 4_999, 6);
+
+        state.putLine(line(2L, 1, 3_000));
+        assertTotals(state, 5 * 1_250 + 3_000, 6);
+        assertEquals(List.of(1L, 2L), List.copyOf(state.getLines().keySet()));
+    }
+
+    @Test
+    void removeLineSubtractsOnlyTheRemovedLine() {
+        CartState state = CartState.builder().sessionId("s1").build();
+        state.putLine(line(1L, 2, 1_250));
+        state.putLine(line(2L, 3, 700));
+
+        state.removeLine(1L);
+        assertTotals(state, 3 * 700, 3);
+
+        // Removing a product that has no line changes nothing
+        state.removeLine(99L);
+        assertTotals(state, 3 * 700, 3);
+
+        state.removeLine(2L);
+        assertTotals(state, 0, 0);
+    }
+
+    @Test
+    void clearLinesZeroesTheTotals() {
+        CartState state = CartState.builder().sessionId("s1").build();
+        state.putLine(line(1L, 2, 1_250));
+        state.putLine(line(2L, 3, 700));
+
+        state.clearLines();
+        assertTotals(state, 0, 0);
+
+        state.putLine(line(3L, 1, 500));
+        assertTotals(state, 500, 1);
+    }
+
+    @Test
+    void recomputeTotalsRepairsDriftedTotals() {
+        CartState state = CartState.builder().sessionId("s1").build();
+        state.putLine(line(1L, 2, 1_250));
+        state.putLine(line(2L, 3, 700));
+        state.setTotalCents(1);
+        state.setItemCount(42);
+
+        state.recomputeTotals();
+        assertTotals(state, 2 * 1_250 + 3 * 700, 5);
+    }
+
+    @Test
+    void overflowingTotalsFailInsteadOfWrapping() {
+        CartState state = CartState.builder().sessionId("s1").build();
+        state.putLine(CartLine.builder().productId(1L).quantity(1).totalCents(Long.MAX_VALUE).build());
+
+        assertThrows(ArithmeticException.class, () -> state.putLine(line(2L, 1, 1)));
+    }
+
+    private static CartLine line(Long productId, int quantity, long unitPriceCents) {
+        return CartLine.builder()
+                .productId(productId)
+                .productName("Product " + productId)
+                .quantity(quantity)
+                .unitPriceCents(unitPriceCents)
+                .totalCents(quantity * unitPriceCents)
+                .build();
+    }
+
+    // Totals must match both the expected values and a fresh re-sum of the lines
+    private static void assertTotals(CartState state, long totalCents, int itemCount) {
+        assertEquals(totalCents, state.getTotalCents());
+        assertEquals(itemCount, state.getItemCount());
+
+        CartState resummed = state.copy();
+        resummed.recomputeTotals();
+        assertEquals(resummed.getTotalCents(), state.getTotalCents());
+        assertEquals(resummed.getItemCount(), state.getItemCount());
+    }
+}
@@ -0,0 +1,54 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.shoppingcart.atelier.models.CartState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that in-memory carts expire after the TTL like Redis keys do
+ */
+class InMemoryCartStoreTests {
+
+    @Test
+    void entriesNotWrittenForTheTtlReadAsAbsent() throws Exception {
+        InMemoryCartStore cartStore = new InMemoryCartStore(Duration.ofMillis(20));
+        cartStore.putIfAbsent(CartState.builder().sessionId("s-1").itemCount(2).build());
+        Thread.sleep(50);
+
+        assertTrue(cartStore.get("s-1").isEmpty());
+        // Mutations and putIfAbsent start from scratch rather than from the expired state
+        assertNull(cartStore.compute("s-1", current -> current));
+        assertEquals(0, cartStore.putIfAbsent(CartState.builder().sessionId("s-1").build()).getItemCount());
+    }
+
+    @Test
+    void sweepDropsOnlyEntriesLastWrittenBeforeTheCutoff() {
+        InMemoryCartStore cartStore = new InMemoryCartStore(Duration.ofHours(1));
+        cartStore.putIfAbsent(CartState.builder().sessionId("old").build());
+        cartStore.putIfAbsent(CartState.builder().sessionId("touched").build());
+        long cutoff = System.nanoTime();
+
+        // A write slides the entry's expiry; a read does not
+        cartStore.compute("touched", current -> {
+            current.setItemCount(1);
+            return current;
+        });
+        cartStore.get("old");
+        cartStore.putIfAbsent(CartState.builder().sessionId("new").build());
+
+        cartStore.evictWrittenBefore(cutoff);
+        assertEquals(2, cartStore.size());
+        assertTrue(cartStore.get("old").isEmpty());
+        assertEquals(1, cartStore.get("touched").orElseThrow().getItemCount());
+        assertTrue(cartStore.get("new").isPresent());
+
+        // Nothing is older than the TTL yet
+        cartStore.evictExpired();
+        assertEquals(2, cartStore.size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.shoppingcart.atelier.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs RedisCartStore against the embedded RESP stand-in
+ */
+class RedisCartStoreTests {
+
+    private RedisStandIn standIn;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisCartStore cartStore;
+
+    @BeforeEach
+    void start() throws Exception {
+        standIn = new RedisStandIn();
+
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("localhost", standIn.getPort()), clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        cartStore = new RedisCartStore(redisTemplate, new ObjectMapper(), Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        connectionFactory.destroy();
+        standIn.close();
+    }
+
+    @Test
+    void roundTripsCartState() {
+        CartState state = CartState.builder().sessionId("s-1").build();
+        state.putLine(CartLine.builder()
+                .productId(7L)
+                .productName("Linen Shirt")
+                .quantity(2)
+                .unitPriceCents(1999)
+                .totalCents(3998)
+                .build());
+
+        assertSame(state, cartStore.putIfAbsent(state));
+
+        CartState loaded = cartStore.get("s-1").orElseThrow();
+        assertEquals(state, loaded);
+        assertEquals(3998, loaded.getTotalCents());
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingState() {
+        cartStore.putIfAbsent(CartState.builder().sessionId("s-2").itemCount(3).build());
+
+        CartState held = cartStore.putIfAbsent(CartState.builder().sessionId("s-2").itemCount(0).build());
+
+        assertEquals(3, held.getItemCount());
+    }
+
+    @Test
+    void computeReturningNullRemovesTheCart() {
+        cartStore.putIfAbsent(CartState.builder().sessionId("s-3").build());
+
+        cartStore.compute("s-3", current -> null);
+
+        assertTrue(cartStore.get("s-3").isEmpty());
+    }
+
+    @Test
+    void concurrentComputesDoNotLoseUpdates() throws Exception {
+        cartStore.putIfAbsent(CartState.builder().sessionId("s-4").build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(() -> cartStore.compute("s-4", current -> {
+                current.setItemCount(current.getItemCount() + 1);
+                return current;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(200, cartStore.get("s-4").orElseThrow().getItemCount());
+    }
+}
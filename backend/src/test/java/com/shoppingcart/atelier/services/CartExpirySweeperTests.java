@@ -0,0 +1,81 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.repositories.InMemoryCartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the sweeper deletes only expired carts, in bounded batches, and keeps the store in step
+ */
+class CartExpirySweeperTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private InMemoryCartStore cartStore;
+    private CartWriteBehind cartWriteBehind;
+    private CartExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cart-expiry;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE carts (ct_id BIGINT PRIMARY KEY, ct_session_id VARCHAR(255) UNIQUE, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (ci_id BIGINT PRIMARY KEY, " +
+                "ci_cart_id BIGINT REFERENCES carts(ct_id) ON DELETE CASCADE)");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        cartStore = new InMemoryCartStore(Duration.ofDays(7));
+        cartWriteBehind = new CartWriteBehind(cartStore, jdbcTemplate, transactionTemplate, 200);
+        sweeper = new CartExpirySweeper(jdbcTemplate, transactionTemplate, cartStore, cartWriteBehind,
+                true, Duration.ofDays(30), 2, 2);
+
+        // Carts 1-5 were last written 31-35 days ago, cart 6 yesterday
+        for (int id = 1; id <= 6; id++) {
+            LocalDateTime updatedAt = id <= 5 ? NOW.minusDays(30 + id) : NOW.minusDays(1);
+            jdbcTemplate.update("INSERT INTO carts VALUES (?, ?, ?)", id, "s" + id, Timestamp.valueOf(updatedAt));
+            jdbcTemplate.update("INSERT INTO cart_items VALUES (?, ?)", id * 10, id);
+            cartStore.putIfAbsent(CartState.builder().sessionId("s" + id).build());
+        }
+    }
+
+    @Test
+    void deletesOldestExpiredCartsInBoundedBatches() {
+        // Two batches of two per run: the four oldest go first
+        assertEquals(4, sweeper.deleteExpiredBefore(NOW.minusDays(30)));
+        assertEquals(List.of(1L, 6L), jdbcTemplate.queryForList("SELECT ct_id FROM carts ORDER BY ct_id", Long.class));
+        assertEquals(List.of(10L, 60L), jdbcTemplate.queryForList("SELECT ci_id FROM cart_items ORDER BY ci_id", Long.class));
+
+        assertEquals(1, sweeper.deleteExpiredBefore(NOW.minusDays(30)));
+        assertEquals(0, sweeper.deleteExpiredBefore(NOW.minusDays(30)));
+        assertEquals(List.of(6L), jdbcTemplate.queryForList("SELECT ct_id FROM carts", Long.class));
+        assertEquals(5L, sweeper.getStats().get("totalDeleted"));
+    }
+
+    @Test
+    void keepsStoreEntriesThatChangedSinceTheirLastFlush() {
+        cartWriteBehind.markDirty("s2");
+
+        sweeper.deleteExpiredBefore(NOW.minusDays(30));
+        sweeper.deleteExpiredBefore(NOW.minusDays(30));
+
+        assertTrue(cartStore.get("s1").isEmpty());
+        assertTrue(cartStore.get("s2").isPresent());
+        assertTrue(cartStore.get("s6").isPresent());
+    }
+}
@@ -0,0 +1,286 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.repositories.InMemoryCartStore;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs concurrent logins of one customer from many guest sessions against the real schema on an
+ * embedded PostgreSQL, and checks that every guest line ends up in a single customer cart
+ * whose totals match its items, even while the customer keeps adding to that cart.
+ */
+class CartMergeConcurrencyTests {
+
+    private static final int DEVICES = 16;
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private InMemoryCartStore cartStore;
+    private CartWriteBehind cartWriteBehind;
+    private CartMergeService cartMergeService;
+    private long userId;
+    private List<Long> productIds;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        try (var connection = postgres.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("../database/schema.sql")));
+            statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+        }
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE users, categories, products, carts, cart_items, stock_reservations CASCADE");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        cartStore = new InMemoryCartStore(Duration.ofDays(7));
+        cartWriteBehind = new CartWriteBehind(cartStore, jdbcTemplate, transactionTemplate, 200);
+        cartMergeService = new CartMergeService(jdbcTemplate, transactionTemplate, cartStore, cartWriteBehind);
+
+        userId = customer("ana");
+        long categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Tops', 'Test') RETURNING c_id", Long.class);
+        productIds = new ArrayList<>();
+        for (int i = 0; i <= DEVICES; i++) {
+            productIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price) " +
+                    "VALUES (?, ?, 'Test', ?, 10.00) RETURNING p_id", Long.class, categoryId, "P" + i, "P" + i));
+        }
+    }
+
+    @Test
+    void concurrentLoginsFromManyDevicesMergeIntoOneCart() throws Exception {
+        // Every device holds one of the shared product and two of its own, still unflushed
+        for (int device = 1; device <= DEVICES; device++) {
+            String sessionId = "guest-" + device;
+            guestCart(sessionId, Map.of(productIds.get(0), 1, productIds.get(device), 2), 1000);
+            jdbcTemplate.update("INSERT INTO stock_reservations (sr_session_id, sr_product_id, sr_quantity, sr_expires_at) " +
+                    "VALUES (?, ?, 1, CURRENT_TIMESTAMP + INTERVAL '15 minutes')", sessionId, productIds.get(0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(DEVICES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> logins = new ArrayList<>();
+        for (int device = 1; device <= DEVICES; device++) {
+            String sessionId = "guest-" + device;
+            logins.add(executor.submit(() -> {
+                start.await();
+                return cartMergeService.mergeGuestCart(userId, sessionId);
+            }));
+        }
+        start.countDown();
+        Set<String> sessions = logins.stream().map(CartMergeConcurrencyTests::join).collect(Collectors.toSet());
+        executor.shutdown();
+
+        assertEquals(1, sessions.size());
+        String customerSession = sessions.iterator().next();
+        assertEquals(1, count("SELECT COUNT(*) FROM carts"));
+        assertEquals(customerSession, jdbcTemplate.queryForObject(
+                "SELECT ct_session_id FROM carts WHERE ct_user_id = ?", String.class, userId));
+
+        Map<Long, Integer> quantities = quantities(customerSession);
+        assertEquals(DEVICES + 1, quantities.size());
+        assertEquals(DEVICES, quantities.get(productIds.get(0)));
+        for (int device = 1; device <= DEVICES; device++) {
+            assertEquals(2, quantities.get(productIds.get(device)));
+        }
+        assertTotalsMatchItems(customerSession, new BigDecimal("480.00"), 3 * DEVICES);
+
+        // Every guest's reservation is now held by the customer cart's session
+        assertEquals(List.of(Map.of("sr_session_id", customerSession, "sr_quantity", DEVICES)),
+                jdbcTemplate.queryForList("SELECT sr_session_id, sr_quantity FROM stock_reservations"));
+
+        // The store no longer serves a pre-merge copy of any of the carts
+        for (int device = 1; device <= DEVICES; device++) {
+            assertTrue(cartStore.get("guest-" + device).isEmpty());
+        }
+    }
+
+    @Test
+    void keepsTheCustomerCartPricesAndNeverMergesAnotherCustomersCart() {
+        long p0 = productIds.get(0);
+        long p1 = productIds.get(1);
+        guestCart("ana-phone", Map.of(p0, 1), 1200);
+        String customerSession = cartMergeService.mergeGuestCart(userId, "ana-phone");
+        assertEquals("ana-phone", customerSession);
+
+        guestCart("ana-laptop", Map.of(p0, 2, p1, 1), 1000);
+        assertEquals(customerSession, cartMergeService.mergeGuestCart(userId, "ana-laptop"));
+        assertEquals(Map.of(p0, 3, p1, 1), quantities(customerSession));
+        assertTotalsMatchItems(customerSession, new BigDecimal("46.00"), 4);
+
+        // Logging in again from the same session changes nothing
+        assertEquals(customerSession, cartMergeService.mergeGuestCart(userId, customerSession));
+        assertEquals(Map.of(p0, 3, p1, 1), quantities(customerSession));
+
+        // Another customer on the same browser gets a fresh cart rather than Ana's
+        long otherUserId = customer("ben");
+        String otherSession = cartMergeService.mergeGuestCart(otherUserId, customerSession);
+        assertNotEquals(customerSession, otherSession);
+        assertEquals(Map.of(), quantities(otherSession));
+        assertEquals(Map.of(p0, 3, p1, 1), quantities(customerSession));
+    }
+
+    @Test
+    void addToCartOnTheCustomerSessionDuringLoginsIsNeverLost() throws Exception {
+        long p0 = productIds.get(0);
+        long p1 = productIds.get(1);
+        long p2 = productIds.get(2);
+        int rounds = 30;
+        int addsPerRound = 10;
+        guestCart("ana-phone", Map.of(p0, 1), 1000);
+        String customerSession = cartMergeService.mergeGuestCart(userId, "ana-phone");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> flusher = executor.submit(() -> {
+            while (running.get()) {
+                cartWriteBehind.flushPending();
+            }
+            return null;
+        });
+        for (int round = 0; round < rounds; round++) {
+            String guestSession = "guest-" + round;
+            guestCart(guestSession, Map.of(p1, 1), 1000);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> shopper = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerRound; i++) {
+                    addToCart(customerSession, p2);
+                }
+                return null;
+            });
+            Future<String> login = executor.submit(() -> {
+                start.await();
+                return cartMergeService.mergeGuestCart(userId, guestSession);
+            });
+            start.countDown();
+            shopper.get();
+            assertEquals(customerSession, login.get());
+        }
+        running.set(false);
+        flusher.get();
+        executor.shutdown();
+
+        cartWriteBehind.flushPending();
+        Map<Long, Integer> expected = Map.of(p0, 1, p1, rounds, p2, rounds * addsPerRound);
+        assertEquals(expected, quantities(customerSession));
+        assertTotalsMatchItems(customerSession, new BigDecimal("10.00").multiply(BigDecimal.valueOf(1 + rounds * (1 + addsPerRound)))
+                .setScale(2), 1 + rounds * (1 + addsPerRound));
+        cartStore.get(customerSession).ifPresent(cart -> assertEquals(expected, cart.getLines().values().stream()
+                .collect(Collectors.toMap(CartLine::getProductId, CartLine::getQuantity))));
+    }
+
+    private long customer(String username) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (u_type, u_email, u_username, u_password, u_fullName) " +
+                "VALUES ('CUSTOMER', ?, ?, 'x', ?) RETURNING u_id", Long.class,
+                username + "@example.com", username, username);
+    }
+
+    // A guest cart that exists only in the store, as it would right after add-to-cart
+    private void guestCart(String sessionId, Map<Long, Integer> quantities, long unitPriceCents) {
+        CartState cart = CartState.builder().sessionId(sessionId).build();
+        quantities.forEach((productId, quantity) -> cart.putLine(line(productId, quantity, unitPriceCents)));
+        cartStore.putIfAbsent(cart);
+        cartWriteBehind.markDirty(sessionId);
+    }
+
+    // Add one unit the way CartService does: under the session lock, read the cart through from the
+    // database on a store miss, change the store copy, then mark the session dirty
+    private void addToCart(String sessionId, long productId) {
+        cartStore.withSessionsLocked(List.of(sessionId), () -> {
+            if (cartStore.get(sessionId).isEmpty()) {
+                CartState loaded = CartState.builder().sessionId(sessionId).build();
+                quantities(sessionId).forEach((id, quantity) -> loaded.putLine(line(id, quantity, 1000)));
+                cartStore.putIfAbsent(loaded);
+            }
+            return cartStore.compute(sessionId, current -> {
+                CartLine existing = current.getLines().get(productId);
+                current.putLine(line(productId, existing != null ? existing.getQuantity() + 1 : 1, 1000));
+                return current;
+            });
+        });
+        cartWriteBehind.markDirty(sessionId);
+    }
+
+    private static CartLine line(long productId, int quantity, long unitPriceCents) {
+        return CartLine.builder()
+                .productId(productId)
+                .productName("P")
+                .quantity(quantity)
+                .unitPriceCents(unitPriceCents)
+                .totalCents(unitPriceCents * quantity)
+                .build();
+    }
+
+    private Map<Long, Integer> quantities(String sessionId) {
+        return jdbcTemplate.query(
+                "SELECT ci_product_id, ci_quantity FROM cart_items JOIN carts ON ct_id = ci_cart_id WHERE ct_session_id = ?",
+                (rs, rowNum) -> Map.entry(rs.getLong(1), rs.getInt(2)), sessionId).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private void assertTotalsMatchItems(String sessionId, BigDecimal expectedTotal, int expectedCount) {
+        Map<String, Object> cart = jdbcTemplate.queryForMap(
+                "SELECT ct_total_price, ct_item_count, " +
+                "(SELECT SUM(ci_total_price) FROM cart_items WHERE ci_cart_id = ct_id) AS item_total, " +
+                "(SELECT SUM(ci_unit_price * ci_quantity) FROM cart_items WHERE ci_cart_id = ct_id) AS priced_total " +
+                "FROM carts WHERE ct_session_id = ?", sessionId);
+        assertEquals(expectedTotal, cart.get("ct_total_price"));
+        assertEquals(expectedTotal, cart.get("item_total"));
+        assertEquals(expectedTotal, cart.get("priced_total"));
+        assertEquals(expectedCount, cart.get("ct_item_count"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.shoppingcart.atelier.services;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Corrupts stored cart totals on an embedded PostgreSQL and checks that reconcile() repairs them,
+ * but leaves a cart alone when it was written between the check and the repair.
+ */
+class CartReconcilerTests {
+
+    // Small enough that the carts below span several ID ranges
+    private static final int BATCH_SIZE = 2;
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private long productId;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        try (var connection = postgres.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("../database/schema.sql")));
+            statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+        }
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE categories, products, carts, cart_items CASCADE");
+
+        long categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Tops', 'Test') RETURNING c_id", Long.class);
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price, p_stock_quantity) " +
+                "VALUES (?, 'Tee', 'Test', 'TEE', 12.50, 100) RETURNING p_id", Long.class, categoryId);
+    }
+
+    @Test
+    void repairsDriftedTotalsAndLeavesCorrectCartsAlone() {
+        long correct = cart("correct", "25.00", 2);
+        item(correct, 2, "12.50");
+        long wrongTotal = cart("wrong-total", "99.99", 3);
+        item(wrongTotal, 3, "12.50");
+        long wrongCount = cart("wrong-count", "12.50", 7);
+        item(wrongCount, 1, "12.50");
+        // Every item was removed but the totals were never written back
+        long emptied = cart("emptied", "50.00", 4);
+        long empty = cart("empty", "0.00", 0);
+
+        CartReconciler reconciler = new CartReconciler(jdbcTemplate, BATCH_SIZE);
+        assertEquals(3, reconciler.reconcile());
+
+        assertTotals(correct, "25.00", 2);
+        assertTotals(wrongTotal, "37.50", 3);
+        assertTotals(wrongCount, "12.50", 1);
+        assertTotals(emptied, "0.00", 0);
+        assertTotals(empty, "0.00", 0);
+
+        assertEquals(0, reconciler.reconcile());
+        assertEquals(Map.of("lastRunRepaired", 0L, "totalRepaired", 3L), reconciler.getStats());
+    }
+
+    @Test
+    void skipsCartsWrittenBetweenTheCheckAndTheRepair() {
+        long drifted = cart("drifted", "99.99", 9);
+        item(drifted, 2, "12.50");
+
+        // Stands in for a write-behind flush landing after the drift query has run
+        JdbcTemplate racing = new JdbcTemplate(postgres.getPostgresDatabase()) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                jdbcTemplate.update("UPDATE carts SET updated_at = updated_at + INTERVAL '1 second' WHERE ct_id = ?",
+                        drifted);
+                return super.batchUpdate(sql, batchArgs, batchSize, pss);
+            }
+        };
+
+        assertEquals(0, new CartReconciler(racing, BATCH_SIZE).reconcile());
+        assertTotals(drifted, "99.99", 9);
+
+        // The next undisturbed run picks it up
+        assertEquals(1, new CartReconciler(jdbcTemplate, BATCH_SIZE).reconcile());
+        assertTotals(drifted, "25.00", 2);
+    }
+
+    private long cart(String sessionId, String totalPrice, int itemCount) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO carts (ct_session_id, ct_total_price, ct_item_count) VALUES (?, ?, ?) RETURNING ct_id",
+                Long.class, sessionId, new BigDecimal(totalPrice), itemCount);
+    }
+
+    private void item(long cartId, int quantity, String unitPrice) {
+        BigDecimal price = new BigDecimal(unitPrice);
+        jdbcTemplate.update("INSERT INTO cart_items (ci_cart_id, ci_product_id, ci_quantity, ci_unit_price, ci_total_price) " +
+                "VALUES (?, ?, ?, ?, ?)", cartId, productId, quantity, price, price.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    private void assertTotals(long cartId, String totalPrice, int itemCount) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT ct_total_price, ct_item_count FROM carts WHERE ct_id = ?", cartId);
+        assertEquals(0, new BigDecimal(totalPrice).compareTo((BigDecimal) row.get("ct_total_price")),
+                () -> "total of cart " + cartId + " was " + row.get("ct_total_price"));
+        assertEquals(itemCount, row.get("ct_item_count"));
+    }
+}
@@ -0,0 +1,284 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.CartLine;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.repositories.InMemoryCartStore;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the cart write-behind against the real schema on an embedded PostgreSQL: upserts,
+ * removal of dropped lines, batching, failed flushes and mutations racing the flusher.
+ */
+class CartWriteBehindTests {
+
+    private static final int PRODUCTS = 6;
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private InMemoryCartStore cartStore;
+    private CartWriteBehind cartWriteBehind;
+    private List<Long> productIds;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        try (var connection = postgres.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("../database/schema.sql")));
+            statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+        }
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE categories, products, carts, cart_items CASCADE");
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        cartStore = new InMemoryCartStore(Duration.ofDays(7));
+        cartWriteBehind = new CartWriteBehind(cartStore, jdbcTemplate, transactionTemplate, 2);
+
+        long categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Tops', 'Test') RETURNING c_id", Long.class);
+        productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price) " +
+                    "VALUES (?, ?, 'Test', ?, 10.00) RETURNING p_id", Long.class, categoryId, "P" + i, "P" + i));
+        }
+    }
+
+    @Test
+    void flushUpsertsLinesAndDeletesDroppedOnes() {
+        long p0 = productIds.get(0);
+        long p1 = productIds.get(1);
+        long p2 = productIds.get(2);
+        mutate("s-1", cart -> {
+            cart.putLine(line(p0, 1));
+            cart.putLine(line(p1, 2));
+        });
+        cartWriteBehind.flush("s-1");
+        assertEquals(Map.of(p0, 1, p1, 2), quantities("s-1"));
+        assertTotalsMatchStore("s-1");
+        assertFalse(cartWriteBehind.isDirty("s-1"));
+
+        // The database ID is remembered in the store after the first flush
+        Long cartId = cartStore.get("s-1").orElseThrow().getCartId();
+        assertEquals(jdbcTemplate.queryForObject("SELECT ct_id FROM carts WHERE ct_session_id = 's-1'", Long.class), cartId);
+
+        mutate("s-1", cart -> {
+            cart.removeLine(p0);
+            cart.putLine(line(p1, 5));
+            cart.putLine(line(p2, 1));
+        });
+        cartWriteBehind.flush("s-1");
+        assertEquals(Map.of(p1, 5, p2, 1), quantities("s-1"));
+        assertTotalsMatchStore("s-1");
+
+        // An emptied cart keeps its row but loses every line
+        mutate("s-1", CartState::clearLines);
+        cartWriteBehind.flush("s-1");
+        assertEquals(Map.of(), quantities("s-1"));
+        assertEquals(1, count("SELECT COUNT(*) FROM carts"));
+        assertTotalsMatchStore("s-1");
+    }
+
+    @Test
+    void flushPendingWritesEveryDirtyCartInBatches() {
+        for (int i = 0; i < 5; i++) {
+            long productId = productIds.get(i);
+            mutate("s-" + i, cart -> cart.putLine(line(productId, 1)));
+        }
+        assertEquals(5, cartWriteBehind.getPendingCount());
+
+        cartWriteBehind.flushPending();
+
+        assertEquals(0, cartWriteBehind.getPendingCount());
+        assertEquals(5, count("SELECT COUNT(*) FROM carts"));
+        assertEquals(5, count("SELECT COUNT(*) FROM cart_items"));
+        for (int i = 0; i < 5; i++) {
+            assertTotalsMatchStore("s-" + i);
+        }
+    }
+
+    @Test
+    void failedFlushKeepsOnlyTheFailingCartDirty() {
+        // A zero-quantity line violates cart_items' check constraint
+        mutate("broken", cart -> cart.putLine(line(productIds.get(0), 0)));
+        for (int i = 0; i < 5; i++) {
+            long productId = productIds.get(i);
+            mutate("ok-" + i, cart -> cart.putLine(line(productId, 1)));
+        }
+
+        assertThrows(DataIntegrityViolationException.class, () -> cartWriteBehind.flush("broken"));
+        assertTrue(cartWriteBehind.isDirty("broken"));
+        assertEquals(0, count("SELECT COUNT(*) FROM carts"));
+
+        // A scheduled run retries the failing batch cart by cart, flushes every healthy batch and never throws
+        cartWriteBehind.flushPending();
+        assertEquals(1, cartWriteBehind.getPendingCount());
+        assertTrue(cartWriteBehind.isDirty("broken"));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Map.of(productIds.get(i), 1), quantities("ok-" + i));
+            assertTotalsMatchStore("ok-" + i);
+        }
+
+        mutate("broken", CartState::clearLines);
+        cartWriteBehind.flushPending();
+        assertEquals(0, cartWriteBehind.getPendingCount());
+        assertEquals(Map.of(), quantities("broken"));
+    }
+
+    @Test
+    void flushDropsLinesOfDeletedProducts() {
+        long p0 = productIds.get(0);
+        long p1 = productIds.get(1);
+        mutate("s-1", cart -> {
+            cart.putLine(line(p0, 1));
+            cart.putLine(line(p1, 2));
+        });
+        cartWriteBehind.flush("s-1");
+
+        // Deleting the product cascades its cart_items row away, but the store copy still holds the line
+        jdbcTemplate.update("DELETE FROM products WHERE p_id = ?", p1);
+        mutate("s-1", cart -> cart.putLine(line(p0, 3)));
+        cartWriteBehind.flush("s-1");
+
+        assertFalse(cartWriteBehind.isDirty("s-1"));
+        assertEquals(Map.of(p0, 3), quantities("s-1"));
+        assertEquals(Set.of(p0), cartStore.get("s-1").orElseThrow().getLines().keySet());
+        assertTotalsMatchStore("s-1");
+    }
+
+    @Test
+    void mutationsRacingTheFlusherAreNeverLost() throws Exception {
+        int sessions = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(sessions + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean mutating = new AtomicBoolean(true);
+
+        Future<?> flusher = executor.submit(() -> {
+            start.await();
+            while (mutating.get()) {
+                cartWriteBehind.flushPending();
+            }
+            return null;
+        });
+        List<Future<?>> shoppers = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            String sessionId = "race-" + s;
+            shoppers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 300; i++) {
+                    long productId = productIds.get(random.nextInt(PRODUCTS));
+                    if (random.nextInt(4) == 0) {
+                        mutate(sessionId, cart -> cart.removeLine(productId));
+                    } else {
+                        mutate(sessionId, cart -> cart.putLine(line(productId, 1 + random.nextInt(5))));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> shopper : shoppers) {
+            shopper.get();
+        }
+        mutating.set(false);
+        flusher.get();
+        executor.shutdown();
+
+        // Whatever the flusher read mid-mutation, the last mutation left its session dirty
+        cartWriteBehind.flushPending();
+        for (int s = 0; s < sessions; s++) {
+            String sessionId = "race-" + s;
+            CartState stored = cartStore.get(sessionId).orElseThrow();
+            Map<Long, Integer> expected = stored.getLines().values().stream()
+                    .collect(Collectors.toMap(CartLine::getProductId, CartLine::getQuantity));
+            assertEquals(expected, quantities(sessionId));
+            assertTotalsMatchStore(sessionId);
+        }
+    }
+
+    // Mutate like CartService does: change the store copy, then mark the session dirty
+    private void mutate(String sessionId, Consumer<CartState> change) {
+        cartStore.compute(sessionId, current -> {
+            CartState cart = current != null ? current : CartState.builder().sessionId(sessionId).build();
+            change.accept(cart);
+            return cart;
+        });
+        cartWriteBehind.markDirty(sessionId);
+    }
+
+    private static CartLine line(long productId, int quantity) {
+        return CartLine.builder()
+                .productId(productId)
+                .productName("P")
+                .quantity(quantity)
+                .unitPriceCents(1000)
+                .totalCents(1000L * quantity)
+                .build();
+    }
+
+    private Map<Long, Integer> quantities(String sessionId) {
+        return jdbcTemplate.query(
+                "SELECT ci_product_id, ci_quantity FROM cart_items JOIN carts ON ct_id = ci_cart_id WHERE ct_session_id = ?",
+                (rs, rowNum) -> Map.entry(rs.getLong(1), rs.getInt(2)), sessionId).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private void assertTotalsMatchStore(String sessionId) {
+        CartState stored = cartStore.get(sessionId).orElseThrow();
+        Map<String, Object> cart = jdbcTemplate.queryForMap(
+                "SELECT ct_total_price, ct_item_count, " +
+                "(SELECT COALESCE(SUM(ci_total_price), 0) FROM cart_items WHERE ci_cart_id = ct_id) AS item_total " +
+                "FROM carts WHERE ct_session_id = ?", sessionId);
+        BigDecimal expected = BigDecimal.valueOf(stored.getTotalCents(), 2);
+        assertEquals(0, expected.compareTo((BigDecimal) cart.get("ct_total_price")));
+        assertEquals(0, expected.compareTo((BigDecimal) cart.get("item_total")));
+        assertEquals(stored.getItemCount(), cart.get("ct_item_count"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
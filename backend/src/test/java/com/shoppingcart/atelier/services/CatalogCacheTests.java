@@ -0,0 +1,135 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that product writes racing a snapshot load are never lost from the installed snapshot,
+ * that concurrent misses share one load, and that stock changes are patched in as copies
+ */
+class CatalogCacheTests {
+
+    private final List<Product> table = new ArrayList<>();
+    private final List<Runnable> duringLoad = new ArrayList<>();
+
+    private ProductRepository repository;
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        table.add(product(1L, "Shirt"));
+        table.add(product(2L, "Scarf"));
+
+        repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.countByIsActiveTrue()).thenAnswer(invocation -> (long) table.size());
+        Mockito.when(repository.findByIsActiveTrue()).thenAnswer(invocation -> {
+            List<Product> rows = List.copyOf(table);
+            // Writes that land after the rows were read but before the snapshot is installed
+            duringLoad.forEach(Runnable::run);
+            duringLoad.clear();
+            return rows;
+        });
+        catalogCache = new CatalogCache(repository, true, 1000);
+    }
+
+    @Test
+    void writeDuringLoadIsNotHiddenByTheStaleSnapshot() {
+        Product renamed = product(1L, "Linen shirt");
+        duringLoad.add(() -> {
+            table.set(0, renamed);
+            catalogCache.onProductSaved(renamed);
+        });
+
+        // The racing load may serve its own rows once, but must not keep them
+        catalogCache.snapshot();
+
+        CatalogCache.Snapshot snapshot = catalogCache.snapshot().orElseThrow();
+        assertEquals("Linen shirt", snapshot.byId().get(1L).getName());
+        assertEquals(catalogCache.getVersion(), snapshot.version());
+    }
+
+    @Test
+    void writesAfterInstallPatchTheSnapshotAndAdvanceItsVersion() {
+        CatalogCache.Snapshot loaded = catalogCache.snapshot().orElseThrow();
+        assertEquals(catalogCache.getVersion(), loaded.version());
+
+        catalogCache.onProductSaved(product(3L, "Coat"));
+        catalogCache.onProductDeleted(2L);
+
+        CatalogCache.Snapshot patched = catalogCache.snapshot().orElseThrow();
+        assertEquals(List.of(1L, 3L), patched.activeProducts().stream().map(Product::getId).toList());
+        assertEquals(catalogCache.getVersion(), patched.version());
+        assertTrue(patched.version() > loaded.version());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        duringLoad.add(() -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Optional<CatalogCache.Snapshot>>> reads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            reads.add(executor.submit(catalogCache::snapshot));
+        }
+        loading.await();
+        release.countDown();
+        for (Future<Optional<CatalogCache.Snapshot>> read : reads) {
+            assertEquals(2, read.get().orElseThrow().activeProducts().size());
+        }
+        executor.shutdown();
+
+        Mockito.verify(repository, Mockito.times(1)).findByIsActiveTrue();
+    }
+
+    @Test
+    void stockChangesPatchCopiesAndAdvanceTheVersion() {
+        CatalogCache.Snapshot loaded = catalogCache.snapshot().orElseThrow();
+        Product shirt = loaded.byId().get(1L);
+
+        catalogCache.onStockChanged(Map.of(1L, 7));
+
+        CatalogCache.Snapshot patched = catalogCache.snapshot().orElseThrow();
+        assertEquals(7, patched.byId().get(1L).getStockQuantity());
+        assertEquals(7, patched.activeProducts().get(0).getStockQuantity());
+        assertEquals(catalogCache.getVersion(), patched.version());
+        assertTrue(patched.version() > loaded.version());
+        // The loaded entity may still be serialized under the old version, so it is left alone
+        assertEquals(5, shirt.getStockQuantity());
+    }
+
+    private static Product product(Long id, String name) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .sku("SKU-" + id)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(5)
+                .isActive(true)
+                .build();
+    }
+}
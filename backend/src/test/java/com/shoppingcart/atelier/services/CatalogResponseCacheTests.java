@@ -0,0 +1,114 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import com.shoppingcart.atelier.utils.ProductMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogResponseCacheTests {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<Product> products = new ArrayList<>();
+
+    private CatalogCache catalogCache;
+    private CatalogResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 40; id++) {
+            products.add(Product.builder()
+                    .id(id)
+                    .name("Product " + id)
+                    .description("A reasonably long description so the listing crosses the gzip threshold")
+                    .sku("SKU-" + id)
+                    .price(new BigDecimal("19.99"))
+                    .gender(id % 2 == 0 ? "WOMEN" : "MEN")
+                    .isFeatured(id % 4 == 0)
+                    .isActive(true)
+                    .build());
+        }
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.countByIsActiveTrue()).thenAnswer(invocation -> (long) products.size());
+        Mockito.when(repository.findByIsActiveTrue()).thenAnswer(invocation -> List.copyOf(products));
+
+        catalogCache = new CatalogCache(repository, true, 1000);
+        responseCache = new CatalogResponseCache(catalogCache, objectMapper, true, true);
+    }
+
+    @Test
+    void servesTheSameJsonTheMappingPathProduces() throws Exception {
+        assertTrue(responseCache.rebuild());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCache.byGender("women").orElseThrow().writeTo(new MockHttpServletRequest(), response);
+
+        byte[] expected = objectMapper.writeValueAsBytes(catalogCache.snapshot().orElseThrow()
+                .productsByGender("WOMEN").stream().map(ProductMapper::toDTO).toList());
+        assertArrayEquals(expected, response.getContentAsByteArray());
+        assertEquals("application/json", response.getContentType());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void gzipVariantIsUsedOnlyWhenAccepted() throws Exception {
+        assertTrue(responseCache.rebuild());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        MockHttpServletResponse gzipped = new MockHttpServletResponse();
+        responseCache.byGender("MEN").orElseThrow().writeTo(request, gzipped);
+
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        responseCache.byGender("MEN").orElseThrow().writeTo(new MockHttpServletRequest(), plain);
+
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeader(HttpHeaders.VARY));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes());
+        }
+        assertFalse(CatalogResponseCache.Body.acceptsGzip("gzip;q=0, identity"));
+    }
+
+    @Test
+    void catalogWritesRetireTheBodiesUntilTheyAreRebuilt() {
+        assertTrue(responseCache.rebuild());
+        assertTrue(responseCache.featured().isPresent());
+
+        catalogCache.onProductSaved(products.get(0));
+        assertTrue(responseCache.featured().isEmpty(), "stale bodies must not be served");
+
+        catalogCache.touch();
+        assertTrue(responseCache.rebuild());
+        assertTrue(responseCache.latest().isPresent());
+        assertEquals("[]", new String(bodyOf(responseCache.byGender("unisex").orElseThrow())));
+    }
+
+    private static byte[] bodyOf(CatalogResponseCache.Body body) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            body.writeTo(new MockHttpServletRequest(), response);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response.getContentAsByteArray();
+    }
+}
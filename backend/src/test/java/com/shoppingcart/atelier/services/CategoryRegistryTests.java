@@ -0,0 +1,92 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that product writes keep the registry's per-category counts in step with the table
+ */
+class CategoryRegistryTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+    private CategoryRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:category-registry;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE categories (c_id BIGINT PRIMARY KEY, c_name VARCHAR(100), c_description VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE products (p_id BIGINT PRIMARY KEY, p_category_id BIGINT, p_is_active BOOLEAN)");
+        jdbcTemplate.update("INSERT INTO categories VALUES (1, 'Women', 'w'), (2, 'accessories', 'a'), (3, 'Gifts', 'g')");
+        jdbcTemplate.update("INSERT INTO products VALUES (10, 1, TRUE), (11, 1, TRUE), (12, 2, TRUE), (13, 2, FALSE)");
+        registry = new CategoryRegistry(jdbcTemplate, objectMapper);
+    }
+
+    @Test
+    void loadsCountsAndResolvesNamesCaseInsensitively() throws Exception {
+        assertEquals(List.of("accessories", "Gifts", "Women"),
+                registry.getCategories().stream().map(CategoryRegistry.Entry::name).toList());
+        assertEquals(2, registry.getById(1L).orElseThrow().productCount());
+        assertEquals(2L, registry.getByName(" ACCESSORIES ").orElseThrow().id());
+        assertTrue(registry.getByName("Shoes").isEmpty());
+
+        JsonNode json = objectMapper.readTree(registry.snapshot().json());
+        assertEquals(3, json.size());
+        assertEquals("accessories", json.get(0).get("name").asText());
+        assertEquals(1, json.get(0).get("productCount").asInt());
+    }
+
+    @Test
+    void productWritesMoveCountsWithoutReloading() {
+        registry.snapshot();
+
+        registry.onProductSaved(product(11L, 3L, true));   // moved Women -> Gifts
+        registry.onProductSaved(product(13L, 2L, true));   // activated
+        registry.onProductSaved(product(14L, 3L, true));   // created
+        registry.onProductSaved(product(12L, 2L, false));  // deactivated
+        registry.onProductDeleted(10L);
+
+        assertEquals(0, registry.getById(1L).orElseThrow().productCount());
+        assertEquals(1, registry.getById(2L).orElseThrow().productCount());
+        assertEquals(2, registry.getById(3L).orElseThrow().productCount());
+
+        // A save that changes nothing the registry tracks keeps the same snapshot
+        CategoryRegistry.Snapshot before = registry.snapshot();
+        registry.onProductSaved(product(14L, 3L, true));
+        assertSame(before, registry.snapshot());
+
+        // The same writes applied to the table give the same counts after a reload
+        jdbcTemplate.update("UPDATE products SET p_category_id = 3 WHERE p_id = 11");
+        jdbcTemplate.update("UPDATE products SET p_is_active = TRUE WHERE p_id = 13");
+        jdbcTemplate.update("UPDATE products SET p_is_active = FALSE WHERE p_id = 12");
+        jdbcTemplate.update("INSERT INTO products VALUES (14, 3, TRUE)");
+        jdbcTemplate.update("DELETE FROM products WHERE p_id = 10");
+        List<CategoryRegistry.Entry> incremental = registry.getCategories();
+        registry.refresh();
+        assertEquals(incremental, registry.getCategories());
+    }
+
+    private static Product product(Long id, Long categoryId, boolean active) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setIsActive(active);
+        return product;
+    }
+}
@@ -0,0 +1,45 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.OrderEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process OrderEventHandler for tests.
+ * Records how often each order's event was handled and can be told to fail an order a number of times.
+ */
+public class FakeOrderEventConsumer implements OrderEventHandler {
+
+    private final Map<Long, AtomicInteger> handled = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+
+    @Override
+    public void handle(OrderEvent event) {
+        Long orderId = event.getOrder().getId();
+        AtomicInteger failures = failuresLeft.get(orderId);
+        if (failures != null && failures.getAndDecrement() > 0) {
+            throw new IllegalStateException("Simulated failure for order " + orderId);
+        }
+        handled.computeIfAbsent(orderId, id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void failTimes(Long orderId, int times) {
+        failuresLeft.put(orderId, new AtomicInteger(times));
+    }
+
+    public int timesHandled(Long orderId) {
+        AtomicInteger count = handled.get(orderId);
+        return count != null ? count.get() : 0;
+    }
+
+    public int totalHandled() {
+        return handled.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public void reset() {
+        handled.clear();
+        failuresLeft.clear();
+    }
+}
@@ -0,0 +1,113 @@
+package com.shoppingcart.atelier.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks BCrypt admission control, the verified-credential cache and the login token buckets
+ */
+class LoginThrottlingTests {
+
+    private final PasswordVerifier verifier = new PasswordVerifier(1, 1, Duration.ofSeconds(30), Duration.ofMinutes(5), 100);
+
+    @AfterEach
+    void shutdown() {
+        verifier.shutdown();
+    }
+
+    @Test
+    void onlySuccessfulChecksAreCachedAndPasswordChangesInvalidateThem() {
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertFalse(verifier.recentlyVerified("alice", "secret", hash));
+        assertFalse(verifier.verify("alice", "wrong", hash));
+        assertFalse(verifier.recentlyVerified("alice", "wrong", hash));
+
+        assertTrue(verifier.verify("alice", "secret", hash));
+        assertTrue(verifier.recentlyVerified("alice", "secret", hash));
+        assertFalse(verifier.recentlyVerified("bob", "secret", hash));
+
+        String changed = new BCryptPasswordEncoder(4).encode("secret");
+        assertFalse(verifier.recentlyVerified("alice", "secret", changed));
+    }
+
+    @Test
+    void checksBeyondTheQueueAreRefusedWith503() throws Exception {
+        // One worker and one queue slot: of six simultaneous slow checks at most two are admitted
+        String hash = new BCryptPasswordEncoder(12).encode("secret");
+        int callers = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<HttpStatus>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        verifier.verify("alice", "secret", hash);
+                        return HttpStatus.OK;
+                    } catch (ResponseStatusException e) {
+                        return HttpStatus.valueOf(e.getStatusCode().value());
+                    }
+                }));
+            }
+            start.countDown();
+
+            int admitted = 0;
+            int refused = 0;
+            for (Future<HttpStatus> result : results) {
+                HttpStatus status = result.get();
+                if (status == HttpStatus.OK) {
+                    admitted++;
+                } else {
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status);
+                    refused++;
+                }
+            }
+            assertTrue(admitted >= 1 && admitted <= 2, "admitted " + admitted);
+            assertEquals(callers, admitted + refused);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void bucketsLimitEachUsernameAndIpIndependently() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 5);
+
+        // Checks alone never charge the username, only failures do
+        for (int i = 0; i < 10; i++) {
+            limiter.checkUser("alice");
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.checkUser("Alice");
+            limiter.recordFailure("Alice");
+        }
+        ResponseStatusException limited = assertThrows(ResponseStatusException.class,
+                () -> limiter.checkUser("alice"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), limited.getStatusCode().value());
+        limiter.checkUser("bob");
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquireForIp("10.0.0.1");
+        }
+        assertThrows(ResponseStatusException.class, () -> limiter.acquireForIp("10.0.0.1"));
+        limiter.acquireForIp("10.0.0.2");
+    }
+}
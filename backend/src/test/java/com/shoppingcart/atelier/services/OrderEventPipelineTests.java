@@ -0,0 +1,199 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderEvent;
+import com.shoppingcart.atelier.repositories.OrderEventRepository;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Drives the order_events outbox through a pool of OrderEventWorkers and the fake consumer
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.order-events.workers=4",
+        "app.order-events.batch-size=10",
+        "app.order-events.max-attempts=3",
+        "app.order-events.poll-interval-ms=20",
+        "app.order-events.backoff=20ms"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderEventWorker.class, OrderEventPipelineTests.FakeConsumerConfig.class})
+class OrderEventPipelineTests {
+
+    @TestConfiguration
+    static class FakeConsumerConfig {
+
+        @Bean
+        FakeOrderEventConsumer fakeOrderEventConsumer() {
+            return new FakeOrderEventConsumer();
+        }
+    }
+
+    // The global registry has no backing registry outside a full application, so meters would read zero
+    private static final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private FakeOrderEventConsumer consumer;
+
+    @Autowired
+    private OrderEventWorker worker;
+
+    @BeforeAll
+    static void recordMetrics() {
+        Metrics.addRegistry(meters);
+    }
+
+    @AfterAll
+    static void stopRecordingMetrics() {
+        Metrics.removeRegistry(meters);
+    }
+
+    @BeforeEach
+    void clean() {
+        orderEventRepository.deleteAll();
+        orderRepository.deleteAll();
+        consumer.reset();
+    }
+
+    @Test
+    void everyEventIsHandledExactlyOnceAcrossWorkers() {
+        List<Long> orderIds = placeOrders(200);
+
+        awaitUntil(() -> orderEventRepository.countByStatus(OrderEvent.DONE) == 200);
+
+        for (Long orderId : orderIds) {
+            assertEquals(1, consumer.timesHandled(orderId), "order " + orderId);
+        }
+        assertEquals(200, consumer.totalHandled());
+        assertEquals(0, orderEventRepository.countByStatus(OrderEvent.PENDING));
+    }
+
+    @Test
+    void failingEventsAreRetriedWithBackoffThenDeadLettered() {
+        // The counters are process-wide, so only their growth during this test is checked
+        double processedBefore = outcomes("processed");
+        double retriedBefore = outcomes("retried");
+        double failedBefore = outcomes("failed");
+
+        Order first = orderRepository.save(order("ORD-RECOVERS"));
+        Order second = orderRepository.save(order("ORD-POISONED"));
+        Long recovers = first.getId();
+        Long poisoned = second.getId();
+
+        // Arm the failures before the events exist so no worker sees them unarmed
+        consumer.failTimes(recovers, 2);
+        consumer.failTimes(poisoned, Integer.MAX_VALUE);
+        for (Order order : List.of(first, second)) {
+            orderEventRepository.save(OrderEvent.builder()
+                    .order(order)
+                    .type(OrderEvent.ORDER_PLACED)
+                    .build());
+        }
+
+        awaitUntil(() -> orderEventRepository.countByStatus(OrderEvent.PENDING) == 0);
+
+        OrderEvent recovered = eventFor(recovers);
+        assertEquals(OrderEvent.DONE, recovered.getStatus());
+        assertEquals(3, recovered.getAttempts());
+        assertEquals(1, consumer.timesHandled(recovers));
+
+        OrderEvent deadLettered = eventFor(poisoned);
+        assertEquals(OrderEvent.FAILED, deadLettered.getStatus());
+        assertEquals(3, deadLettered.getAttempts());
+        assertTrue(deadLettered.getLastError().contains("Simulated failure"));
+        assertEquals(0, consumer.timesHandled(poisoned));
+
+        // Two retries each, then one success and one dead letter; counters follow the status commit
+        awaitUntil(() -> outcomes("failed") - failedBefore == 1 && outcomes("processed") - processedBefore == 1);
+        assertEquals(4, outcomes("retried") - retriedBefore);
+
+        worker.sampleQueue();
+        assertEquals(0, queue("pending"));
+        assertEquals(0, queue("due"));
+        assertEquals(1, queue("failed"));
+    }
+
+    private static double outcomes(String result) {
+        return Metrics.globalRegistry.get("atelier.order.events").tag("result", result).counter().count();
+    }
+
+    private static double queue(String state) {
+        return Metrics.globalRegistry.get("atelier.order.events.queue").tag("state", state).gauge().value();
+    }
+
+    private List<Long> placeOrders(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = orderRepository.save(order("ORD-" + i));
+            orderEventRepository.save(OrderEvent.builder()
+                    .order(order)
+                    .type(OrderEvent.ORDER_PLACED)
+                    .build());
+            ids.add(order.getId());
+        }
+        return ids;
+    }
+
+    private OrderEvent eventFor(Long orderId) {
+        return orderEventRepository.findAll().stream()
+                .filter(event -> event.getOrder().getId().equals(orderId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Order order(String orderNumber) {
+        return Order.builder()
+                .orderNumber(orderNumber)
+                .customerId(1L)
+                .totalPrice(new BigDecimal("10.00"))
+                .status("PENDING")
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for the order pipeline");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
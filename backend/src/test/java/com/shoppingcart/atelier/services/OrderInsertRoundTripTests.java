@@ -0,0 +1,179 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares JDBC round trips for persisting a 30-line order the old way (insert per row,
+ * order saved twice) against the batched sequence-ID path used by OrderService.
+ * Every execute/executeQuery/executeUpdate/executeBatch call counts as one round trip.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderInsertRoundTripTests {
+
+    private static final int LINES = 30;
+    private static final AtomicInteger roundTrips = new AtomicInteger();
+
+    @TestConfiguration
+    static class RoundTripCounting {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counting(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Category category = Category.builder().name("Category").description("Test").build();
+            entityManager.persist(category);
+            for (int i = 0; i < LINES; i++) {
+                Product product = Product.builder()
+                        .category(category)
+                        .name("Product " + i)
+                        .description("Test")
+                        .sku("SKU-" + i)
+                        .price(new BigDecimal("10.00"))
+                        .build();
+                entityManager.persist(product);
+                products.add(product);
+            }
+        });
+
+        // Warm up both sequences so the measured runs see steady-state allocation
+        insertBatched("ORD-WARMUP");
+    }
+
+    @Test
+    void batchedInsertUsesAConstantNumberOfRoundTrips() {
+        int before = measure(() -> insertRowByRow("ORD-BEFORE"));
+        int after = measure(() -> insertBatched("ORD-AFTER"));
+
+        assertTrue(before >= LINES + 1, "Row-by-row insert took only " + before + " round trips");
+        // One order insert, one batched item insert, and at most one sequence call per table
+        assertTrue(after <= 4, "Batched insert took " + after + " round trips");
+    }
+
+    // Previous OrderService behaviour: save the order, add items, save again, no JDBC batching
+    private void insertRowByRow(String orderNumber) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            Order order = orderRepository.save(newOrder(orderNumber));
+            entityManager.flush();
+            addItems(order);
+            orderRepository.save(order);
+        });
+    }
+
+    private void insertBatched(String orderNumber) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = newOrder(orderNumber);
+            addItems(order);
+            orderRepository.save(order);
+        });
+    }
+
+    private Order newOrder(String orderNumber) {
+        return Order.builder()
+                .orderNumber(orderNumber)
+                .customerId(1L)
+                .totalPrice(new BigDecimal("300.00"))
+                .status("PENDING")
+                .build();
+    }
+
+    private void addItems(Order order) {
+        for (Product product : products) {
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(entityManager.getReference(Product.class, product.getId()))
+                    .quantity(1)
+                    .unitPrice(new BigDecimal("10.00"))
+                    .totalPrice(new BigDecimal("10.00"))
+                    .build());
+        }
+    }
+
+    private static int measure(Runnable work) {
+        roundTrips.set(0);
+        work.run();
+        return roundTrips.get();
+    }
+
+    private static DataSource counting(DataSource target) {
+        return proxy(DataSource.class, target);
+    }
+
+    // Wraps connections and statements so that every execute* call bumps the counter
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                roundTrips.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+                return proxy(Connection.class, connection);
+            }
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy((Class<Statement>) method.getReturnType(), statement);
+            }
+            return result;
+        });
+    }
+}
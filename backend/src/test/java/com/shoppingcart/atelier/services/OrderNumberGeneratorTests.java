@@ -0,0 +1,125 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that concurrently issued IDs never collide, that the check symbol catches typos and
+ * that order lookups accept numbers typed in lowercase or with Crockford aliases
+ */
+class OrderNumberGeneratorTests {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500_000;
+
+    @Test
+    void millionsOfConcurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(513);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> batches = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                batches.add(pool.submit(() -> {
+                    long[] ids = new long[PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> batch : batches) {
+                long[] ids = batch.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "IDs must increase within a thread");
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "duplicate ID " + all[i]);
+            }
+            assertTrue(all[0] > 0);
+            assertEquals(513, (all[0] >>> OrderNumberGenerator.SEQUENCE_BITS) & OrderNumberGenerator.MAX_NODE_ID);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void formattedNumbersRoundTripAndRejectTypos() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            String number = OrderNumberGenerator.format(id);
+
+            assertTrue(number.matches("ORD-[0-9A-Z]{5}-[0-9A-Z]{5}-[0-9A-Z]{3}[0-9A-Z*~$=]"), number);
+            assertEquals(id, OrderNumberGenerator.parse(number));
+            assertEquals(id, OrderNumberGenerator.parse(number.toLowerCase()));
+
+            // A single-character substitution or an adjacent swap must fail the check
+            char[] chars = number.toCharArray();
+            int digit = 4 + (i % 4);
+            char original = chars[digit];
+            chars[digit] = original == 'Z' ? 'Y' : (char) (original == '9' ? 'A' : original + 1);
+            assertTrue(OrderNumberGenerator.isMalformed(new String(chars)));
+
+            chars[digit] = original;
+            if (chars[digit] != chars[digit + 1]) {
+                chars[digit] = chars[digit + 1];
+                chars[digit + 1] = original;
+                assertTrue(OrderNumberGenerator.isMalformed(new String(chars)));
+            }
+        }
+
+        // Crockford aliases read O as 0 and I or L as 1
+        String number = OrderNumberGenerator.format(1L << 40);
+        String aliased = number.substring(0, 19).replace("0", "O") + number.charAt(19);
+        assertEquals(1L << 40, OrderNumberGenerator.parse(aliased));
+        assertFalse(OrderNumberGenerator.isMalformed("ORD-1A2B3C4D"));
+    }
+
+    @Test
+    void lookupsQueryTheIssuedFormOfATypedNumber() {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        OrderService orderService = new OrderService(repository, null, null, null, null, null, null, null);
+        String issued = OrderNumberGenerator.format((1L << 40) | 1);
+        Order order = Order.builder().orderNumber(issued).build();
+        Mockito.when(repository.findWithItemsByOrderNumber(issued)).thenReturn(Optional.of(order));
+
+        assertEquals(Optional.of(order), orderService.getOrderByNumber(issued.toLowerCase()));
+        // Read aloud or copied by hand, 0 and 1 come back as O, I or L
+        String aliased = issued.substring(0, 19).replace("0", "O").replace("1", "l") + issued.charAt(19);
+        assertEquals(Optional.of(order), orderService.getOrderByNumber(aliased));
+
+        // Older numbers are looked up as typed, and malformed ones never reach the database
+        assertEquals(Optional.empty(), orderService.getOrderByNumber("ORD-1A2B3C4D"));
+        Mockito.verify(repository).findWithItemsByOrderNumber("ORD-1A2B3C4D");
+        String typo = issued.substring(0, 19) + (issued.charAt(19) == '0' ? '1' : '0');
+        assertEquals(Optional.empty(), orderService.getOrderByNumber(typo));
+        Mockito.verify(repository, Mockito.times(2)).findWithItemsByOrderNumber(issued);
+        Mockito.verifyNoMoreInteractions(repository);
+    }
+}
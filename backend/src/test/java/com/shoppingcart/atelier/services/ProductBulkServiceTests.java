@@ -0,0 +1,193 @@
+package com.shoppingcart.atelier.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoppingcart.atelier.dto.ProductImportEvent;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs bulk imports against the real schema on an embedded PostgreSQL: row validation,
+ * insert and update counting, and the row-by-row retry after a batch fails in the database.
+ */
+class ProductBulkServiceTests {
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private CategoryRegistry categoryRegistry;
+    private ProductFacetIndex facetIndex;
+    private ProductBulkService productBulkService;
+    private long topsId;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        try (var connection = postgres.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("../database/schema.sql")));
+            statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+        }
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE categories, products CASCADE");
+        topsId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Tops', 'Test') RETURNING c_id", Long.class);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        categoryRegistry = new CategoryRegistry(jdbcTemplate, objectMapper);
+        facetIndex = Mockito.mock(ProductFacetIndex.class);
+        productBulkService = new ProductBulkService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                categoryRegistry, objectMapper, Mockito.mock(CatalogCache.class),
+                Mockito.mock(ProductSearchIndex.class), facetIndex, 2, 100);
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirLineAndTheRestAreImported() {
+        List<ProductImportEvent> events = importCsv("""
+                sku,name,description,category,categoryId,price,stockQuantity,gender
+                A-1,Shirt,Cotton,tops,,10.00,5,women
+                A-2,,Cotton,Tops,,10.00,5,
+                A-3,Shirt,Cotton,Shoes,,10.00,5,
+                A-4,Shirt,Cotton,Tops,,-1,5,
+                A-5,Shirt,Cotton,Tops,,10.00,5,ALIEN
+                A-6,Shirt,Cotton,Tops,,10.001,5,
+                A-7,Shirt,Cotton
+                A-8,Shirt,Cotton,,%d,12.50,,
+                """.formatted(topsId));
+
+        assertEquals(Map.of(
+                        3L, "name is required",
+                        4L, "Unknown category",
+                        5L, "price must be between 0 and 99999999.99",
+                        6L, "gender must be one of [MEN, WOMEN, UNISEX, KIDS]",
+                        7L, "price must be between 0 and 99999999.99",
+                        8L, "Expected 8 fields but found 3"),
+                errors(events));
+        assertSummary(events, 8, 2, 0, 6);
+
+        assertEquals("WOMEN", jdbcTemplate.queryForObject("SELECT p_gender FROM products WHERE p_sku = 'A-1'", String.class));
+        // Omitted optional columns take the same defaults as a product created through the API
+        Map<String, Object> defaulted = jdbcTemplate.queryForMap(
+                "SELECT p_stock_quantity, p_is_active, p_category_id FROM products WHERE p_sku = 'A-8'");
+        assertEquals(0, defaulted.get("p_stock_quantity"));
+        assertEquals(false, defaulted.get("p_is_active"));
+        assertEquals(topsId, defaulted.get("p_category_id"));
+        Mockito.verify(facetIndex).invalidate();
+    }
+
+    @Test
+    void existingSkusCountAsUpdatesAndKeepColumnsTheRowLeavesOut() {
+        importNdjson("""
+                {"sku":"B-1","name":"Shirt","description":"Cotton","category":"Tops","price":10,"stockQuantity":7,"color":"Red"}
+                """);
+
+        List<ProductImportEvent> events = importNdjson("""
+                {"sku":"B-1","name":"Shirt v2","description":"Cotton","category":"Tops","price":12.5}
+                not json
+                {"sku":"B-2","name":"Skirt","description":"Linen","category":"Tops","price":20}
+                ["an","array"]
+                {"sku":"B-2","name":"Skirt v2","description":"Linen","category":"Tops","price":21}
+                """);
+
+        assertEquals(2, errors(events).size());
+        assertTrue(errors(events).get(2L).startsWith("Invalid JSON"));
+        assertEquals("Expected a JSON object", errors(events).get(4L));
+        // B-2 is an insert the first time it appears in the import and an update the second
+        assertSummary(events, 5, 1, 2, 2);
+        // Batches of two rows each report progress
+        assertEquals(3, events.stream().filter(e -> ProductImportEvent.PROGRESS.equals(e.getType())).count());
+
+        Map<String, Object> updated = jdbcTemplate.queryForMap(
+                "SELECT p_name, p_price, p_stock_quantity, p_color FROM products WHERE p_sku = 'B-1'");
+        assertEquals("Shirt v2", updated.get("p_name"));
+        assertEquals(0, new BigDecimal("12.50").compareTo((BigDecimal) updated.get("p_price")));
+        assertEquals(7, updated.get("p_stock_quantity"));
+        assertEquals("Red", updated.get("p_color"));
+        assertEquals("Skirt v2", jdbcTemplate.queryForObject("SELECT p_name FROM products WHERE p_sku = 'B-2'", String.class));
+    }
+
+    @Test
+    void aBatchTheDatabaseRejectsIsRetriedRowByRow() {
+        // Validation passes against the registry's snapshot, but the category is gone by the time the batch is written
+        long dropped = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Dropped', 'Test') RETURNING c_id", Long.class);
+        categoryRegistry.snapshot();
+        jdbcTemplate.update("DELETE FROM categories WHERE c_id = ?", dropped);
+
+        List<ProductImportEvent> events = importCsv("""
+                sku,name,description,category,price
+                C-1,Shirt,Cotton,Tops,10.00
+                C-2,Shirt,Cotton,Dropped,10.00
+                C-3,Shirt,Cotton,Tops,10.00
+                """);
+
+        assertEquals(List.of(3L), List.copyOf(errors(events).keySet()));
+        assertTrue(errors(events).get(3L).contains("foreign key"), errors(events).get(3L));
+        assertEquals("C-2", events.stream().filter(e -> ProductImportEvent.ERROR.equals(e.getType()))
+                .findFirst().orElseThrow().getSku());
+        assertSummary(events, 3, 2, 0, 1);
+        assertEquals(List.of("C-1", "C-3"),
+                jdbcTemplate.queryForList("SELECT p_sku FROM products ORDER BY p_sku", String.class));
+    }
+
+    private List<ProductImportEvent> importCsv(String body) {
+        return run(body, ProductBulkService.Format.CSV);
+    }
+
+    private List<ProductImportEvent> importNdjson(String body) {
+        return run(body, ProductBulkService.Format.NDJSON);
+    }
+
+    private List<ProductImportEvent> run(String body, ProductBulkService.Format format) {
+        List<ProductImportEvent> events = new ArrayList<>();
+        productBulkService.importProducts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, events::add);
+        return events;
+    }
+
+    private static Map<Long, String> errors(List<ProductImportEvent> events) {
+        Map<Long, String> errors = new TreeMap<>();
+        events.stream()
+                .filter(e -> ProductImportEvent.ERROR.equals(e.getType()))
+                .forEach(e -> errors.put(e.getLine(), e.getMessage()));
+        return errors;
+    }
+
+    private static void assertSummary(List<ProductImportEvent> events, long processed, long inserted, long updated,
+                                      long failed) {
+        ProductImportEvent summary = events.get(events.size() - 1);
+        assertEquals(ProductImportEvent.SUMMARY, summary.getType());
+        assertEquals(processed, summary.getProcessed());
+        assertEquals(inserted, summary.getInserted());
+        assertEquals(updated, summary.getUpdated());
+        assertEquals(failed, summary.getFailed());
+    }
+}
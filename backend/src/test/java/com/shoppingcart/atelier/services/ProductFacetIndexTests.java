@@ -0,0 +1,173 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.dto.ProductQueryRequest;
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks combined filters, facet counts and ordinal compaction of the facet index
+ */
+class ProductFacetIndexTests {
+
+    private static final Category TOPS = Category.builder().id(1L).name("Tops").build();
+    private static final Category BOTTOMS = Category.builder().id(2L).name("Bottoms").build();
+
+    private List<Product> catalog;
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog = List.of(
+                product(1L, TOPS, "M", "Blue", "women", "40.00", 5, true),
+                product(2L, TOPS, "S", "Red", "WOMEN", "25.00", 0, false),
+                product(3L, TOPS, "M", "Red", "MEN", "60.00", 3, false),
+                product(4L, BOTTOMS, "L", "Blue", "MEN", "80.00", 2, true),
+                product(5L, BOTTOMS, "M", "Black", "UNISEX", "30.00", 1, false));
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.findByIsActiveTrue()).thenReturn(catalog);
+        index = new ProductFacetIndex(repository);
+    }
+
+    @Test
+    void valuesWithinAnAttributeAreOredAndAttributesAreAnded() {
+        ProductFacetIndex.Result result = index.query(ProductQueryRequest.builder()
+                .color(List.of("red", "BLUE"))
+                .size(List.of("M"))
+                .build());
+        assertEquals(List.of(1L, 3L), ids(result));
+        assertEquals(2, result.total());
+
+        result = index.query(ProductQueryRequest.builder()
+                .gender(List.of("women"))
+                .inStock(true)
+                .build());
+        assertEquals(List.of(1L), ids(result));
+
+        result = index.query(ProductQueryRequest.builder()
+                .categoryId(List.of(1L, 2L))
+                .minPrice(new BigDecimal("30.00"))
+                .maxPrice(new BigDecimal("60.00"))
+                .featured(false)
+                .build());
+        assertEquals(List.of(3L, 5L), ids(result));
+
+        // An unknown value matches nothing rather than being ignored
+        assertEquals(0, index.query(ProductQueryRequest.builder().color(List.of("Green")).build()).total());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilterButApplyAllOthers() {
+        ProductFacetIndex.Result result = index.query(ProductQueryRequest.builder()
+                .color(List.of("Red"))
+                .categoryId(List.of(1L))
+                .build());
+        assertEquals(List.of(2L, 3L), ids(result));
+
+        // Colors are counted within category 1 only; categories are counted within red only
+        assertEquals(Map.of("Blue", 1, "Red", 2), result.facets().get(ProductFacetIndex.COLOR));
+        assertEquals(Map.of("1", 2), result.facets().get(ProductFacetIndex.CATEGORY));
+        // Unfiltered attributes are counted over the matching products
+        assertEquals(Map.of("M", 1, "S", 1), result.facets().get(ProductFacetIndex.SIZE));
+        assertEquals(Map.of("false", 1, "true", 1), result.facets().get(ProductFacetIndex.IN_STOCK));
+
+        // The price range narrows every attribute's counts, including filtered ones
+        result = index.query(ProductQueryRequest.builder()
+                .color(List.of("Red"))
+                .maxPrice(new BigDecimal("50.00"))
+                .build());
+        assertEquals(Map.of("Black", 1, "Blue", 1, "Red", 1), result.facets().get(ProductFacetIndex.COLOR));
+    }
+
+    @Test
+    void offsetAndLimitPageThroughMatchesInOrdinalOrder() {
+        ProductFacetIndex.Result page = index.query(ProductQueryRequest.builder().offset(1).limit(2).build());
+        assertEquals(List.of(2L, 3L), ids(page));
+        assertEquals(5, page.total());
+
+        page = index.query(ProductQueryRequest.builder().offset(4).limit(2).build());
+        assertEquals(List.of(5L), ids(page));
+    }
+
+    @Test
+    void updatesMoveBitsAndCompactionKeepsResultsIntact() {
+        index.query(ProductQueryRequest.builder().build());
+
+        // Product 2 comes back in stock and turns blue; product 4 is deactivated
+        index.onProductSaved(product(2L, TOPS, "S", "Blue", "WOMEN", "25.00", 4, false));
+        Product inactive = product(4L, BOTTOMS, "L", "Blue", "MEN", "80.00", 2, true);
+        inactive.setIsActive(false);
+        index.onProductSaved(inactive);
+
+        ProductFacetIndex.Result result = index.query(ProductQueryRequest.builder().color(List.of("Blue")).build());
+        assertEquals(List.of(1L, 2L), ids(result));
+        assertEquals(Map.of("Black", 1, "Blue", 2, "Red", 1), result.facets().get(ProductFacetIndex.COLOR));
+        assertEquals(Map.of("true", 2), result.facets().get(ProductFacetIndex.IN_STOCK));
+
+        // Every update appends an ordinal; once holes outnumber live products they are reclaimed
+        for (int i = 0; i < 100; i++) {
+            index.onProductSaved(product(3L, TOPS, "M", "Red", "MEN", "60.00", i % 2, false));
+        }
+        assertTrue(index.ordinalCount() <= 2 * 64, "holes were never compacted: " + index.ordinalCount());
+
+        result = index.query(ProductQueryRequest.builder().inStock(true).build());
+        // Updated products take a fresh ordinal at the end, and compaction keeps that order
+        assertEquals(List.of(1L, 5L, 2L, 3L), ids(result));
+        assertEquals(4, index.query(ProductQueryRequest.builder().build()).total());
+        assertEquals(Map.of("1", 3, "2", 1), result.facets().get(ProductFacetIndex.CATEGORY));
+
+        index.onProductDeleted(3L);
+        assertEquals(List.of(1L, 5L, 2L), ids(index.query(ProductQueryRequest.builder().build())));
+    }
+
+    @Test
+    void stockChangesMoveProductsBetweenInStockValuesAndSurviveCompaction() {
+        index.query(ProductQueryRequest.builder().build());
+
+        index.onStockChanged(Map.of(1L, 0, 2L, 7));
+        ProductFacetIndex.Result result = index.query(ProductQueryRequest.builder().inStock(true).build());
+        assertEquals(List.of(2L, 3L, 4L, 5L), ids(result));
+        assertEquals(Map.of("false", 1, "true", 4), result.facets().get(ProductFacetIndex.IN_STOCK));
+
+        // The indexed entities are shared with the catalog snapshot and stay untouched
+        assertEquals(5, catalog.get(0).getStockQuantity());
+        assertEquals(0, catalog.get(1).getStockQuantity());
+
+        // Compaction carries the bits set above over
+        for (int i = 0; i < 100; i++) {
+            index.onProductSaved(product(5L, BOTTOMS, "M", "Black", "UNISEX", "30.00", 1, false));
+        }
+        assertEquals(List.of(1L), ids(index.query(ProductQueryRequest.builder().inStock(false).build())));
+    }
+
+    private static List<Long> ids(ProductFacetIndex.Result result) {
+        return result.products().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(Long id, Category category, String size, String color, String gender,
+                                   String price, int stock, boolean featured) {
+        return Product.builder()
+                .id(id)
+                .name("P" + id)
+                .sku("SKU-" + id)
+                .category(category)
+                .size(size)
+                .color(color)
+                .gender(gender)
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .isFeatured(featured)
+                .isActive(true)
+                .build();
+    }
+}
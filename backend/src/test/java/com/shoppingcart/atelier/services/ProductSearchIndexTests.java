@@ -0,0 +1,148 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks tokenizing, prefix expansion, single-typo matching and tf-idf ranking of the search index
+ */
+class ProductSearchIndexTests {
+
+    private static final Category TOPS = Category.builder().id(1L).name("Tops").build();
+    private static final Category ACCESSORIES = Category.builder().id(2L).name("Accessories").build();
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.findByIsActiveTrue()).thenReturn(List.of(
+                product(1L, "Linen Shirt", "LIN-001", "Blue", "Breathable summer shirt", TOPS),
+                product(2L, "Linen Trousers", "TRS-002", "Beige", "Relaxed fit", TOPS),
+                product(3L, "Cotton Shirt", "COT-003", "White", "Crisp poplin", TOPS),
+                product(4L, "Wool Scarf", "SCF-004", "Grey", "Warm scarf with a linen trim", ACCESSORIES)));
+        index = new ProductSearchIndex(repository, true);
+    }
+
+    @Test
+    void tokenizeLowercasesStripsAccentsAndSplitsOnPunctuation() {
+        assertEquals(List.of("creme", "brulee", "size", "m", "42"), ProductSearchIndex.tokenize("Crème Brûlée, size-M/42!"));
+        assertEquals(List.of(), ProductSearchIndex.tokenize("  --  "));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(null));
+    }
+
+    @Test
+    void fieldWeightsRankNameMatchesAboveDescriptionMatches() {
+        List<Long> ids = index.search("linen", 10);
+        assertEquals(Set.of(1L, 2L), Set.copyOf(ids.subList(0, 2)));
+        assertEquals(4L, ids.get(2));
+
+        // Shirt is in product 1's name and description but only in product 3's name
+        assertEquals(List.of(1L, 3L), index.search("shirt", 10));
+    }
+
+    @Test
+    void rarerTermsOutweighCommonOnes() {
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.findByIsActiveTrue()).thenReturn(List.of(
+                product(10L, "Red Shirt", "A-10", null, null, null),
+                product(11L, "Red Scarf", "A-11", null, null, null),
+                product(12L, "Red Hat", "A-12", null, null, null),
+                product(13L, "Rare Coat", "A-13", null, null, null)));
+        ProductSearchIndex rare = new ProductSearchIndex(repository, true);
+
+        // "r" expands to red and rare with the same field weight; rare is in one product, red in three
+        assertEquals(13L, rare.search("r", 10).get(0));
+    }
+
+    @Test
+    void everyQueryTokenMustMatch() {
+        assertEquals(List.of(1L), index.search("linen shirt", 10));
+        assertEquals(List.of(1L), index.search("Shirt, LINEN!", 10));
+        assertEquals(List.of(), index.search("linen poplin", 10));
+    }
+
+    @Test
+    void prefixesExpandToLongerTermsAndExactMatchesScoreHigher() {
+        // "lin" is product 1's SKU token exactly and a prefix of linen everywhere else
+        List<Long> ids = index.search("lin", 10);
+        assertEquals(1L, ids.get(0));
+        assertEquals(Set.of(1L, 2L, 4L), Set.copyOf(ids));
+
+        assertEquals(List.of(3L), index.search("cott", 10));
+        assertEquals(List.of(1L), index.search("breath", 10));
+    }
+
+    @Test
+    void singleTyposMatchThroughSymmetricDeletes() {
+        assertEquals(List.of(1L, 3L), index.search("shrit", 10));   // transposition
+        assertEquals(List.of(4L), index.search("scarff", 10));      // insertion
+        assertEquals(List.of(3L), index.search("coton", 10));       // deletion
+        assertEquals(List.of(3L), index.search("cotxon", 10));      // substitution
+
+        // Two edits, or a short token that isn't a prefix of anything, match nothing
+        assertEquals(List.of(), index.search("shxrxt", 10));
+        assertEquals(List.of(), index.search("xhi", 10));
+    }
+
+    @Test
+    void withinOneEditAcceptsExactlyOneEditOrTransposition() {
+        assertTrue(ProductSearchIndex.withinOneEdit("shirt", "shirt"));
+        assertTrue(ProductSearchIndex.withinOneEdit("shirt", "shrit"));
+        assertTrue(ProductSearchIndex.withinOneEdit("shirt", "shirts"));
+        assertTrue(ProductSearchIndex.withinOneEdit("shirt", "shir"));
+        assertTrue(ProductSearchIndex.withinOneEdit("shirt", "skirt"));
+        assertFalse(ProductSearchIndex.withinOneEdit("shirt", "skirts"));
+        assertFalse(ProductSearchIndex.withinOneEdit("shirt", "hsrit"));
+        assertFalse(ProductSearchIndex.withinOneEdit("shirt", "sh"));
+    }
+
+    @Test
+    void updatesAndDeletesReplaceIndexedTerms() {
+        assertEquals(List.of(3L), index.search("cotton", 10));
+
+        index.onProductSaved(product(3L, "Silk Blouse", "SLK-003", "White", "Crisp", TOPS));
+        assertEquals(List.of(), index.search("cotton", 10));
+        assertEquals(List.of(3L), index.search("silk", 10));
+
+        index.onProductDeleted(1L);
+        assertEquals(List.of(2L, 4L), index.search("linen", 10).stream().sorted().toList());
+
+        Product inactive = product(2L, "Linen Trousers", "TRS-002", "Beige", "Relaxed fit", TOPS);
+        inactive.setIsActive(false);
+        index.onProductSaved(inactive);
+        assertEquals(List.of(4L), index.search("linen", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void limitKeepsTheBestMatches() {
+        assertEquals(1, index.search("linen", 1).size());
+        assertTrue(List.of(1L, 2L).contains(index.search("linen", 1).get(0)));
+    }
+
+    private static Product product(Long id, String name, String sku, String color, String description, Category category) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .sku(sku)
+                .color(color)
+                .description(description)
+                .category(category)
+                .price(new BigDecimal("10.00"))
+                .isActive(true)
+                .build();
+    }
+}
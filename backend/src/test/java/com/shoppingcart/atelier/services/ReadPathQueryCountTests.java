@@ -0,0 +1,150 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartState;
+import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.InMemoryCartStore;
+import com.shoppingcart.atelier.utils.CartMapper;
+import com.shoppingcart.atelier.utils.OrderMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the order and cart read paths against N+1 regressions by counting
+ * the JDBC statements each one prepares against an in-memory database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import({OrderService.class, CartService.class, CartWriteBehind.class, InMemoryCartStore.class, CatalogCache.class,
+        StockReservationService.class, ProductFacetIndex.class, SalesColumnStore.class, OrderNumberGenerator.class})
+class ReadPathQueryCountTests {
+
+    private static final int ORDER_COUNT = 20;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    private Statistics statistics;
+    private String firstOrderNumber;
+
+    @BeforeEach
+    void seed() {
+        List<Product> products = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            Category category = Category.builder().name("Category " + c).description("Test").build();
+            entityManager.persist(category);
+            for (int p = 0; p < 2; p++) {
+                Product product = Product.builder()
+                        .category(category)
+                        .name("Product " + c + "-" + p)
+                        .description("Test")
+                        .sku("SKU-" + c + "-" + p)
+                        .price(new BigDecimal("10.00"))
+                        .build();
+                entityManager.persist(product);
+                products.add(product);
+            }
+        }
+
+        for (int o = 0; o < ORDER_COUNT; o++) {
+            Order order = Order.builder()
+                    .orderNumber("ORD-" + o)
+                    .customerId(1L)
+                    .totalPrice(new BigDecimal("30.00"))
+                    .status("PENDING")
+                    .build();
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(products.get((o + i) % products.size()))
+                        .quantity(1)
+                        .unitPrice(new BigDecimal("10.00"))
+                        .totalPrice(new BigDecimal("10.00"))
+                        .build());
+            }
+            entityManager.persist(order);
+            if (o == 0) {
+                firstOrderNumber = order.getOrderNumber();
+            }
+        }
+
+        Cart cart = Cart.builder().sessionId("session-1").build();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            cart.getItems().add(CartItem.builder()
+                    .cart(cart)
+                    .product(products.get(i * 2))
+                    .quantity(1)
+                    .unitPrice(new BigDecimal("10.00"))
+                    .totalPrice(new BigDecimal("10.00"))
+                    .build());
+        }
+        entityManager.persist(cart);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void orderListingUsesTwoQueriesRegardlessOfOrderCount() {
+        List<Order> orders = orderService.getAllOrders(null, 50);
+        orders.forEach(OrderMapper::toDTO);
+
+        assertEquals(ORDER_COUNT, orders.size());
+        assertEquals(ORDER_COUNT * ITEMS_PER_ORDER, orders.stream().mapToInt(o -> o.getItems().size()).sum());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "GET /api/orders prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void orderByNumberUsesOneQuery() {
+        orderService.getOrderByNumber(firstOrderNumber).map(OrderMapper::toDTO).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET /api/orders/number/{orderNumber} prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void cartReadUsesOneQueryThenServesFromTheStore() {
+        CartState cart = cartService.getCart("session-1");
+        CartMapper.toDTO(cart);
+
+        assertEquals(ITEMS_PER_ORDER, cart.getLines().size());
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "GET /api/cart/{sessionId} prepared " + statistics.getPrepareStatementCount() + " statements");
+
+        statistics.clear();
+        CartMapper.toDTO(cartService.getCart("session-1"));
+        assertEquals(0, statistics.getPrepareStatementCount(),
+                "Repeat GET /api/cart/{sessionId} prepared " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
@@ -0,0 +1,207 @@
+package com.shoppingcart.atelier.services;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes orders and order items against the real schema on an embedded PostgreSQL and checks
+ * that the trigger-maintained reporting views always equal a GROUP BY over the raw tables.
+ */
+class ReportingTriggersTests {
+
+    private static final int PRODUCTS = 5;
+
+    private static EmbeddedPostgres postgres;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long ana;
+    private long ben;
+    private List<Long> productIds;
+    private final AtomicInteger orderNumbers = new AtomicInteger();
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        try (var connection = postgres.getPostgresDatabase().getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("../database/schema.sql")));
+            statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+            statement.execute(Files.readString(Path.of("../database/views.sql")));
+        }
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE users, categories, products, orders, order_items, " +
+                "rpt_order_summary, rpt_product_sales, rpt_customer_purchases CASCADE");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        ana = customer("ana");
+        ben = customer("ben");
+        long categoryId = jdbcTemplate.queryForObject(
+                "INSERT INTO categories (c_name, c_description) VALUES ('Tops', 'Test') RETURNING c_id", Long.class);
+        productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO products (p_category_id, p_name, p_description, p_sku, p_price, p_stock_quantity) " +
+                    "VALUES (?, ?, 'Test', ?, 10.00, 100) RETURNING p_id", Long.class, categoryId, "P" + i, "P" + i));
+        }
+    }
+
+    @Test
+    void summariesFollowInsertsUpdatesCancellationsAndDeletes() {
+        long p0 = productIds.get(0);
+        long p1 = productIds.get(1);
+        long p2 = productIds.get(2);
+
+        // One multi-row statement, listed out of product order like an unsorted cart
+        long first = order(ana, "60.00");
+        jdbcTemplate.update("INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) " +
+                "VALUES (?, ?, 2, 10.00, 20.00), (?, ?, 1, 10.00, 10.00), (?, ?, 3, 10.00, 30.00)",
+                first, p2, first, p0, first, p1);
+        // One statement per row, as a JDBC batch without rewriting sends them
+        long second = order(ben, "25.00");
+        item(second, p1, 1, "10.00");
+        item(second, p0, 1, "15.00");
+        long third = order(ana, "40.00");
+        item(third, p2, 4, "10.00");
+        assertSummariesMatchRawTables();
+
+        jdbcTemplate.update("UPDATE order_items SET ot_quantity = 5, ot_subtotal = 50.00 WHERE ot_order_id = ? AND ot_product_id = ?",
+                first, p1);
+        assertSummariesMatchRawTables();
+
+        jdbcTemplate.update("UPDATE orders SET o_status = 'CANCELLED' WHERE o_id = ?", first);
+        assertSummariesMatchRawTables();
+        // Items written to a cancelled order are not counted, and come back with the order
+        item(first, p2, 1, "10.00");
+        assertSummariesMatchRawTables();
+        jdbcTemplate.update("UPDATE orders SET o_status = 'CONFIRMED' WHERE o_id = ?", first);
+        assertSummariesMatchRawTables();
+
+        jdbcTemplate.update("DELETE FROM order_items WHERE ot_order_id = ? AND ot_product_id = ?", second, p0);
+        assertSummariesMatchRawTables();
+
+        // Cascading deletes: the order's items, and every line of a deleted product
+        jdbcTemplate.update("DELETE FROM orders WHERE o_id = ?", third);
+        assertSummariesMatchRawTables();
+        jdbcTemplate.update("DELETE FROM products WHERE p_id = ?", p1);
+        assertSummariesMatchRawTables();
+    }
+
+    @Test
+    void concurrentOrdersSharingProductsInOppositeOrderDoNotDeadlock() throws Exception {
+        int writers = 8;
+        int ordersPerWriter = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            List<Long> products = new ArrayList<>(productIds);
+            if (w % 2 == 1) {
+                Collections.reverse(products);
+            }
+            long customerId = w % 2 == 0 ? ana : ben;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerWriter; i++) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        long orderId = order(customerId, "50.00");
+                        String values = products.stream()
+                                .map(productId -> "(" + orderId + ", " + productId + ", 1, 10.00, 10.00)")
+                                .collect(Collectors.joining(", "));
+                        jdbcTemplate.update("INSERT INTO order_items " +
+                                "(ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES " + values);
+                    });
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertSummariesMatchRawTables();
+        assertEquals((long) writers * ordersPerWriter,
+                jdbcTemplate.queryForObject("SELECT rp_times_sold FROM rpt_product_sales WHERE rp_product_id = ?",
+                        Long.class, productIds.get(0)));
+    }
+
+    private void assertSummariesMatchRawTables() {
+        assertEquals(
+                jdbcTemplate.queryForList(
+                        "SELECT o.o_id AS id, COUNT(oi.ot_id)::int AS items " +
+                        "FROM orders o LEFT JOIN order_items oi ON oi.ot_order_id = o.o_id GROUP BY o.o_id ORDER BY o.o_id"),
+                jdbcTemplate.queryForList("SELECT order_id AS id, total_items AS items FROM v_order_summary ORDER BY order_id"));
+        assertEquals(
+                jdbcTemplate.queryForList(
+                        "SELECT p.p_id AS id, COUNT(oi.ot_id) AS times_sold, SUM(oi.ot_quantity) AS quantity, " +
+                        "SUM(oi.ot_subtotal) AS revenue " +
+                        "FROM products p LEFT JOIN (order_items oi JOIN orders o " +
+                        "    ON o.o_id = oi.ot_order_id AND o.o_status <> 'CANCELLED') ON oi.ot_product_id = p.p_id " +
+                        "GROUP BY p.p_id ORDER BY p.p_id"),
+                jdbcTemplate.queryForList(
+                        "SELECT product_id AS id, times_sold, total_quantity_sold AS quantity, total_revenue AS revenue " +
+                        "FROM v_product_sales ORDER BY product_id"));
+        assertEquals(
+                jdbcTemplate.queryForList(
+                        "SELECT u.u_id AS id, COUNT(o.o_id) AS orders, SUM(o.o_total_amount) AS lifetime_value, " +
+                        "MAX(o.created_at) AS last_order " +
+                        "FROM users u LEFT JOIN orders o ON o.o_customer_id = u.u_id AND o.o_status <> 'CANCELLED' " +
+                        "WHERE u.u_type = 'CUSTOMER' GROUP BY u.u_id ORDER BY u.u_id"),
+                jdbcTemplate.queryForList(
+                        "SELECT customer_id AS id, total_orders AS orders, lifetime_value, last_order_date AS last_order " +
+                        "FROM v_customer_purchases ORDER BY customer_id"));
+    }
+
+    private long customer(String username) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (u_type, u_email, u_username, u_password, u_fullName) " +
+                "VALUES ('CUSTOMER', ?, ?, 'x', ?) RETURNING u_id", Long.class,
+                username + "@example.com", username, username);
+    }
+
+    private long order(long customerId, String total) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO orders (o_order_number, o_customer_id, o_subtotal, o_total_amount, o_shipping_address, " +
+                "o_shipping_city, o_shipping_postal_code, o_shipping_country, o_payment_method) " +
+                "VALUES (?, ?, ?::decimal, ?::decimal, 'Street 1', 'City', '1000', 'Country', 'CARD') RETURNING o_id",
+                Long.class, "T-" + orderNumbers.incrementAndGet(), customerId, total, total);
+    }
+
+    private void item(long orderId, long productId, int quantity, String unitPrice) {
+        jdbcTemplate.update("INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) " +
+                "VALUES (?, ?, ?, ?::decimal, ?::decimal * ?)", orderId, productId, quantity, unitPrice, unitPrice, quantity);
+    }
+}
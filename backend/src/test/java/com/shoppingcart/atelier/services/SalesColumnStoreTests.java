@@ -0,0 +1,156 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Order;
+import com.shoppingcart.atelier.models.OrderEvent;
+import com.shoppingcart.atelier.models.OrderItem;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the fork/join group-by scans against a naive per-row sum over the same lines,
+ * and that orders arriving twice are appended once
+ */
+class SalesColumnStoreTests {
+
+    private static final int ROWS = 300_000;
+    private static final String[] GENDERS = {"MEN", "WOMEN", "UNISEX"};
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final SimpleDriverDataSource dataSource = new SimpleDriverDataSource();
+    private final SalesColumnStore store = new SalesColumnStore(new JdbcTemplate(dataSource),
+            new DataSourceTransactionManager(dataSource), true, 4, 1000);
+    private final List<Line> lines = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        store.shutdown();
+    }
+
+    @Test
+    void groupByMatchesNaiveSumsForEveryDimension() {
+        loadRandomLines();
+        store.onOrderStatusChanged(7L, "CANCELLED");
+        store.onOrderStatusChanged(11L, "CANCELLED");
+        store.onOrderStatusChanged(11L, "SHIPPED");
+
+        LocalDateTime from = START.plusDays(10);
+        LocalDateTime to = START.plusDays(40);
+        for (SalesColumnStore.Dimension dimension : SalesColumnStore.Dimension.values()) {
+            assertEquals(naive(dimension, null, null), actual(dimension, null, null), dimension.name());
+            assertEquals(naive(dimension, from, to), actual(dimension, from, to), dimension + " in range");
+        }
+    }
+
+    @Test
+    void checkoutsDuringTheLoadAreAppendedOnce() {
+        Order loadedTwice = order(1L, 3);
+        Order placedDuringLoad = order(2L, 2);
+
+        // The load's snapshot already contains order 1 when its commit callback arrives
+        store.onOrderPlaced(loadedTwice);
+        store.onOrderPlaced(placedDuringLoad);
+        for (OrderItem item : loadedTwice.getItems()) {
+            store.appendRow(1L, item.getProduct().getId(), 1L, "MEN", item.getQuantity(), 1000, START, false);
+        }
+        store.completeLoad();
+
+        assertEquals(5, store.aggregate(SalesColumnStore.Dimension.GENDER, null, null, 10).scannedRows());
+        store.onOrderPlaced(order(3L, 1));
+        SalesColumnStore.Group men = store.aggregate(SalesColumnStore.Dimension.GENDER, null, null, 10).groups().get(0);
+        assertEquals(6, men.lines());
+        assertEquals(new BigDecimal("60.00"), men.revenue());
+    }
+
+    @Test
+    void redeliveredOrderEventsAppendTheOrderOnce() {
+        store.completeLoad();
+        Order order = order(5L, 2);
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        Mockito.when(orderRepository.findWithItemsById(5L)).thenReturn(Optional.of(order));
+        SalesAnalyticsHandler handler = new SalesAnalyticsHandler(orderRepository, store);
+
+        OrderEvent event = OrderEvent.builder().order(order).type(OrderEvent.ORDER_PLACED).build();
+        handler.handle(event);
+        handler.handle(event);
+
+        SalesColumnStore.Group men = store.aggregate(SalesColumnStore.Dimension.GENDER, null, null, 10).groups().get(0);
+        assertEquals(2, men.lines());
+        assertEquals(new BigDecimal("20.00"), men.revenue());
+    }
+
+    private void loadRandomLines() {
+        Random random = new Random(42);
+        for (int i = 0; i < ROWS; i++) {
+            Line line = new Line(i / 3, 1 + random.nextInt(500), 1 + random.nextInt(12), GENDERS[random.nextInt(3)],
+                    1 + random.nextInt(4), 100 + random.nextInt(20_000),
+                    START.plusMinutes(random.nextInt(60 * 24 * 90)));
+            lines.add(line);
+            store.appendRow(line.orderId, line.productId, line.categoryId, line.gender, line.quantity,
+                    line.unitPriceCents, line.createdAt, false);
+        }
+        store.completeLoad();
+    }
+
+    private Map<String, List<Long>> actual(SalesColumnStore.Dimension dimension, LocalDateTime from, LocalDateTime to) {
+        Map<String, List<Long>> groups = new HashMap<>();
+        for (SalesColumnStore.Group group : store.aggregate(dimension, from, to, Integer.MAX_VALUE).groups()) {
+            groups.put(group.key(), List.of(group.revenue().movePointRight(2).longValueExact(), group.units(), group.lines()));
+        }
+        return groups;
+    }
+
+    private Map<String, List<Long>> naive(SalesColumnStore.Dimension dimension, LocalDateTime from, LocalDateTime to) {
+        Map<String, long[]> sums = new HashMap<>();
+        for (Line line : lines) {
+            if (line.orderId == 7 || (from != null && line.createdAt.isBefore(from)) || (to != null && !line.createdAt.isBefore(to))) {
+                continue;
+            }
+            String key = switch (dimension) {
+                case CATEGORY -> String.valueOf(line.categoryId);
+                case GENDER -> line.gender;
+                case PRODUCT -> String.valueOf(line.productId);
+                case DAY -> line.createdAt.toLocalDate().toString();
+            };
+            long[] sum = sums.computeIfAbsent(key, k -> new long[3]);
+            sum[0] += line.unitPriceCents * line.quantity;
+            sum[1] += line.quantity;
+            sum[2]++;
+        }
+        Map<String, List<Long>> groups = new HashMap<>();
+        sums.forEach((key, sum) -> groups.put(key, List.of(sum[0], sum[1], sum[2])));
+        return groups;
+    }
+
+    private static Order order(Long id, int items) {
+        Category category = Category.builder().id(1L).name("Men").build();
+        Order order = Order.builder().id(id).status("PENDING").createdAt(START).items(new ArrayList<>()).build();
+        for (int i = 0; i < items; i++) {
+            Product product = Product.builder().id(100L + i).category(category).gender("MEN").build();
+            order.getItems().add(OrderItem.builder().order(order).product(product).quantity(1)
+                    .unitPrice(new BigDecimal("10.00")).build());
+        }
+        return order;
+    }
+
+    private record Line(long orderId, long productId, long categoryId, String gender, int quantity,
+                        long unitPriceCents, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,270 @@
+package com.shoppingcart.atelier.services;
+
+import com.shoppingcart.atelier.dto.AddToCartRequest;
+import com.shoppingcart.atelier.dto.CreateOrderRequest;
+import com.shoppingcart.atelier.dto.ProductQueryRequest;
+import com.shoppingcart.atelier.models.Cart;
+import com.shoppingcart.atelier.models.CartItem;
+import com.shoppingcart.atelier.models.Category;
+import com.shoppingcart.atelier.models.Product;
+import com.shoppingcart.atelier.models.StockReservation;
+import com.shoppingcart.atelier.repositories.CartRepository;
+import com.shoppingcart.atelier.repositories.CategoryRepository;
+import com.shoppingcart.atelier.repositories.InMemoryCartStore;
+import com.shoppingcart.atelier.repositories.OrderEventRepository;
+import com.shoppingcart.atelier.repositories.OrderRepository;
+import com.shoppingcart.atelier.repositories.ProductRepository;
+import com.shoppingcart.atelier.repositories.StockReservationRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs hundreds of parallel checkouts and add-to-carts against the real schema on an embedded
+ * PostgreSQL and checks that stock is never oversold.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, CartService.class, CartWriteBehind.class, InMemoryCartStore.class, CatalogCache.class,
+        StockReservationService.class, ProductFacetIndex.class, SalesColumnStore.class, OrderNumberGenerator.class})
+class StockReservationConcurrencyTests {
+
+    private static final int SHOPPERS = 400;
+    private static final int THREADS = 32;
+
+    // Started before the context so its URL can be handed to the datasource
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        postgres.close();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private long customerId;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.execute("TRUNCATE users, categories, products, carts, cart_items, stock_reservations, " +
+                "orders, order_items, order_events, rpt_order_summary, rpt_product_sales, rpt_customer_purchases CASCADE");
+        customerId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (u_type, u_email, u_username, u_password, u_fullName) " +
+                "VALUES ('CUSTOMER', 'ana@example.com', 'ana', 'x', 'Ana') RETURNING u_id", Long.class);
+        category = categoryRepository.save(Category.builder().name("Tops").description("Test").build());
+    }
+
+    @Test
+    void parallelMultiLineCheckoutsNeverOversell() throws Exception {
+        Product shirt = product("SHIRT", 60);
+        Product scarf = product("SCARF", 40);
+        for (int i = 0; i < SHOPPERS; i++) {
+            Cart cart = Cart.builder().sessionId("checkout-" + i).totalPrice(new BigDecimal("20.00")).build();
+            cart.getItems().add(item(cart, shirt));
+            cart.getItems().add(item(cart, scarf));
+            cartRepository.save(cart);
+        }
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runInParallel(i -> {
+            try {
+                orderService.createOrderFromCart(orderRequest("checkout-" + i, customerId));
+                placed.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                rejected.incrementAndGet();
+            }
+        });
+
+        // Every order takes one scarf, so scarves run out first and no order is half-placed
+        assertEquals(40, placed.get());
+        assertEquals(SHOPPERS - 40, rejected.get());
+        assertEquals(40, orderRepository.count());
+        assertEquals(40, orderEventRepository.count());
+        assertEquals(20, stockOf(shirt));
+        assertEquals(0, stockOf(scarf));
+    }
+
+    @Test
+    void parallelAddsReserveAtMostTheStockAndExpiredReservationsAreReturned() throws Exception {
+        Product shirt = product("SHIRT", 50);
+        facetIndex.invalidate();
+        assertEquals(List.of(shirt.getId()), inStockProductIds());
+
+        AtomicInteger added = new AtomicInteger();
+        runInParallel(i -> {
+            try {
+                cartService.addToCart("shopper-" + i, new AddToCartRequest(shirt.getId(), 1));
+                added.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertEquals("Insufficient stock", e.getMessage());
+            }
+        });
+
+        assertEquals(50, added.get());
+        assertEquals(0, stockOf(shirt));
+        // The last reservation took the stock to zero and moved the shirt out of stock
+        assertEquals(List.of(), inStockProductIds());
+        assertEquals(50, reservationRepository.findAll().stream().mapToInt(StockReservation::getQuantity).sum());
+
+        assertEquals(50, stockReservationService.releaseExpiredBefore(LocalDateTime.now().plusDays(1)));
+        assertEquals(50, stockOf(shirt));
+        assertEquals(0, reservationRepository.count());
+        assertEquals(List.of(shirt.getId()), inStockProductIds());
+    }
+
+    @Test
+    void concurrentFirstAddsOfOneProductInOneSessionShareOneReservation() throws Exception {
+        Product shirt = product("SHIRT", SHOPPERS);
+
+        // A double-clicked "Add to cart": every add is the session's first of the product
+        runInParallel(i -> stockReservationService.reserve("double-click", shirt.getId(), 1));
+
+        assertEquals(0, stockOf(shirt));
+        List<StockReservation> reservations = reservationRepository.findAll();
+        assertEquals(1, reservations.size());
+        assertEquals(SHOPPERS, reservations.get(0).getQuantity());
+    }
+
+    private void runInParallel(IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>(SHOPPERS);
+        for (int i = 0; i < SHOPPERS; i++) {
+            int shopper = i;
+            futures.add(executor.submit(() -> task.accept(shopper)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    private Product product(String sku, int stock) {
+        return productRepository.save(Product.builder()
+                .category(category)
+                .name(sku)
+                .description("Test")
+                .sku(sku)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(stock)
+                .build());
+    }
+
+    private static CartItem item(Cart cart, Product product) {
+        return CartItem.builder()
+                .cart(cart)
+                .product(product)
+                .quantity(1)
+                .unitPrice(new BigDecimal("10.00"))
+                .totalPrice(new BigDecimal("10.00"))
+                .build();
+    }
+
+    private static CreateOrderRequest orderRequest(String sessionId, long customerId) {
+        return CreateOrderRequest.builder()
+                .sessionId(sessionId)
+                .customerId(customerId)
+                .shippingAddress("1 Test Street")
+                .shippingCity("Lisbon")
+                .shippingPostalCode("1000-001")
+                .shippingCountry("Portugal")
+                .paymentMethod("CARD")
+                .build();
+    }
+
+    private List<Long> inStockProductIds() {
+        return facetIndex.query(ProductQueryRequest.builder().inStock(true).build()).products().stream()
+                .map(Product::getId)
+                .toList();
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres started = EmbeddedPostgres.builder().start();
+            try (var connection = started.getPostgresDatabase().getConnection();
+                 var statement = connection.createStatement()) {
+                statement.execute(Files.readString(Path.of("../database/schema.sql")));
+                statement.execute(Files.readString(Path.of("../database/triggers.sql")));
+            }
+            return started;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start embedded PostgreSQL", e);
+        }
+    }
+}
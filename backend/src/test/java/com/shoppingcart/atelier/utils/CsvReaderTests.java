@@ -0,0 +1,68 @@
+package com.shoppingcart.atelier.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the streaming CSV reader on quoting edge cases and against what CsvWriter produces
+ */
+class CsvReaderTests {
+
+    @Test
+    void readsQuotedFieldsLineBreaksAndBlankLines() {
+        CsvReader reader = new CsvReader(new StringReader(
+                "sku,name,description\r\n" +
+                "A-1,\"Shirt, linen\",\"Says \"\"hi\"\"\"\n" +
+                "\n" +
+                "A-2,Coat,\"two\nlines\"\r\n" +
+                "A-3,,"));
+
+        assertEquals(List.of("sku", "name", "description"), reader.next());
+        assertEquals(List.of("A-1", "Shirt, linen", "Says \"hi\""), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("A-2", "Coat", "two\nlines"), reader.next());
+        assertEquals(4, reader.getRecordLine());
+        assertEquals(List.of("A-3", "", ""), reader.next());
+        assertEquals(6, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() {
+        CsvReader reader = new CsvReader(new StringReader("sku\n\"A-1\n"));
+        assertEquals(List.of("sku"), reader.next());
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+
+    @Test
+    void roundTripsWhatCsvWriterWrites() throws IOException {
+        List<List<String>> rows = List.of(
+                List.of("plain", "with,comma", "with \"quotes\""),
+                List.of("multi\r\nline", "", "trailing space "));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        for (List<String> row : rows) {
+            writer.write(row.toArray());
+        }
+        writer.flush();
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString(StandardCharsets.UTF_8)));
+        List<List<String>> read = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            read.add(record);
+        }
+        assertEquals(rows, read);
+    }
+}
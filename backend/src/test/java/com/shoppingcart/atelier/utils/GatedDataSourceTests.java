@@ -0,0 +1,109 @@
+package com.shoppingcart.atelier.utils;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that GatedDataSource bounds concurrent connections under a virtual-thread burst,
+ * returns every permit and rejects callers beyond maxWaiting
+ */
+class GatedDataSourceTests {
+
+    private static final int POOL_SIZE = 10;
+    private static final int REQUESTS = 300;
+    private static final int QUERY_MILLIS = 5;
+
+    private static HikariDataSource pool;
+
+    @BeforeAll
+    static void startPool() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:gated;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(30000);
+        pool = new HikariDataSource(config);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR 'java.lang.Thread.sleep(long)'");
+        }
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.close();
+    }
+
+    @Test
+    void virtualThreadBurstNeverHoldsMoreConnectionsThanPermits() throws Exception {
+        GatedDataSource gate = new GatedDataSource(pool, POOL_SIZE, REQUESTS, Duration.ofSeconds(30));
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        LongAdder errors = new LongAdder();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = gate.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        statement.execute("CALL SLEEP(" + QUERY_MILLIS + ")");
+                        inUse.decrementAndGet();
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        }
+
+        assertEquals(0, errors.sum());
+        assertTrue(maxInUse.get() <= POOL_SIZE, "gate let " + maxInUse.get() + " callers through");
+        assertEquals(POOL_SIZE, gate.getStats().get("available"));
+        assertEquals(0, gate.getStats().get("waiting"));
+    }
+
+    @Test
+    void callersBeyondMaxWaitingAreRejectedImmediately() throws Exception {
+        GatedDataSource gate = new GatedDataSource(pool, 1, 1, Duration.ofSeconds(30));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> queued;
+            try (Connection held = gate.getConnection()) {
+                queued = executor.submit(() -> {
+                    gate.getConnection().close();
+                    return null;
+                });
+                while ((int) gate.getStats().get("waiting") < 1) {
+                    Thread.sleep(1);
+                }
+                assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+                assertEquals(1L, gate.getStats().get("rejected"));
+            }
+            // Closing the held connection hands its permit to the queued caller
+            queued.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(1, gate.getStats().get("available"));
+    }
+}
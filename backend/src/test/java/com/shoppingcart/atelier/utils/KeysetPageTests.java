@@ -0,0 +1,95 @@
+package com.shoppingcart.atelier.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks cursor encoding, limit clamping and where keyset pages start and end
+ */
+class KeysetPageTests {
+
+    private static final List<Long> IDS = List.of(3L, 5L, 8L, 13L, 21L);
+
+    @Test
+    void cursorsRoundTripAndAreUrlSafe() {
+        for (long id : List.of(0L, 1L, 42L, Long.MAX_VALUE, -7L)) {
+            String cursor = KeysetPage.encodeCursor(id);
+            assertEquals(id, KeysetPage.decodeCursor(cursor));
+            assertEquals(-1, cursor.indexOf('='));
+        }
+        assertNull(KeysetPage.decodeCursor(null));
+        assertNull(KeysetPage.decodeCursor(" "));
+    }
+
+    @Test
+    void malformedCursorsAreBadRequests() {
+        String notANumber = Base64.getUrlEncoder().encodeToString("abc".getBytes(StandardCharsets.UTF_8));
+        for (String cursor : List.of("!!!", notANumber)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> KeysetPage.decodeCursor(cursor));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void limitsAreClampedToTheAllowedRange() {
+        assertEquals(KeysetPage.DEFAULT_LIMIT, KeysetPage.clampLimit(null));
+        assertEquals(1, KeysetPage.clampLimit(0));
+        assertEquals(1, KeysetPage.clampLimit(-5));
+        assertEquals(20, KeysetPage.clampLimit(20));
+        assertEquals(KeysetPage.MAX_LIMIT, KeysetPage.clampLimit(10_000));
+    }
+
+    @Test
+    void sliceStartsAfterTheCursorWhetherOrNotItIsStillInTheList() {
+        assertEquals(List.of(3L, 5L), slice(null, 2));
+        assertEquals(List.of(8L, 13L), slice(5L, 2));
+        // The cursor's row was deleted since the previous page
+        assertEquals(List.of(8L, 13L), slice(6L, 2));
+        assertEquals(List.of(3L), slice(0L, 1));
+        assertEquals(List.of(21L), slice(13L, 2));
+        assertEquals(List.of(), slice(21L, 2));
+        assertEquals(List.of(), slice(100L, 2));
+    }
+
+    @Test
+    void nextCursorIsSentOnlyForFullPages() {
+        ResponseEntity<List<Long>> full = KeysetPage.respond(List.of(3L, 5L), Function.identity(), 2);
+        assertEquals(KeysetPage.encodeCursor(5L), full.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER));
+
+        ResponseEntity<List<Long>> last = KeysetPage.respond(List.of(21L), Function.identity(), 2);
+        assertNull(last.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER));
+
+        ResponseEntity<List<Long>> empty = KeysetPage.respond(List.of(), Function.identity(), 2);
+        assertNull(empty.getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER));
+
+        // Following the cursors visits every ID exactly once
+        Long afterId = null;
+        List<Long> visited = new ArrayList<>();
+        while (true) {
+            List<Long> page = slice(afterId, 2);
+            visited.addAll(page);
+            String next = KeysetPage.respond(page, Function.identity(), 2).getHeaders().getFirst(KeysetPage.NEXT_CURSOR_HEADER);
+            if (next == null) {
+                break;
+            }
+            afterId = KeysetPage.decodeCursor(next);
+        }
+        assertEquals(IDS, visited);
+    }
+
+    private static List<Long> slice(Long afterId, int limit) {
+        return KeysetPage.slice(IDS, Function.identity(), afterId, limit);
+    }
+}
@@ -0,0 +1,106 @@
+package com.shoppingcart.atelier.utils;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SqlProfiler behind a datasource-proxy over H2: per-request attribution, budgets and fingerprint grouping
+ */
+class SqlProfilerTests {
+
+    private SqlProfiler profiler;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:profiler;DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS items");
+            statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR 'java.lang.Thread.sleep(long)'");
+        }
+        profiler = new SqlProfiler(Duration.ofMillis(50), 3, Duration.ofSeconds(5), 100);
+        dataSource = ProxyDataSourceBuilder.create(h2).listener(profiler).build();
+    }
+
+    @Test
+    void attributesStatementsToTheRequestAndFlagsOverBudget() throws Exception {
+        SqlProfiler.RequestProfile small = profiler.begin("GET", "/api/items/1");
+        execute("SELECT * FROM items WHERE id = 1");
+        assertFalse(profiler.end(small));
+        assertEquals(1, small.getStatements());
+
+        SqlProfiler.RequestProfile chatty = profiler.begin("GET", "/api/items");
+        for (int i = 0; i < 5; i++) {
+            execute("SELECT * FROM items WHERE id = " + i);
+        }
+        assertTrue(profiler.end(chatty));
+        assertEquals(5, chatty.getStatements());
+        assertTrue(chatty.getNanos() > 0);
+
+        // Statements outside a request still feed the fingerprints but no profile
+        execute("SELECT * FROM items WHERE id = 99");
+        assertEquals(5, chatty.getStatements());
+    }
+
+    @Test
+    void groupsStatementsByFingerprintAndRanksTheSlowest() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            String ids = i % 2 == 0 ? "1, 2" : "1, 2, 3";
+            execute("SELECT * FROM items WHERE name = 'n" + i + "' AND id IN (" + ids + ")");
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO items (id, name) VALUES (?, ?)")) {
+            for (long id = 1; id <= 3; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "item " + id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        execute("CALL SLEEP(60)");
+
+        List<Map<String, Object>> top = profiler.top(10, "max");
+        assertEquals("CALL SLEEP(?)", top.get(0).get("fingerprint"));
+        assertTrue((Double) top.get(0).get("maxMs") >= 50);
+
+        Map<String, Object> select = top.stream()
+                .filter(row -> row.get("fingerprint").equals("SELECT * FROM items WHERE name = ? AND id IN (?+)"))
+                .findFirst().orElseThrow();
+        assertEquals(4L, select.get("count"));
+        assertTrue(top.stream().anyMatch(row -> row.get("fingerprint").equals("INSERT INTO items (id, name) VALUES (?, ?)")
+                && row.get("count").equals(1L)));
+
+        profiler.reset();
+        assertTrue(profiler.top(10, "total").isEmpty());
+    }
+
+    @Test
+    void fingerprintsIgnoreLiteralsAndListLength() {
+        assertEquals("SELECT p FROM t WHERE a = ? AND b IN (?+) AND c = ?",
+                SqlFingerprint.of("SELECT p FROM t\n  WHERE a = 'it''s' AND b IN (1, 2,3) AND c = -4.5"));
+        assertEquals("SELECT p1_0.p_id FROM products p1_0 WHERE p1_0.p_id = ?",
+                SqlFingerprint.of("SELECT p1_0.p_id FROM products p1_0 WHERE p1_0.p_id = ?"));
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Add cart expiry support
+-- The expiry sweeper deletes carts whose updated_at is older than app.cart-expiry.ttl,
+-- oldest first, so it needs an index on updated_at.
+-- Safe to re-run.
+
+CREATE INDEX IF NOT EXISTS idx_carts_updated_at ON carts(updated_at);
+
+-- ct_session_id is already indexed by its UNIQUE constraint; the second index only added write cost and bloat
+DROP INDEX IF EXISTS idx_carts_session_id;
+-- Likewise ci_cart_id is the leading column of unq_cart_product
+DROP INDEX IF EXISTS idx_cart_items_cart;
+
+-- Carts churn: vacuum after 5% dead rows instead of the 20% default so swept space is reused sooner
+ALTER TABLE carts SET (autovacuum_vacuum_scale_factor = 0.05);
+ALTER TABLE cart_items SET (autovacuum_vacuum_scale_factor = 0.05);
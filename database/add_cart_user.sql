@@ -0,0 +1,9 @@
+-- Add customer carts
+-- Links a cart to the customer who owns it; at login a guest cart is merged into the
+-- customer's cart, or becomes it if the customer has none yet.
+-- Safe to re-run.
+
+ALTER TABLE carts ADD COLUMN IF NOT EXISTS ct_user_id BIGINT REFERENCES users(u_id) ON DELETE SET NULL;
+
+-- A customer has at most one cart
+CREATE UNIQUE INDEX IF NOT EXISTS unq_carts_user ON carts(ct_user_id) WHERE ct_user_id IS NOT NULL;
@@ -0,0 +1,23 @@
+-- Add order_events outbox table
+-- Checkout inserts one row per order in the order's transaction; background workers
+-- claim due rows with FOR UPDATE SKIP LOCKED and run the downstream stages
+
+CREATE SEQUENCE IF NOT EXISTS order_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_events (
+    oe_id BIGINT PRIMARY KEY DEFAULT nextval('order_events_seq'),
+    oe_order_id BIGINT NOT NULL REFERENCES orders(o_id) ON DELETE CASCADE,
+    oe_type VARCHAR(50) NOT NULL,
+    oe_status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (oe_status IN ('PENDING', 'DONE', 'FAILED')),
+    oe_attempts INTEGER NOT NULL DEFAULT 0,
+    oe_next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    oe_last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    oe_processed_at TIMESTAMP
+);
+
+-- Workers poll pending events by due time
+CREATE INDEX IF NOT EXISTS idx_order_events_pending ON order_events(oe_next_attempt_at) WHERE oe_status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_order_events_order ON order_events(oe_order_id);
+
+ALTER SEQUENCE order_events_seq OWNED BY order_events.oe_id;
@@ -0,0 +1,310 @@
+-- Add reporting summary tables
+-- Replaces the GROUP BY views over orders/order_items with trigger-maintained summary tables.
+-- Safe to re-run; the final rebuild backfills the summaries from existing orders.
+
+-- Item count per order
+CREATE TABLE IF NOT EXISTS rpt_order_summary (
+    rs_order_id BIGINT PRIMARY KEY REFERENCES orders(o_id) ON DELETE CASCADE,
+    rs_total_items INTEGER NOT NULL DEFAULT 0
+);
+
+-- Sales per product over orders that are not CANCELLED
+CREATE TABLE IF NOT EXISTS rpt_product_sales (
+    rp_product_id BIGINT PRIMARY KEY REFERENCES products(p_id) ON DELETE CASCADE,
+    rp_times_sold BIGINT NOT NULL DEFAULT 0,
+    rp_quantity_sold BIGINT NOT NULL DEFAULT 0,
+    rp_revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    rp_unit_price_sum DECIMAL(14, 2) NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_rpt_product_sales_revenue ON rpt_product_sales(rp_revenue DESC);
+
+-- Purchases per customer over orders that are not CANCELLED
+CREATE TABLE IF NOT EXISTS rpt_customer_purchases (
+    rc_customer_id BIGINT PRIMARY KEY REFERENCES users(u_id) ON DELETE CASCADE,
+    rc_total_orders BIGINT NOT NULL DEFAULT 0,
+    rc_lifetime_value DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    rc_last_order_date TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_rpt_customer_purchases_value ON rpt_customer_purchases(rc_lifetime_value DESC);
+
+-- Add (p_sign = 1) or remove (p_sign = -1) every line item of one order from product sales
+CREATE OR REPLACE FUNCTION fn_rpt_apply_order_items(p_order_id BIGINT, p_sign INTEGER)
+RETURNS VOID AS $$
+BEGIN
+    INSERT INTO rpt_product_sales AS rp (rp_product_id, rp_times_sold, rp_quantity_sold, rp_revenue, rp_unit_price_sum)
+    SELECT ot_product_id,
+           p_sign * COUNT(*),
+           p_sign * SUM(ot_quantity),
+           p_sign * SUM(ot_subtotal),
+           p_sign * SUM(ot_unit_price)
+    FROM order_items
+    WHERE ot_order_id = p_order_id
+    GROUP BY ot_product_id
+    -- Fixed lock order so orders sharing products cannot deadlock
+    ORDER BY ot_product_id
+    ON CONFLICT (rp_product_id) DO UPDATE SET
+        rp_times_sold = rp.rp_times_sold + EXCLUDED.rp_times_sold,
+        rp_quantity_sold = rp.rp_quantity_sold + EXCLUDED.rp_quantity_sold,
+        rp_revenue = rp.rp_revenue + EXCLUDED.rp_revenue,
+        rp_unit_price_sum = rp.rp_unit_price_sum + EXCLUDED.rp_unit_price_sum;
+END;
+$$ language 'plpgsql';
+
+-- Remove one set of line items and add another, moving the item counts and product sales.
+-- Items of CANCELLED orders are not in product sales, nor are those of an order being deleted:
+-- during a cascading order delete the order is already gone and its sales were removed up front.
+CREATE OR REPLACE FUNCTION fn_rpt_apply_items(p_removed order_items[], p_added order_items[])
+RETURNS VOID AS $$
+BEGIN
+    -- Take every summary row lock up front in key order, so writers sharing orders or
+    -- products queue on the first shared row instead of deadlocking
+    PERFORM 1 FROM rpt_order_summary
+    WHERE rs_order_id IN (SELECT ot_order_id FROM unnest(p_removed) UNION SELECT ot_order_id FROM unnest(p_added))
+    ORDER BY rs_order_id
+    FOR UPDATE;
+    PERFORM 1 FROM rpt_product_sales
+    WHERE rp_product_id IN (SELECT ot_product_id FROM unnest(p_removed) UNION SELECT ot_product_id FROM unnest(p_added))
+    ORDER BY rp_product_id
+    FOR UPDATE;
+
+    UPDATE rpt_order_summary rs SET rs_total_items = rs.rs_total_items + d.item_delta
+    FROM (SELECT ot_order_id, SUM(item_sign) AS item_delta
+          FROM (SELECT ot_order_id, -1 AS item_sign FROM unnest(p_removed)
+                UNION ALL
+                SELECT ot_order_id, 1 FROM unnest(p_added)) i
+          GROUP BY ot_order_id) d
+    WHERE rs.rs_order_id = d.ot_order_id;
+
+    -- Removal never inserts: when a product is deleted its summary row is already gone
+    UPDATE rpt_product_sales rp SET
+        rp_times_sold = rp.rp_times_sold - d.times_sold,
+        rp_quantity_sold = rp.rp_quantity_sold - d.quantity_sold,
+        rp_revenue = rp.rp_revenue - d.revenue,
+        rp_unit_price_sum = rp.rp_unit_price_sum - d.unit_price_sum
+    FROM (SELECT i.ot_product_id,
+                 COUNT(*) AS times_sold,
+                 SUM(i.ot_quantity) AS quantity_sold,
+                 SUM(i.ot_subtotal) AS revenue,
+                 SUM(i.ot_unit_price) AS unit_price_sum
+          FROM unnest(p_removed) i
+          JOIN orders o ON o.o_id = i.ot_order_id AND o.o_status <> 'CANCELLED'
+          GROUP BY i.ot_product_id) d
+    WHERE rp.rp_product_id = d.ot_product_id;
+
+    INSERT INTO rpt_product_sales AS rp (rp_product_id, rp_times_sold, rp_quantity_sold, rp_revenue, rp_unit_price_sum)
+    SELECT i.ot_product_id, COUNT(*), SUM(i.ot_quantity), SUM(i.ot_subtotal), SUM(i.ot_unit_price)
+    FROM unnest(p_added) i
+    JOIN orders o ON o.o_id = i.ot_order_id AND o.o_status <> 'CANCELLED'
+    GROUP BY i.ot_product_id
+    ORDER BY i.ot_product_id
+    ON CONFLICT (rp_product_id) DO UPDATE SET
+        rp_times_sold = rp.rp_times_sold + EXCLUDED.rp_times_sold,
+        rp_quantity_sold = rp.rp_quantity_sold + EXCLUDED.rp_quantity_sold,
+        rp_revenue = rp.rp_revenue + EXCLUDED.rp_revenue,
+        rp_unit_price_sum = rp.rp_unit_price_sum + EXCLUDED.rp_unit_price_sum;
+END;
+$$ language 'plpgsql';
+
+-- Add or remove one order from its customer's purchases.
+-- On removal the last order date is recomputed only if this order was the latest one.
+CREATE OR REPLACE FUNCTION fn_rpt_apply_customer_order(p_order_id BIGINT, p_customer_id BIGINT, p_total DECIMAL,
+                                                       p_order_date TIMESTAMP, p_sign INTEGER)
+RETURNS VOID AS $$
+BEGIN
+    IF p_sign > 0 THEN
+        INSERT INTO rpt_customer_purchases AS rc (rc_customer_id, rc_total_orders, rc_lifetime_value, rc_last_order_date)
+        VALUES (p_customer_id, 1, p_total, p_order_date)
+        ON CONFLICT (rc_customer_id) DO UPDATE SET
+            rc_total_orders = rc.rc_total_orders + 1,
+            rc_lifetime_value = rc.rc_lifetime_value + EXCLUDED.rc_lifetime_value,
+            rc_last_order_date = GREATEST(rc.rc_last_order_date, EXCLUDED.rc_last_order_date);
+    ELSE
+        UPDATE rpt_customer_purchases SET
+            rc_total_orders = rc_total_orders - 1,
+            rc_lifetime_value = rc_lifetime_value - p_total,
+            rc_last_order_date = CASE
+                WHEN rc_last_order_date > p_order_date THEN rc_last_order_date
+                ELSE (SELECT MAX(created_at) FROM orders
+                      WHERE o_customer_id = p_customer_id AND o_status <> 'CANCELLED' AND o_id <> p_order_id)
+            END
+        WHERE rc_customer_id = p_customer_id;
+    END IF;
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION fn_rpt_orders_changed()
+RETURNS TRIGGER AS $$
+DECLARE
+    was_counted BOOLEAN := FALSE;
+    is_counted BOOLEAN := FALSE;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO rpt_order_summary (rs_order_id) VALUES (NEW.o_id);
+    ELSE
+        was_counted := OLD.o_status <> 'CANCELLED';
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        is_counted := NEW.o_status <> 'CANCELLED';
+    END IF;
+
+    -- Line items move with the order into or out of CANCELLED
+    IF was_counted AND NOT is_counted THEN
+        PERFORM fn_rpt_apply_order_items(OLD.o_id, -1);
+    ELSIF is_counted AND NOT was_counted AND TG_OP = 'UPDATE' THEN
+        PERFORM fn_rpt_apply_order_items(NEW.o_id, 1);
+    END IF;
+
+    IF was_counted THEN
+        PERFORM fn_rpt_apply_customer_order(OLD.o_id, OLD.o_customer_id, OLD.o_total_amount, OLD.created_at, -1);
+    END IF;
+    IF is_counted THEN
+        PERFORM fn_rpt_apply_customer_order(NEW.o_id, NEW.o_customer_id, NEW.o_total_amount, NEW.created_at, 1);
+    END IF;
+
+    -- The delete trigger runs BEFORE and must hand the row back to let the delete proceed
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+-- Runs once per statement over its transition tables, so a multi-row write locks each
+-- summary row once and in key order rather than row by row in insertion order
+CREATE OR REPLACE FUNCTION fn_rpt_order_items_changed()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM fn_rpt_apply_items(NULL::order_items[], ARRAY(SELECT n::order_items FROM new_items n));
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM fn_rpt_apply_items(ARRAY(SELECT o::order_items FROM old_items o), ARRAY(SELECT n::order_items FROM new_items n));
+    ELSE
+        PERFORM fn_rpt_apply_items(ARRAY(SELECT o::order_items FROM old_items o), NULL::order_items[]);
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS trg_orders_rpt_insert ON orders;
+CREATE TRIGGER trg_orders_rpt_insert AFTER INSERT ON orders
+    FOR EACH ROW EXECUTE FUNCTION fn_rpt_orders_changed();
+
+DROP TRIGGER IF EXISTS trg_orders_rpt_update ON orders;
+CREATE TRIGGER trg_orders_rpt_update AFTER UPDATE ON orders
+    FOR EACH ROW
+    WHEN (OLD.o_status IS DISTINCT FROM NEW.o_status
+          OR OLD.o_customer_id IS DISTINCT FROM NEW.o_customer_id
+          OR OLD.o_total_amount IS DISTINCT FROM NEW.o_total_amount
+          OR OLD.created_at IS DISTINCT FROM NEW.created_at)
+    EXECUTE FUNCTION fn_rpt_orders_changed();
+
+-- BEFORE so the order's line items are still there to subtract
+DROP TRIGGER IF EXISTS trg_orders_rpt_delete ON orders;
+CREATE TRIGGER trg_orders_rpt_delete BEFORE DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION fn_rpt_orders_changed();
+
+-- The per-row trigger and its helper are replaced by the per-statement triggers below.
+-- Transition tables allow only one event per trigger.
+DROP TRIGGER IF EXISTS trg_order_items_rpt ON order_items;
+DROP FUNCTION IF EXISTS fn_rpt_apply_item(BIGINT, INTEGER, DECIMAL, DECIMAL, INTEGER);
+
+DROP TRIGGER IF EXISTS trg_order_items_rpt_insert ON order_items;
+CREATE TRIGGER trg_order_items_rpt_insert AFTER INSERT ON order_items
+    REFERENCING NEW TABLE AS new_items
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_rpt_order_items_changed();
+
+DROP TRIGGER IF EXISTS trg_order_items_rpt_update ON order_items;
+CREATE TRIGGER trg_order_items_rpt_update AFTER UPDATE ON order_items
+    REFERENCING OLD TABLE AS old_items NEW TABLE AS new_items
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_rpt_order_items_changed();
+
+DROP TRIGGER IF EXISTS trg_order_items_rpt_delete ON order_items;
+CREATE TRIGGER trg_order_items_rpt_delete AFTER DELETE ON order_items
+    REFERENCING OLD TABLE AS old_items
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_rpt_order_items_changed();
+
+-- Recompute every summary from scratch, e.g. after a bulk load with triggers disabled
+CREATE OR REPLACE FUNCTION fn_rebuild_reporting()
+RETURNS VOID AS $$
+BEGIN
+    -- Block order writes so no trigger delta lands between the wipe and the reload
+    LOCK TABLE orders, order_items IN SHARE MODE;
+
+    TRUNCATE rpt_order_summary, rpt_product_sales, rpt_customer_purchases;
+
+    INSERT INTO rpt_order_summary (rs_order_id, rs_total_items)
+    SELECT o.o_id, COUNT(oi.ot_id)
+    FROM orders o
+    LEFT JOIN order_items oi ON oi.ot_order_id = o.o_id
+    GROUP BY o.o_id;
+
+    INSERT INTO rpt_product_sales (rp_product_id, rp_times_sold, rp_quantity_sold, rp_revenue, rp_unit_price_sum)
+    SELECT oi.ot_product_id, COUNT(*), SUM(oi.ot_quantity), SUM(oi.ot_subtotal), SUM(oi.ot_unit_price)
+    FROM order_items oi
+    JOIN orders o ON o.o_id = oi.ot_order_id AND o.o_status <> 'CANCELLED'
+    GROUP BY oi.ot_product_id;
+
+    INSERT INTO rpt_customer_purchases (rc_customer_id, rc_total_orders, rc_lifetime_value, rc_last_order_date)
+    SELECT o_customer_id, COUNT(*), SUM(o_total_amount), MAX(created_at)
+    FROM orders
+    WHERE o_status <> 'CANCELLED'
+    GROUP BY o_customer_id;
+END;
+$$ language 'plpgsql';
+
+-- The view columns change type, so they are dropped rather than replaced
+DROP VIEW IF EXISTS v_order_summary;
+DROP VIEW IF EXISTS v_product_sales;
+DROP VIEW IF EXISTS v_customer_purchases;
+
+-- View: Order summary for sales reports
+CREATE OR REPLACE VIEW v_order_summary AS
+SELECT
+    o.o_id as order_id,
+    o.o_customer_id,
+    u.u_fullName as customer_name,
+    u.u_email as customer_email,
+    o.o_total_amount,
+    o.o_status,
+    o.created_at as order_date,
+    o.o_completed_at,
+    COALESCE(rs.rs_total_items, 0) as total_items
+FROM orders o
+JOIN users u ON o.o_customer_id = u.u_id
+LEFT JOIN rpt_order_summary rs ON rs.rs_order_id = o.o_id;
+
+-- View: Product sales report (orders that are not CANCELLED)
+CREATE OR REPLACE VIEW v_product_sales AS
+SELECT
+    p.p_id as product_id,
+    p.p_name as product_name,
+    p.p_sku,
+    c.c_name as category_name,
+    COALESCE(rp.rp_times_sold, 0) as times_sold,
+    NULLIF(rp.rp_quantity_sold, 0) as total_quantity_sold,
+    CASE WHEN rp.rp_times_sold > 0 THEN rp.rp_revenue END as total_revenue,
+    CASE WHEN rp.rp_times_sold > 0 THEN rp.rp_unit_price_sum / rp.rp_times_sold END as average_selling_price,
+    p.p_stock_quantity as current_stock
+FROM products p
+LEFT JOIN categories c ON p.p_category_id = c.c_id
+LEFT JOIN rpt_product_sales rp ON rp.rp_product_id = p.p_id
+ORDER BY total_revenue DESC;
+
+-- View: Customer purchase history (orders that are not CANCELLED)
+CREATE OR REPLACE VIEW v_customer_purchases AS
+SELECT
+    u.u_id as customer_id,
+    u.u_fullName as customer_name,
+    u.u_email as customer_email,
+    COALESCE(rc.rc_total_orders, 0) as total_orders,
+    CASE WHEN rc.rc_total_orders > 0 THEN rc.rc_lifetime_value END as lifetime_value,
+    rc.rc_last_order_date as last_order_date,
+    CASE WHEN rc.rc_total_orders > 0 THEN rc.rc_lifetime_value / rc.rc_total_orders END as average_order_value
+FROM users u
+LEFT JOIN rpt_customer_purchases rc ON rc.rc_customer_id = u.u_id
+WHERE u.u_type = 'CUSTOMER'
+ORDER BY lifetime_value DESC;
+
+SELECT fn_rebuild_reporting();
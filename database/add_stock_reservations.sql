@@ -0,0 +1,17 @@
+-- Add stock_reservations table
+-- Holds stock taken off p_stock_quantity at add-to-cart until checkout converts it
+-- or the expiry sweeper returns it
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    sr_id BIGSERIAL PRIMARY KEY,
+    sr_session_id VARCHAR(255) NOT NULL,
+    sr_product_id BIGINT NOT NULL REFERENCES products(p_id) ON DELETE CASCADE,
+    sr_quantity INTEGER NOT NULL CHECK (sr_quantity > 0),
+    sr_expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT unq_reservation_session_product UNIQUE (sr_session_id, sr_product_id)
+);
+
+-- The sweeper scans by expiry
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_expires_at ON stock_reservations(sr_expires_at);
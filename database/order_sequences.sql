@@ -0,0 +1,21 @@
+-- Switch orders and order_items to pooled sequences
+-- The application allocates IDs 50 at a time (allocationSize = 50 on Order/OrderItem),
+-- which lets Hibernate batch the inserts of an order's items.
+-- Column defaults use the same sequences, so plain SQL inserts stay compatible.
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+
+-- Start above the existing rows
+SELECT setval('orders_seq', (SELECT COALESCE(MAX(o_id), 0) + 1 FROM orders));
+SELECT setval('order_items_seq', (SELECT COALESCE(MAX(ot_id), 0) + 1 FROM order_items));
+
+ALTER TABLE orders ALTER COLUMN o_id SET DEFAULT nextval('orders_seq');
+ALTER TABLE order_items ALTER COLUMN ot_id SET DEFAULT nextval('order_items_seq');
+
+ALTER SEQUENCE orders_seq OWNED BY orders.o_id;
+ALTER SEQUENCE order_items_seq OWNED BY order_items.ot_id;
+
+-- The old serial sequences are no longer used
+DROP SEQUENCE IF EXISTS orders_o_id_seq;
+DROP SEQUENCE IF EXISTS order_items_ot_id_seq;
@@ -13,5 +13,5 @@ ALTER SEQUENCE users_u_id_seq RESTART WITH 1;
 ALTER SEQUENCE categories_c_id_seq RESTART WITH 1;
 ALTER SEQUENCE products_p_id_seq RESTART WITH 1;
 ALTER SEQUENCE cart_items_c_id_seq RESTART WITH 1;
-ALTER SEQUENCE orders_o_id_seq RESTART WITH 1;
-ALTER SEQUENCE order_items_ot_id_seq RESTART WITH 1;
+ALTER SEQUENCE orders_seq RESTART WITH 1;
+ALTER SEQUENCE order_items_seq RESTART WITH 1;
@@ -1,8 +1,13 @@
 -- Atelier Database Schema
 
 -- Drop tables if they exist
+DROP TABLE IF EXISTS rpt_customer_purchases CASCADE;
+DROP TABLE IF EXISTS rpt_product_sales CASCADE;
+DROP TABLE IF EXISTS rpt_order_summary CASCADE;
+DROP TABLE IF EXISTS order_events CASCADE;
 DROP TABLE IF EXISTS order_items CASCADE;
 DROP TABLE IF EXISTS orders CASCADE;
+DROP TABLE IF EXISTS stock_reservations CASCADE;
 DROP TABLE IF EXISTS cart_items CASCADE;
 DROP TABLE IF EXISTS carts CASCADE;
 DROP TABLE IF EXISTS products CASCADE;
@@ -80,13 +85,18 @@ CREATE INDEX idx_products_price ON products(p_price);
 CREATE TABLE carts (
     ct_id BIGSERIAL PRIMARY KEY,
     ct_session_id VARCHAR(255) NOT NULL UNIQUE,
+    ct_user_id BIGINT REFERENCES users(u_id) ON DELETE SET NULL,
     ct_total_price DECIMAL(10, 2) DEFAULT 0 CHECK (ct_total_price >= 0),
     ct_item_count INTEGER DEFAULT 0 CHECK (ct_item_count >= 0),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
-CREATE INDEX idx_carts_session_id ON carts(ct_session_id);
+-- ct_session_id is indexed by its UNIQUE constraint; the expiry sweeper scans by updated_at
+CREATE INDEX idx_carts_updated_at ON carts(updated_at);
+-- A customer has at most one cart; guest carts are merged into it at login
+CREATE UNIQUE INDEX unq_carts_user ON carts(ct_user_id) WHERE ct_user_id IS NOT NULL;
+ALTER TABLE carts SET (autovacuum_vacuum_scale_factor = 0.05);
 
 -- ----------------------------------------------
 -- CART_ITEMS TABLE
@@ -104,14 +114,35 @@ CREATE TABLE cart_items (
     CONSTRAINT unq_cart_product UNIQUE (ci_cart_id, ci_product_id)
 );
 
-CREATE INDEX idx_cart_items_cart ON cart_items(ci_cart_id);
+-- Lookups by ci_cart_id use unq_cart_product's index
+ALTER TABLE cart_items SET (autovacuum_vacuum_scale_factor = 0.05);
 CREATE INDEX idx_cart_items_product ON cart_items(ci_product_id);
 
+-- ----------------------------------------------
+-- STOCK_RESERVATIONS TABLE
+-- ----------------------------------------------
+CREATE TABLE stock_reservations (
+    sr_id BIGSERIAL PRIMARY KEY,
+    sr_session_id VARCHAR(255) NOT NULL,
+    sr_product_id BIGINT NOT NULL REFERENCES products(p_id) ON DELETE CASCADE,
+    sr_quantity INTEGER NOT NULL CHECK (sr_quantity > 0),
+    sr_expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT unq_reservation_session_product UNIQUE (sr_session_id, sr_product_id)
+);
+
+CREATE INDEX idx_stock_reservations_expires_at ON stock_reservations(sr_expires_at);
+
 -- ----------------------------------------------
 -- ORDERS TABLE
 -- ----------------------------------------------
+-- Orders and order items use pooled sequences (see order_sequences.sql)
+CREATE SEQUENCE orders_seq INCREMENT BY 50;
+CREATE SEQUENCE order_items_seq INCREMENT BY 50;
+
 CREATE TABLE orders (
-    o_id BIGSERIAL PRIMARY KEY,
+    o_id BIGINT PRIMARY KEY DEFAULT nextval('orders_seq'),
     o_order_number VARCHAR(50) NOT NULL UNIQUE,
     o_customer_id BIGINT NOT NULL REFERENCES users(u_id) ON DELETE CASCADE,
 
@@ -145,11 +176,13 @@ CREATE INDEX idx_orders_status ON orders(o_status);
 CREATE INDEX idx_orders_created_at ON orders(created_at);
 CREATE INDEX idx_orders_completed_at ON orders(o_completed_at);
 
+ALTER SEQUENCE orders_seq OWNED BY orders.o_id;
+
 -- ----------------------------------------------
 -- Order_Items Table
 -- ----------------------------------------------
 CREATE TABLE order_items (
-    ot_id BIGSERIAL PRIMARY KEY,
+    ot_id BIGINT PRIMARY KEY DEFAULT nextval('order_items_seq'),
     ot_order_id BIGINT NOT NULL REFERENCES orders(o_id) ON DELETE CASCADE,
     ot_product_id BIGINT NOT NULL REFERENCES products(p_id) ON DELETE CASCADE,
 
@@ -161,4 +194,63 @@ CREATE TABLE order_items (
 );
 
 CREATE INDEX idx_order_items_order ON order_items(ot_order_id);
-CREATE INDEX idx_order_items_product ON order_items(ot_product_id);
\ No newline at end of file
+CREATE INDEX idx_order_items_product ON order_items(ot_product_id);
+
+ALTER SEQUENCE order_items_seq OWNED BY order_items.ot_id;
+
+-- ----------------------------------------------
+-- ORDER_EVENTS TABLE (outbox)
+-- ----------------------------------------------
+CREATE SEQUENCE order_events_seq INCREMENT BY 50;
+
+CREATE TABLE order_events (
+    oe_id BIGINT PRIMARY KEY DEFAULT nextval('order_events_seq'),
+    oe_order_id BIGINT NOT NULL REFERENCES orders(o_id) ON DELETE CASCADE,
+    oe_type VARCHAR(50) NOT NULL,
+    oe_status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (oe_status IN ('PENDING', 'DONE', 'FAILED')),
+    oe_attempts INTEGER NOT NULL DEFAULT 0,
+    oe_next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    oe_last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    oe_processed_at TIMESTAMP
+);
+
+-- Workers poll pending events by due time
+CREATE INDEX idx_order_events_pending ON order_events(oe_next_attempt_at) WHERE oe_status = 'PENDING';
+CREATE INDEX idx_order_events_order ON order_events(oe_order_id);
+
+ALTER SEQUENCE order_events_seq OWNED BY order_events.oe_id;
+
+-- ----------------------------------------------
+-- REPORTING SUMMARY TABLES
+-- ----------------------------------------------
+-- Aggregates behind the v_* reporting views, kept current by the triggers in triggers.sql.
+-- Names and stock are joined in at read time, so only the sums live here.
+-- SELECT fn_rebuild_reporting(); recomputes all three from orders and order_items.
+
+-- Item count per order
+CREATE TABLE rpt_order_summary (
+    rs_order_id BIGINT PRIMARY KEY REFERENCES orders(o_id) ON DELETE CASCADE,
+    rs_total_items INTEGER NOT NULL DEFAULT 0
+);
+
+-- Sales per product over orders that are not CANCELLED
+CREATE TABLE rpt_product_sales (
+    rp_product_id BIGINT PRIMARY KEY REFERENCES products(p_id) ON DELETE CASCADE,
+    rp_times_sold BIGINT NOT NULL DEFAULT 0,
+    rp_quantity_sold BIGINT NOT NULL DEFAULT 0,
+    rp_revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    rp_unit_price_sum DECIMAL(14, 2) NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_rpt_product_sales_revenue ON rpt_product_sales(rp_revenue DESC);
+
+-- Purchases per customer over orders that are not CANCELLED
+CREATE TABLE rpt_customer_purchases (
+    rc_customer_id BIGINT PRIMARY KEY REFERENCES users(u_id) ON DELETE CASCADE,
+    rc_total_orders BIGINT NOT NULL DEFAULT 0,
+    rc_lifetime_value DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    rc_last_order_date TIMESTAMP
+);
+
+CREATE INDEX idx_rpt_customer_purchases_value ON rpt_customer_purchases(rc_lifetime_value DESC);
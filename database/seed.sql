@@ -96,42 +96,42 @@ INSERT INTO orders (o_customer_id, o_subtotal, o_tax_amount, o_shipping_amount,
 (1, 83.00, 8.30, 5.00, 0, 96.30, 'DELIVERED', '12, Galle Road', 'Colombo', '00300', 'Sri Lanka', 'CARD', NOW() - INTERVAL '3 days');
 
 INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES
-(1, 11, 1, 18.00, 18.00),
-(1, 2, 1, 65.00, 65.00);
+(currval('orders_seq'), 11, 1, 18.00, 18.00),
+(currval('orders_seq'), 2, 1, 65.00, 65.00);
 
 -- Order 2: Thiranya - Processing
 INSERT INTO orders (o_customer_id, o_subtotal, o_tax_amount, o_shipping_amount, o_discount_amount, o_total_amount, o_status, o_shipping_address, o_shipping_city, o_shipping_postal_code, o_shipping_country, o_payment_method) VALUES
 (2, 235.00, 23.50, 5.00, 20.00, 243.50, 'PROCESSING', '456, Kandy Road', 'Kandy', '20000', 'Sri Lanka', 'CARD');
 
 INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES
-(2, 6, 2, 75.00, 150.00),
-(2, 16, 1, 85.00, 85.00);
+(currval('orders_seq'), 6, 2, 75.00, 150.00),
+(currval('orders_seq'), 16, 1, 85.00, 85.00);
 
 -- Order 3: Sewwandi - Delivered
 INSERT INTO orders (o_customer_id, o_subtotal, o_tax_amount, o_shipping_amount, o_discount_amount, o_total_amount, o_status, o_shipping_address, o_shipping_city, o_shipping_postal_code, o_shipping_country, o_payment_method, o_completed_at) VALUES
 (3, 132.00, 13.20, 5.00, 15.00, 135.20, 'DELIVERED', '789, Negombo Road', 'Negombo', '11500', 'Sri Lanka', 'ONLINE', NOW() - INTERVAL '7 days');
 
 INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES
-(3, 1, 3, 25.00, 75.00),
-(3, 12, 1, 25.00, 25.00),
-(3, 18, 1, 32.00, 32.00);
+(currval('orders_seq'), 1, 3, 25.00, 75.00),
+(currval('orders_seq'), 12, 1, 25.00, 25.00),
+(currval('orders_seq'), 18, 1, 32.00, 32.00);
 
 -- Order 4: Nisith - Confirmed
 INSERT INTO orders (o_customer_id, o_subtotal, o_tax_amount, o_shipping_amount, o_discount_amount, o_total_amount, o_status, o_shipping_address, o_shipping_city, o_shipping_postal_code, o_shipping_country, o_payment_method) VALUES
 (4, 100.00, 10.00, 5.00, 15.00, 100.00, 'CONFIRMED', '321, Gampaha Road', 'Gampaha', '11000', 'Sri Lanka', 'CASH');
 
 INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES
-(4, 8, 1, 68.00, 68.00),
-(4, 13, 1, 32.00, 32.00);
+(currval('orders_seq'), 8, 1, 68.00, 68.00),
+(currval('orders_seq'), 13, 1, 32.00, 32.00);
 
 -- Order 5: Yameesha - Shipped
 INSERT INTO orders (o_customer_id, o_subtotal, o_tax_amount, o_shipping_amount, o_discount_amount, o_total_amount, o_status, o_shipping_address, o_shipping_city, o_shipping_postal_code, o_shipping_country, o_payment_method) VALUES
 (1, 115.00, 11.50, 5.00, 5.00, 126.50, 'SHIPPED', '12, Galle Road', 'Colombo', '00300', 'Sri Lanka', 'CARD');
 
 INSERT INTO order_items (ot_order_id, ot_product_id, ot_quantity, ot_unit_price, ot_subtotal) VALUES
-(5, 4, 1, 55.00, 55.00),
-(5, 19, 1, 28.00, 28.00),
-(5, 18, 1, 32.00, 32.00);
+(currval('orders_seq'), 4, 1, 55.00, 55.00),
+(currval('orders_seq'), 19, 1, 28.00, 28.00),
+(currval('orders_seq'), 18, 1, 32.00, 32.00);
 
 -- ==============================================
 -- DATA SUMMARY
@@ -1,6 +1,9 @@
 -- ----------------------------------------------
 -- VIEWS FOR REPORTING
 -- ----------------------------------------------
+-- The aggregates come from the rpt_* summary tables (see schema.sql), which triggers keep
+-- current, so these views only join in names and stock instead of grouping the sales history.
+-- After a bulk load or suspected drift: SELECT fn_rebuild_reporting();
 
 -- View: Order summary for sales reports
 CREATE OR REPLACE VIEW v_order_summary AS
@@ -13,44 +16,39 @@ SELECT
     o.o_status,
     o.created_at as order_date,
     o.o_completed_at,
-    COUNT(oi.ot_id) as total_items
+    COALESCE(rs.rs_total_items, 0) as total_items
 FROM orders o
 JOIN users u ON o.o_customer_id = u.u_id
-LEFT JOIN order_items oi ON o.o_id = oi.ot_order_id
-GROUP BY o.o_id, o.o_customer_id, u.u_fullName, u.u_email, o.o_total_amount,
-         o.o_status, o.created_at, o.o_completed_at;
+LEFT JOIN rpt_order_summary rs ON rs.rs_order_id = o.o_id;
 
--- View: Product sales report
+-- View: Product sales report (orders that are not CANCELLED)
 CREATE OR REPLACE VIEW v_product_sales AS
 SELECT
     p.p_id as product_id,
     p.p_name as product_name,
     p.p_sku,
     c.c_name as category_name,
-    COUNT(oi.ot_id) as times_sold,
-    SUM(oi.ot_quantity) as total_quantity_sold,
-    SUM(oi.ot_subtotal) as total_revenue,
-    AVG(oi.ot_unit_price) as average_selling_price,
+    COALESCE(rp.rp_times_sold, 0) as times_sold,
+    NULLIF(rp.rp_quantity_sold, 0) as total_quantity_sold,
+    CASE WHEN rp.rp_times_sold > 0 THEN rp.rp_revenue END as total_revenue,
+    CASE WHEN rp.rp_times_sold > 0 THEN rp.rp_unit_price_sum / rp.rp_times_sold END as average_selling_price,
     p.p_stock_quantity as current_stock
 FROM products p
 LEFT JOIN categories c ON p.p_category_id = c.c_id
-LEFT JOIN order_items oi ON p.p_id = oi.ot_product_id
-LEFT JOIN orders o ON oi.ot_order_id = o.o_id AND o.o_status != 'CANCELLED'
-GROUP BY p.p_id, p.p_name, p.p_sku, c.c_name, p.p_stock_quantity
+LEFT JOIN rpt_product_sales rp ON rp.rp_product_id = p.p_id
 ORDER BY total_revenue DESC;
 
--- View: Customer purchase history
+-- View: Customer purchase history (orders that are not CANCELLED)
 CREATE OR REPLACE VIEW v_customer_purchases AS
 SELECT
     u.u_id as customer_id,
     u.u_fullName as customer_name,
     u.u_email as customer_email,
-    COUNT(o.o_id) as total_orders,
-    SUM(o.o_total_amount) as lifetime_value,
-    MAX(o.created_at) as last_order_date,
-    AVG(o.o_total_amount) as average_order_value
+    COALESCE(rc.rc_total_orders, 0) as total_orders,
+    CASE WHEN rc.rc_total_orders > 0 THEN rc.rc_lifetime_value END as lifetime_value,
+    rc.rc_last_order_date as last_order_date,
+    CASE WHEN rc.rc_total_orders > 0 THEN rc.rc_lifetime_value / rc.rc_total_orders END as average_order_value
 FROM users u
-LEFT JOIN orders o ON u.u_id = o.o_customer_id AND o.o_status != 'CANCELLED'
+LEFT JOIN rpt_customer_purchases rc ON rc.rc_customer_id = u.u_id
 WHERE u.u_type = 'CUSTOMER'
-GROUP BY u.u_id, u.u_fullName, u.u_email
-ORDER BY lifetime_value DESC;
\ No newline at end of file
+ORDER BY lifetime_value DESC;
@@ -10,6 +10,8 @@ import {
   DropdownMenuItem
 } from './ui/dropdown-menu';
 import useAuthStore from '@/store/authStore';
+import { useCartStore } from '@/store/cartStore';
+import { clearSessionId } from '@/utils/session';
 import logo from '../assets/atelier-logo.png';
 
 const Navbar = () => {
@@ -22,6 +24,9 @@ const Navbar = () => {
   const handleLogout = () => {
     localStorage.removeItem('user');
     useAuthStore.getState().logout();
+    // The cart stays with the account; the next visitor starts a new guest cart
+    clearSessionId();
+    useCartStore.setState({ items: [] });
     navigate('/login');
   };
 
@@ -16,7 +16,7 @@ const Accessories = () => {
   const fetchProducts = async () => {
     try {
       setLoading(true);
-      const response = await api.get('/products/category/4');
+      const response = await api.get('/products/category/name/Accessories');
       setProducts(response.data);
     } catch (err) {
       setError(err.message);
@@ -16,7 +16,7 @@ const Gifts = () => {
   const fetchProducts = async () => {
     try {
       setLoading(true);
-      const response = await api.get('/products/category/5');
+      const response = await api.get('/products/category/name/Gifts');
       setProducts(response.data);
     } catch (err) {
       setError(err.message);
@@ -41,6 +41,7 @@ const ItemPage = () => {
 
   const fetchRelatedItems = async () => {
     try {
+      // The first keyset page is plenty to pick four related items from
       const response = await api.get('/products');
       const filtered = response.data.filter(p => p.id !== parseInt(id));
       const shuffled = filtered.sort(() => 0.5 - Math.random());
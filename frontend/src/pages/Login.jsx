@@ -3,6 +3,8 @@ import { Button } from '@/components/ui/button';
 import { Link, useNavigate } from 'react-router-dom';
 import api from '@/lib/api';
 import useAuthStore from '@/store/authStore';
+import { useCartStore } from '@/store/cartStore';
+import { getSessionId, setSessionId } from '@/utils/session';
 
 const Login = () => {
   const [username, setUsername] = useState('');
@@ -46,8 +48,15 @@ const Login = () => {
       const response = await api.post('/auth/login', {
         username,
         password,
+        cartSessionId: getSessionId(),
       });
 
+      // Keep shopping in the customer's cart, which now holds the guest cart's items
+      if (response.data.cartSessionId) {
+        setSessionId(response.data.cartSessionId);
+        useCartStore.getState().fetchCart();
+      }
+
       // Store user data in localStorage
       localStorage.setItem('user', JSON.stringify(response.data));
 
@@ -7,16 +7,20 @@ const Store = () => {
   const [products, setProducts] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchProducts();
   }, []);
 
+  // /products is keyset-paged; the cursor for the next page comes back in X-Next-Cursor
   const fetchProducts = async () => {
     try {
       setLoading(true);
       const response = await api.get('/products');
       setProducts(response.data);
+      setNextCursor(response.headers['x-next-cursor'] || null);
     } catch (err) {
       setError(err.message);
       console.error('Error fetching products:', err);
@@ -25,6 +29,19 @@ const Store = () => {
     }
   };
 
+  const fetchMoreProducts = async () => {
+    try {
+      setLoadingMore(true);
+      const response = await api.get('/products', { params: { cursor: nextCursor } });
+      setProducts((current) => [...current, ...response.data]);
+      setNextCursor(response.headers['x-next-cursor'] || null);
+    } catch (err) {
+      console.error('Error fetching more products:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (loading) {
     return (
       <div className="min-h-screen bg-white flex items-center justify-center">
@@ -92,6 +109,18 @@ const Store = () => {
             </Link>
           ))}
         </div>
+
+        {nextCursor && (
+          <div className="flex justify-center mb-10">
+            <button
+              onClick={fetchMoreProducts}
+              disabled={loadingMore}
+              className="px-6 py-3 bg-gray-900 text-white text-sm rounded hover:bg-gray-800 transition-colors disabled:opacity-50"
+            >
+              {loadingMore ? 'Loading...' : 'Load More'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
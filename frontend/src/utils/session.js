@@ -20,6 +20,11 @@ export function getSessionId() {
   return sessionId;
 }
 
+// Switch to another session ID, e.g. the customer's cart session returned at login
+export function setSessionId(sessionId) {
+  localStorage.setItem('cart_session_id', sessionId);
+}
+
 // Clear session ID
 export function clearSessionId() {
   localStorage.removeItem('cart_session_id');